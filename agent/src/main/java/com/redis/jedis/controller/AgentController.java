@@ -2,11 +2,15 @@ package com.redis.jedis.controller;
 
 import com.redis.jedis.dto.*;
 import com.redis.jedis.service.AgentService;
+import com.redis.jedis.service.PeerTransferService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -21,6 +25,9 @@ public class AgentController {
     @Autowired
     private AgentService agentService;
     
+    @Autowired
+    private PeerTransferService peerTransferService;
+    
     @ApiOperation("获取节点状态")
     @GetMapping("/status")
     public ApiResponse<StatusReport> getNodeStatus() {
@@ -54,6 +61,13 @@ public class AgentController {
         }
     }
     
+    @ApiOperation("向下游节点提供已缓存的制品（树形P2P分发）")
+    @RequestMapping(value = "/artifacts/{digest}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void downloadArtifact(@PathVariable String digest, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        peerTransferService.serveArtifact(digest, request, response);
+    }
+    
     @ApiOperation("启动服务")
     @PostMapping("/start/{serviceName}")
     public ApiResponse<String> startService(@PathVariable String serviceName) {
@@ -1,6 +1,7 @@
 package com.redis.jedis.dto;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 部署任务DTO
@@ -9,6 +10,7 @@ import java.util.List;
 public class DeployTask {
     
     private String taskId; // 任务ID
+    private String idempotencyKey; // 幂等键：同一节点上相同幂等键的任务只执行一次，为空时使用任务ID
     private String nodeId; // 目标节点ID
     private String serviceName; // 服务名称
     private String action; // 操作类型：START/STOP/RESTART/DEPLOY/ROLLBACK
@@ -19,6 +21,11 @@ public class DeployTask {
     private List<String> targetNodes; // 目标节点列表
     private long createTime; // 创建时间
     private String operator; // 操作人
+    private Map<String, String> fanoutSources; // 树形分发计划：节点ID -> 上游节点ID（不在计划中的节点从Master获取）
+    private Map<String, String> deltaArtifacts; // 差量包：基础制品摘要 -> 差量包摘要（节点缓存了基础制品时优先使用）
+    private Map<String, String> nodeMethods; // 各节点的分发方式：节点ID -> 分发方式（不在其中的节点使用 distributionMethod）
+    private Map<String, String> methodSources; // 各分发方式的文件路径：分发方式 -> 共享存储路径/下载URL/Redis键
+    private String healthCheckUrl; // 健康检查地址：部署后等待其返回UP才上报成功，为空时只检查进程
     
     public DeployTask() {
         this.createTime = System.currentTimeMillis();
@@ -41,6 +48,14 @@ public class DeployTask {
         this.taskId = taskId;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     public String getNodeId() {
         return nodeId;
     }
@@ -120,4 +135,44 @@ public class DeployTask {
     public void setOperator(String operator) {
         this.operator = operator;
     }
+    
+    public Map<String, String> getFanoutSources() {
+        return fanoutSources;
+    }
+    
+    public void setFanoutSources(Map<String, String> fanoutSources) {
+        this.fanoutSources = fanoutSources;
+    }
+    
+    public Map<String, String> getDeltaArtifacts() {
+        return deltaArtifacts;
+    }
+    
+    public void setDeltaArtifacts(Map<String, String> deltaArtifacts) {
+        this.deltaArtifacts = deltaArtifacts;
+    }
+    
+    public Map<String, String> getNodeMethods() {
+        return nodeMethods;
+    }
+    
+    public void setNodeMethods(Map<String, String> nodeMethods) {
+        this.nodeMethods = nodeMethods;
+    }
+    
+    public Map<String, String> getMethodSources() {
+        return methodSources;
+    }
+    
+    public void setMethodSources(Map<String, String> methodSources) {
+        this.methodSources = methodSources;
+    }
+    
+    public String getHealthCheckUrl() {
+        return healthCheckUrl;
+    }
+    
+    public void setHealthCheckUrl(String healthCheckUrl) {
+        this.healthCheckUrl = healthCheckUrl;
+    }
 }
@@ -14,6 +14,8 @@ public class StatusReport {
     private String healthStatus;
     private long lastDeployTime; // 最近部署时间
     private String lastDeployVersion; // 最近部署版本（基于时间戳）
+    private int taskQueueDepth; // 已接收等待执行的任务数
+    private int activeTasks; // 正在执行的任务数
     
     public StatusReport() {
     }
@@ -87,4 +89,20 @@ public class StatusReport {
     public void setLastDeployVersion(String lastDeployVersion) {
         this.lastDeployVersion = lastDeployVersion;
     }
+    
+    public int getTaskQueueDepth() {
+        return taskQueueDepth;
+    }
+    
+    public void setTaskQueueDepth(int taskQueueDepth) {
+        this.taskQueueDepth = taskQueueDepth;
+    }
+    
+    public int getActiveTasks() {
+        return activeTasks;
+    }
+    
+    public void setActiveTasks(int activeTasks) {
+        this.activeTasks = activeTasks;
+    }
 }
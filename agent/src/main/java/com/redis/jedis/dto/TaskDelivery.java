@@ -0,0 +1,51 @@
+package com.redis.jedis.dto;
+
+/**
+ * 任务投递DTO
+ * 从任务总线取到的一条任务，确认和刷新租约时原样交回总线
+ */
+public class TaskDelivery {
+    
+    private String id; // 投递标识：Stream条目ID，列表模式下为空
+    private String source; // 任务来源：Stream键，列表模式下为空
+    private String payload; // 任务JSON
+    
+    public TaskDelivery() {
+    }
+    
+    public TaskDelivery(String id, String payload) {
+        this.id = id;
+        this.payload = payload;
+    }
+    
+    public TaskDelivery(String id, String source, String payload) {
+        this.id = id;
+        this.source = source;
+        this.payload = payload;
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,96 @@
+package com.redis.jedis.dto;
+
+/**
+ * 文件传输统计DTO
+ * 记录一次分发或接收的压缩率与吞吐量，用于比较不同编解码器的实际耗时
+ */
+public class TransferStats {
+    
+    private String method; // 分发方式
+    private String codec; // 压缩编解码器
+    private long originalSize; // 原始大小(字节)
+    private long transferredSize; // 实际传输大小(字节)
+    private long durationMillis; // 耗时(毫秒)
+    private int connections = 1; // 并发连接数，分段下载时大于1
+    
+    public TransferStats() {
+    }
+    
+    public TransferStats(String method, String codec, long originalSize, long transferredSize, long durationMillis) {
+        this.method = method;
+        this.codec = codec;
+        this.originalSize = originalSize;
+        this.transferredSize = transferredSize;
+        this.durationMillis = durationMillis;
+    }
+    
+    /**
+     * 压缩率：传输大小 / 原始大小
+     */
+    public double getCompressionRatio() {
+        return originalSize > 0 ? (double) transferredSize / originalSize : 1.0;
+    }
+    
+    /**
+     * 吞吐量(MB/s)，按原始大小计算
+     */
+    public double getThroughputMBps() {
+        return durationMillis > 0 ? originalSize / 1048576.0 / (durationMillis / 1000.0) : 0.0;
+    }
+    
+    // Getters and Setters
+    public String getMethod() {
+        return method;
+    }
+    
+    public void setMethod(String method) {
+        this.method = method;
+    }
+    
+    public String getCodec() {
+        return codec;
+    }
+    
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+    
+    public long getOriginalSize() {
+        return originalSize;
+    }
+    
+    public void setOriginalSize(long originalSize) {
+        this.originalSize = originalSize;
+    }
+    
+    public long getTransferredSize() {
+        return transferredSize;
+    }
+    
+    public void setTransferredSize(long transferredSize) {
+        this.transferredSize = transferredSize;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+    
+    public int getConnections() {
+        return connections;
+    }
+    
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s/%s %d -> %d bytes (%.1f%%), %dms, %.2f MB/s%s", method, codec,
+                originalSize, transferredSize, getCompressionRatio() * 100, durationMillis, getThroughputMBps(),
+                connections > 1 ? ", " + connections + " connections" : "");
+    }
+}
@@ -1,14 +1,20 @@
 package com.redis.jedis.service;
 
 import com.redis.jedis.dto.*;
+import com.redis.jedis.util.TaskKeys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import com.alibaba.fastjson.JSON;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import java.util.List;
@@ -38,6 +44,36 @@ public class AgentService {
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     
+    @Autowired
+    private PeerTransferService peerTransferService;
+    
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+    
+    @Value("${agent.task-consumer.visibility-timeout:300}")
+    private long visibilityTimeoutSeconds;
+    
+    @Value("${agent.task-consumer.idempotency-ttl:86400}")
+    private long idempotencyTtlSeconds;
+    
+    @Value("${agent.task-keys.version:2}")
+    private int taskKeysVersion;
+    
+    private static final String TASK_IDEMPOTENCY_PREFIX = "task:idempotency:";
+    private static final long TASK_STATE_TTL = 3600; // 与Master的任务保留时间一致
+    // 写入本节点字段并刷新TTL，与Master的状态更新脚本一致 KEYS: state  ARGV: TTL, 字段, 值
+    private static final RedisScript<Long> UPDATE_STATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1", Long.class);
+    private static final String TASK_EVENTS_CHANNEL = "task:events";
+    
+    // 本进程的标识，用于区分执行标记是否为已退出的Agent进程遗留
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    // 服务名 -> 最近收到的回滚任务创建时间，此前创建、尚未开始的部署任务不再执行
+    private final Map<String, Long> rollbackMarks = new ConcurrentHashMap<>();
+    
     /**
      * 获取节点状态
      */
@@ -50,6 +86,8 @@ public class AgentService {
         report.setServiceStatus(getServiceStatus());
         report.setLastDeployTime(getLastDeployTime());
         report.setLastDeployVersion(getLastDeployVersion());
+        report.setTaskQueueDepth(taskExecutorService.getQueueDepth());
+        report.setActiveTasks(taskExecutorService.getActiveTasks());
         return report;
     }
     
@@ -71,6 +109,8 @@ public class AgentService {
         health.put("checkTime", System.currentTimeMillis());
         String healthKey = "health:status:" + nodeId;
         stringRedisTemplate.opsForValue().set(healthKey, JSON.toJSONString(health));
+        // 4) 刷新节点访问地址，供P2P分发的下游节点使用
+        peerTransferService.registerEndpoint();
     }
 
     /**
@@ -89,47 +129,115 @@ public class AgentService {
     }
 
     /**
-     * 定时检查任务队列（每5秒检查一次）
+     * 处理从任务总线取出的一条任务消息，由 TaskExecutorService 的执行线程调用，不同服务的任务可能并发执行
      */
-    @Scheduled(fixedDelay = 5000, initialDelay = 10000)
-    public void checkTaskQueue() {
+    public void handleTaskMessage(String taskJson) {
+        if (taskJson == null || taskJson.trim().isEmpty()) {
+            return;
+        }
+        System.out.println("Agent[" + nodeId + "]: 收到新任务: " + taskJson);
+        
         try {
-            String queueKey = "task:queue:" + nodeId;
-            System.out.println("Agent[" + nodeId + "]: 检查任务队列: " + queueKey);
+            DeployTask task = JSON.parseObject(taskJson, DeployTask.class);
+            System.out.println("Agent[" + nodeId + "]: 解析任务成功:");
+            System.out.println("  - 任务ID: " + task.getTaskId());
+            System.out.println("  - 服务名: " + task.getServiceName());
+            System.out.println("  - 操作: " + task.getAction());
+            System.out.println("  - 文件路径: " + task.getFilePath());
+            System.out.println("  - 操作员: " + task.getOperator());
             
-            // 从Redis队列中获取任务（阻塞式，超时1秒）
-            String taskJson = stringRedisTemplate.opsForList().rightPop(queueKey, 1, TimeUnit.SECONDS);
+            // 重新投递的任务按幂等键判断是否已执行过
+            if (!claimTask(task)) {
+                return;
+            }
             
-            if (taskJson != null && !taskJson.trim().isEmpty()) {
-                System.out.println("Agent[" + nodeId + "]: 收到新任务: " + taskJson);
-                
-                try {
-                    DeployTask task = JSON.parseObject(taskJson, DeployTask.class);
-                    System.out.println("Agent[" + nodeId + "]: 解析任务成功:");
-                    System.out.println("  - 任务ID: " + task.getTaskId());
-                    System.out.println("  - 服务名: " + task.getServiceName());
-                    System.out.println("  - 操作: " + task.getAction());
-                    System.out.println("  - 文件路径: " + task.getFilePath());
-                    System.out.println("  - 操作员: " + task.getOperator());
-                    
-                    // 执行任务
-                    executeDeployTask(task);
-                    
-                } catch (Exception e) {
-                    System.err.println("Agent[" + nodeId + "]: 处理任务失败: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            } else {
-                // 没有任务时不打印日志，避免日志过多
-                // System.out.println("Agent[" + nodeId + "]: 队列中没有新任务");
+            if (isSupersededByRollback(task)) {
+                System.out.println("Agent[" + nodeId + "]: 部署任务 " + task.getTaskId() + " 已被之后的回滚任务取消");
+                updateTaskStatus(task.getTaskId(), "CANCELLED", "已被回滚任务取消", null);
+                completeTask(task);
+                return;
             }
             
+            // 执行任务
+            executeDeployTask(task);
+            completeTask(task);
+            
         } catch (Exception e) {
-            System.err.println("Agent[" + nodeId + "]: 检查任务队列失败: " + e.getMessage());
+            System.err.println("Agent[" + nodeId + "]: 处理任务失败: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    /**
+     * 登记收到的回滚任务，由消费线程在任务进入执行通道前调用
+     */
+    public void markRollback(DeployTask rollbackTask) {
+        if (rollbackTask.getServiceName() != null) {
+            rollbackMarks.merge(rollbackTask.getServiceName(), rollbackTask.getCreateTime(), Math::max);
+        }
+    }
+    
+    private boolean isSupersededByRollback(DeployTask task) {
+        if (!"DEPLOY".equals(task.getAction()) || task.getServiceName() == null) {
+            return false;
+        }
+        Long rollbackTime = rollbackMarks.get(task.getServiceName());
+        return rollbackTime != null && task.getCreateTime() < rollbackTime;
+    }
+    
+    /**
+     * 登记任务开始执行（task:idempotency:{nodeId}:{幂等键}）
+     * 已执行完毕或本进程正在执行时返回false；已退出的Agent进程遗留的执行标记由本进程接管
+     */
+    private boolean claimTask(DeployTask task) {
+        String key = idempotencyKey(task);
+        if (key == null) {
+            return true;
+        }
+        String running = "RUNNING:" + instanceId;
+        Boolean claimed = stringRedisTemplate.opsForValue().setIfAbsent(key, running, visibilityTimeoutSeconds, TimeUnit.SECONDS);
+        if (Boolean.TRUE.equals(claimed)) {
+            return true;
+        }
+        String current = stringRedisTemplate.opsForValue().get(key);
+        if (current == null) {
+            return Boolean.TRUE.equals(
+                    stringRedisTemplate.opsForValue().setIfAbsent(key, running, visibilityTimeoutSeconds, TimeUnit.SECONDS));
+        }
+        if (current.startsWith("DONE") || current.equals(running)) {
+            System.out.println("Agent[" + nodeId + "]: 任务 " + task.getTaskId() + " 已执行或正在执行，跳过重复投递");
+            return false;
+        }
+        System.out.println("Agent[" + nodeId + "]: 接管已退出进程未完成的任务: " + task.getTaskId());
+        stringRedisTemplate.opsForValue().set(key, running, visibilityTimeoutSeconds, TimeUnit.SECONDS);
+        return true;
+    }
+    
+    /**
+     * 标记任务已执行完毕，保留 idempotency-ttl 时间内的重复投递不再执行
+     */
+    private void completeTask(DeployTask task) {
+        String key = idempotencyKey(task);
+        if (key != null) {
+            stringRedisTemplate.opsForValue().set(key, "DONE", idempotencyTtlSeconds, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * 延长正在执行的任务的执行标记，与任务租约一同刷新
+     */
+    public void renewIdempotencyClaim(String taskJson) {
+        String key = idempotencyKey(JSON.parseObject(taskJson, DeployTask.class));
+        if (key != null) {
+            stringRedisTemplate.expire(key, visibilityTimeoutSeconds, TimeUnit.SECONDS);
+        }
+    }
+    
+    private String idempotencyKey(DeployTask task) {
+        String key = task.getIdempotencyKey() != null ? task.getIdempotencyKey() : task.getTaskId();
+        return key != null ? TASK_IDEMPOTENCY_PREFIX + nodeId + ":" + key : null;
+    }
+    
     /**
      * 执行部署任务
      */
@@ -148,10 +256,11 @@ public class AgentService {
             updateTaskStatus(task.getTaskId(), "RUNNING", "开始执行部署任务", null);
             
             // 根据操作类型执行不同的任务
+            TransferStats transferStats = null;
             switch (task.getAction()) {
                 case "DEPLOY":
                     System.out.println("Agent[" + nodeId + "]: 执行部署操作...");
-                    taskExecutionService.executeDeployTask(task);
+                    transferStats = taskExecutionService.executeDeployTask(task);
                     break;
                 case "ROLLBACK":
                     System.out.println("Agent[" + nodeId + "]: 执行回滚操作...");
@@ -174,7 +283,7 @@ public class AgentService {
             }
             
             // 更新任务状态为成功
-            updateTaskStatus(task.getTaskId(), "SUCCESS", "任务执行成功", null);
+            updateTaskStatus(task.getTaskId(), "SUCCESS", "任务执行成功", null, null, transferStats);
             System.out.println("Agent[" + nodeId + "]: === 部署任务执行成功 ===");
             
         } catch (Exception e) {
@@ -183,7 +292,7 @@ public class AgentService {
             e.printStackTrace();
             
             // 更新任务状态为失败
-            updateTaskStatus(task.getTaskId(), "FAILED", "任务执行失败", e.getMessage());
+            updateTaskStatus(task.getTaskId(), "FAILED", "任务执行失败", e.getMessage(), resolveErrorCode(e), null);
         }
     }
     
@@ -191,6 +300,14 @@ public class AgentService {
      * 更新任务状态
      */
     private void updateTaskStatus(String taskId, String status, String message, String errorMessage) {
+        updateTaskStatus(taskId, status, message, errorMessage, null, null);
+    }
+    
+    /**
+     * 更新任务状态，附带错误代码和文件传输的压缩率、吞吐量
+     */
+    private void updateTaskStatus(String taskId, String status, String message, String errorMessage,
+                                  String errorCode, TransferStats transferStats) {
         try {
             System.out.println("Agent[" + nodeId + "]: 更新任务状态: " + taskId + " -> " + status);
             
@@ -200,10 +317,24 @@ public class AgentService {
             statusUpdate.put("status", status);
             statusUpdate.put("message", message);
             statusUpdate.put("errorMessage", errorMessage);
+            statusUpdate.put("errorCode", errorCode);
             statusUpdate.put("updateTime", System.currentTimeMillis());
+            if (transferStats != null && transferStats.getMethod() != null) {
+                statusUpdate.put("transferStats", transferStats);
+            }
+            
+            // 写入任务状态哈希中本节点的字段，与其他节点和Master的字段互不覆盖；字段与TTL由脚本原子写入
+            String stateKey = TaskKeys.state(taskId, taskKeysVersion);
+            stringRedisTemplate.execute(UPDATE_STATE_SCRIPT, Collections.singletonList(stateKey),
+                    String.valueOf(TASK_STATE_TTL), "node:" + nodeId, JSON.toJSONString(statusUpdate));
             
-            String statusKey = "task:status:" + taskId + ":" + nodeId;
-            stringRedisTemplate.opsForValue().set(statusKey, JSON.toJSONString(statusUpdate));
+            // 通知Master推送给订阅该任务的客户端
+            Map<String, Object> event = new HashMap<>();
+            event.put("taskId", taskId);
+            event.put("nodeId", nodeId);
+            event.put("status", status);
+            event.put("timestamp", System.currentTimeMillis());
+            stringRedisTemplate.convertAndSend(TASK_EVENTS_CHANNEL, JSON.toJSONString(event));
             
             System.out.println("Agent[" + nodeId + "]: 任务状态更新完成");
             
@@ -213,6 +344,18 @@ public class AgentService {
         }
     }
     
+    /**
+     * 根据异常链确定错误代码
+     */
+    private String resolveErrorCode(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ChecksumMismatchException) {
+                return ChecksumMismatchException.ERROR_CODE;
+            }
+        }
+        return null;
+    }
+    
     /**
      * 启动服务
      */
@@ -0,0 +1,192 @@
+package com.redis.jedis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 制品缓存服务
+ * 在 {agent.work-dir}/artifacts 下按SHA-256摘要缓存已接收的JAR包，并向Master上报已持有的摘要
+ */
+@Service
+public class ArtifactCacheService {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${agent.work-dir:/tmp/agent}")
+    private String workDir;
+
+    @Value("${agent.artifact-cache.max-entries:20}")
+    private int maxEntries;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private static final String AGENT_ARTIFACTS_PREFIX = "agent:artifacts:";
+    private static final Pattern DIGEST_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private Path cacheDir;
+
+    /**
+     * 初始化缓存目录并上报已缓存的摘要
+     */
+    @PostConstruct
+    public void init() {
+        cacheDir = Paths.get(workDir, "artifacts");
+        try {
+            Files.createDirectories(cacheDir);
+            reportDigests();
+        } catch (Exception e) {
+            System.err.println("ArtifactCache[" + nodeId + "]: 初始化制品缓存失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查找缓存的制品，不存在时返回null
+     */
+    public Path find(String digest) {
+        if (!isDigest(digest)) {
+            return null;
+        }
+        Path cached = cacheDir.resolve(digest + ".jar");
+        return Files.exists(cached) ? cached : null;
+    }
+
+    /**
+     * 将缓存的制品放置到目标路径（优先硬链接）
+     */
+    public synchronized void materialize(String digest, Path target) throws IOException {
+        Path cached = find(digest);
+        if (cached == null) {
+            throw new RuntimeException("本地制品缓存不存在: " + digest);
+        }
+        linkOrCopy(cached, target);
+        System.out.println("ArtifactCache[" + nodeId + "]: 命中本地制品缓存: " + digest);
+    }
+
+    /**
+     * 将已接收的文件加入缓存
+     * 调用方需已在接收过程中校验过摘要，这里不再重新读取文件
+     */
+    public synchronized void put(String digest, Path file) throws IOException {
+        if (!isDigest(digest)) {
+            return;
+        }
+
+        linkOrCopy(file, cacheDir.resolve(digest + ".jar"));
+        stringRedisTemplate.opsForSet().add(AGENT_ARTIFACTS_PREFIX + nodeId, digest);
+        System.out.println("ArtifactCache[" + nodeId + "]: 制品已加入本地缓存: " + digest);
+
+        evict();
+    }
+
+    /**
+     * 上报本地持有的全部制品摘要
+     */
+    public synchronized void reportDigests() throws IOException {
+        String key = AGENT_ARTIFACTS_PREFIX + nodeId;
+        List<String> digests = new ArrayList<>();
+        for (Path path : listCached()) {
+            digests.add(path.getFileName().toString().replace(".jar", ""));
+        }
+        stringRedisTemplate.delete(key);
+        if (!digests.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(key, digests.toArray(new String[0]));
+        }
+        System.out.println("ArtifactCache[" + nodeId + "]: 已上报 " + digests.size() + " 个本地制品摘要");
+    }
+
+    /**
+     * 超过上限时按修改时间淘汰最旧的制品
+     */
+    private void evict() throws IOException {
+        List<Path> cached = listCached();
+        if (cached.size() <= maxEntries) {
+            return;
+        }
+        cached.sort(Comparator.comparingLong(this::lastModified));
+        for (int i = 0; i < cached.size() - maxEntries; i++) {
+            Path path = cached.get(i);
+            Files.deleteIfExists(path);
+            stringRedisTemplate.opsForSet().remove(AGENT_ARTIFACTS_PREFIX + nodeId,
+                    path.getFileName().toString().replace(".jar", ""));
+            System.out.println("ArtifactCache[" + nodeId + "]: 淘汰制品缓存: " + path.getFileName());
+        }
+    }
+
+    private List<Path> listCached() throws IOException {
+        List<Path> cached = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.jar")) {
+            for (Path path : stream) {
+                cached.add(path);
+            }
+        }
+        return cached;
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private boolean isDigest(String digest) {
+        return digest != null && DIGEST_PATTERN.matcher(digest).matches();
+    }
+
+    /**
+     * 创建SHA-256摘要器
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256算法", e);
+        }
+    }
+
+    /**
+     * 摘要转十六进制字符串
+     */
+    public static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 硬链接文件，不支持时退化为复制
+     */
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return;
+        }
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.redis.jedis.service;
+
+/**
+ * 接收文件的摘要与任务中的 fileChecksum 不一致
+ */
+public class ChecksumMismatchException extends RuntimeException {
+
+    public static final String ERROR_CODE = "CHECKSUM_MISMATCH";
+
+    public ChecksumMismatchException(String expected, String actual) {
+        super("文件摘要不一致，期望: " + expected + ", 实际: " + actual);
+    }
+}
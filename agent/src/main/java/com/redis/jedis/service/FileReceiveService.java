@@ -1,18 +1,38 @@
 package com.redis.jedis.service;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.redis.jedis.dto.TransferStats;
+import com.redis.jedis.util.CompressionCodec;
+import com.redis.jedis.util.CountingInputStream;
+import com.redis.jedis.util.DigestingReadableByteChannel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.util.Base64;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 文件接收服务
@@ -27,6 +47,33 @@ public class FileReceiveService {
     @Autowired
     private StringRedisTemplate stringRedisTemplate;
     
+    @Value("${file-receive.http-download.timeout:300000}")
+    private int httpTimeout;
+    
+    @Value("${file-receive.http-download.max-retries:3}")
+    private int httpMaxRetries;
+    
+    @Value("${file-receive.http-download.connections:4}")
+    private int httpConnections;
+    
+    @Value("${file-receive.http-download.chunk-size:8388608}")
+    private long httpChunkSize;
+    
+    @Value("${file-receive.http-download.parallel-threshold:33554432}")
+    private long httpParallelThreshold;
+    
+    @Value("${file-receive.compression.accept-encoding:zstd,lz4,gzip}")
+    private String acceptEncoding;
+    
+    // 每次transferFrom的最大字节数
+    private static final long HTTP_TRANSFER_SIZE = 8 * 1024 * 1024;
+    
+    // 分段下载时每次读写的缓冲区大小
+    private static final int RANGE_BUFFER_SIZE = 256 * 1024;
+    
+    private static final String REDIS_CHUNK_PREFIX = "file:chunk:";
+    private static final String REDIS_CHUNK_META_PREFIX = "file:meta:";
+    
     /**
      * 从共享存储复制文件
      */
@@ -64,42 +111,317 @@ public class FileReceiveService {
     /**
      * 下载文件（通用方法）
      */
-    public void downloadFile(String sourceUrl, String targetPath) throws Exception {
+    public TransferStats downloadFile(String sourceUrl, String targetPath) throws Exception {
+        return downloadFile(sourceUrl, targetPath, null);
+    }
+    
+    /**
+     * 下载文件，接收过程中同步计算SHA-256并与 expectedChecksum 比对（为空时不校验）
+     */
+    public TransferStats downloadFile(String sourceUrl, String targetPath, String expectedChecksum) throws Exception {
         System.out.println("FileReceive[" + nodeId + "]: 下载文件: " + sourceUrl + " -> " + targetPath);
         
         if (sourceUrl.startsWith("http://") || sourceUrl.startsWith("https://")) {
-            downloadFromHttpUrl(sourceUrl, targetPath);
+            return downloadFromHttpUrl(sourceUrl, targetPath, expectedChecksum);
         } else {
             // 假设是本地文件路径，直接复制
-            Files.copy(Paths.get(sourceUrl), Paths.get(targetPath), StandardCopyOption.REPLACE_EXISTING);
+            TransferStats stats = copyFile(Paths.get(sourceUrl), Paths.get(targetPath), expectedChecksum);
+            stats.setMethod("copy");
             System.out.println("FileReceive[" + nodeId + "]: 本地文件复制完成");
+            return stats;
+        }
+    }
+    
+    /**
+     * 复制本地或共享存储中的文件，复制的同时计算摘要
+     */
+    public TransferStats copyFile(Path source, Path target, String expectedChecksum) throws IOException {
+        long startTime = System.currentTimeMillis();
+        MessageDigest md = ArtifactCacheService.newSha256();
+        long position = 0;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             ReadableByteChannel digesting = new DigestingReadableByteChannel(in, md);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long transferred;
+            while ((transferred = out.transferFrom(digesting, position, HTTP_TRANSFER_SIZE)) > 0) {
+                position += transferred;
+            }
         }
+        verifyChecksum(md, expectedChecksum, target);
+        return new TransferStats("shared-storage", CompressionCodec.NONE.getEncoding(), position, position,
+                System.currentTimeMillis() - startTime);
     }
     
     /**
      * 从HTTP URL下载文件
+     * 先写入 .part 临时文件，中断后按已下载大小发送Range请求续传，完成后再改名为目标文件；
+     * 完整下载时声明可接受的压缩编码，续传请求始终获取原始字节，.part 中保存的是解压后的内容
      */
-    private void downloadFromHttpUrl(String url, String targetPath) throws Exception {
+    private TransferStats downloadFromHttpUrl(String url, String targetPath, String expectedChecksum) throws Exception {
         System.out.println("FileReceive[" + nodeId + "]: 开始HTTP下载: " + url);
         
-        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
-        connection.setRequestMethod("GET");
-        connection.setConnectTimeout(30000);
-        connection.setReadTimeout(60000);
+        Path partPath = Paths.get(targetPath + ".part");
+        Path etagPath = Paths.get(targetPath + ".part.etag");
         
-        try (InputStream inputStream = connection.getInputStream();
-             FileOutputStream outputStream = new FileOutputStream(targetPath)) {
-            
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytes = 0;
+        // 大文件优先多连接分段下载；存在未完成的 .part 时按单连接续传
+        if (httpConnections > 1 && !Files.exists(partPath)) {
+            TransferStats stats = downloadInRanges(url, targetPath, expectedChecksum);
+            if (stats != null) {
+                return stats;
+            }
+        }
+        
+        Exception lastError = null;
+        long startTime = System.currentTimeMillis();
+        long wireBytes = 0;
+        
+        for (int attempt = 1; attempt <= httpMaxRetries; attempt++) {
+            try {
+                long existing = Files.exists(partPath) ? Files.size(partPath) : 0L;
+                String etag = Files.exists(etagPath) ? new String(Files.readAllBytes(etagPath), StandardCharsets.UTF_8) : null;
+                
+                HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setRequestMethod("GET");
+                connection.setConnectTimeout(30000);
+                connection.setReadTimeout(httpTimeout);
+                if (existing > 0 && etag != null) {
+                    connection.setRequestProperty("Range", "bytes=" + existing + "-");
+                    connection.setRequestProperty("If-Range", etag);
+                } else if (!acceptEncoding.isEmpty()) {
+                    connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+                }
+                
+                int code = connection.getResponseCode();
+                if (code == 416) {
+                    // 已下载的部分不可用，从头开始
+                    connection.disconnect();
+                    Files.deleteIfExists(partPath);
+                    throw new IOException("续传范围无效，重新下载");
+                }
+                if (code != 200 && code != 206) {
+                    connection.disconnect();
+                    throw new IOException("HTTP下载失败，响应码: " + code);
+                }
+                
+                CompressionCodec codec = CompressionCodec.fromName(connection.getContentEncoding());
+                if (codec == null) {
+                    connection.disconnect();
+                    throw new IOException("不支持的内容编码: " + connection.getContentEncoding());
+                }
+                
+                boolean resumed = code == 206;
+                long position = resumed ? existing : 0L;
+                String responseEtag = connection.getHeaderField("ETag");
+                if (responseEtag != null) {
+                    Files.write(etagPath, responseEtag.getBytes(StandardCharsets.UTF_8));
+                }
+                // 续传时先补算已下载部分的摘要，其余部分在接收时计算
+                MessageDigest md = ArtifactCacheService.newSha256();
+                if (resumed) {
+                    System.out.println("FileReceive[" + nodeId + "]: 从 " + existing + " 字节处续传");
+                    digestPrefix(partPath, existing, md);
+                }
+                
+                CountingInputStream counter = new CountingInputStream(connection.getInputStream());
+                try (InputStream inputStream = codec.decompress(counter);
+                     ReadableByteChannel source = new DigestingReadableByteChannel(Channels.newChannel(inputStream), md);
+                     FileChannel target = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    if (!resumed) {
+                        target.truncate(0);
+                    }
+                    long transferred;
+                    while ((transferred = target.transferFrom(source, position, HTTP_TRANSFER_SIZE)) > 0) {
+                        position += transferred;
+                    }
+                } finally {
+                    wireBytes += counter.getCount();
+                }
+                
+                // 压缩传输时 Content-Length 为压缩后大小，由解码器校验数据完整性
+                long expected = connection.getContentLengthLong();
+                long received = position - (resumed ? existing : 0L);
+                if (codec == CompressionCodec.NONE && expected >= 0 && received != expected) {
+                    throw new IOException("下载不完整，期望: " + expected + ", 实际: " + received);
+                }
+                
+                try {
+                    verifyChecksum(md, expectedChecksum, partPath);
+                } catch (ChecksumMismatchException e) {
+                    // 内容已损坏，不再续传
+                    Files.deleteIfExists(etagPath);
+                    throw e;
+                }
+                
+                Files.move(partPath, Paths.get(targetPath), StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(etagPath);
+                TransferStats stats = new TransferStats("http", codec.getEncoding(), position, wireBytes,
+                        System.currentTimeMillis() - startTime);
+                System.out.println("FileReceive[" + nodeId + "]: HTTP下载完成，" + stats);
+                return stats;
+                
+            } catch (IOException e) {
+                lastError = e;
+                System.err.println("FileReceive[" + nodeId + "]: HTTP下载中断(" + attempt + "/" + httpMaxRetries + "): " + e.getMessage());
+            }
+        }
+        
+        throw new RuntimeException("HTTP下载失败: " + (lastError != null ? lastError.getMessage() : url));
+    }
+    
+    /**
+     * 多连接分段下载
+     * 先发HEAD请求获取文件大小，服务端支持Range且文件超过阈值时预分配 .part 文件，
+     * 按 chunk-size 切分为多个区间并发下载，各区间用 FileChannel 按位置直接写入；
+     * 区间完成顺序不定，主线程按顺序对已连续完成的前缀计算摘要（此时数据仍在页缓存中），与下载并行进行。
+     * 不满足条件或下载失败时返回null，由调用方回退到单连接下载；摘要不一致时直接抛出
+     */
+    private TransferStats downloadInRanges(String url, String targetPath, String expectedChecksum) throws Exception {
+        long fileSize;
+        String etag;
+        try {
+            HttpURLConnection head = (HttpURLConnection) new URL(url).openConnection();
+            head.setRequestMethod("HEAD");
+            head.setConnectTimeout(30000);
+            head.setReadTimeout(httpTimeout);
+            int code = head.getResponseCode();
+            fileSize = head.getContentLengthLong();
+            etag = head.getHeaderField("ETag");
+            String acceptRanges = head.getHeaderField("Accept-Ranges");
+            head.disconnect();
+            if (code != 200 || fileSize < httpParallelThreshold || !"bytes".equalsIgnoreCase(acceptRanges)) {
+                return null;
+            }
+        } catch (IOException e) {
+            System.err.println("FileReceive[" + nodeId + "]: 获取文件信息失败，使用单连接下载: " + e.getMessage());
+            return null;
+        }
+        
+        long chunkSize = Math.max(httpChunkSize, RANGE_BUFFER_SIZE);
+        int rangeCount = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        int connections = Math.min(httpConnections, rangeCount);
+        System.out.println("FileReceive[" + nodeId + "]: 分段下载 " + fileSize + " 字节，" + rangeCount
+                + " 个区间，" + connections + " 个连接");
+        
+        Path partPath = Paths.get(targetPath + ".part");
+        long startTime = System.currentTimeMillis();
+        AtomicLong wireBytes = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        MessageDigest md = ArtifactCacheService.newSha256();
+        boolean completed = false;
+        try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+            file.setLength(fileSize);
+            FileChannel channel = file.getChannel();
             
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+            CompletionService<Integer> completion = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < rangeCount; i++) {
+                final int index = i;
+                final long start = i * chunkSize;
+                final long end = Math.min(start + chunkSize, fileSize) - 1;
+                completion.submit(() -> {
+                    downloadRange(url, etag, channel, start, end, wireBytes);
+                    return index;
+                });
             }
             
-            System.out.println("FileReceive[" + nodeId + "]: HTTP下载完成，总大小: " + totalBytes + " bytes");
+            ByteBuffer buffer = ByteBuffer.allocate(RANGE_BUFFER_SIZE);
+            boolean[] done = new boolean[rangeCount];
+            int digested = 0;
+            for (int i = 0; i < rangeCount; i++) {
+                done[completion.take().get()] = true;
+                while (digested < rangeCount && done[digested]) {
+                    long position = digested * chunkSize;
+                    long end = Math.min(position + chunkSize, fileSize);
+                    while (position < end) {
+                        buffer.clear();
+                        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                        int read = channel.read(buffer, position);
+                        if (read <= 0) {
+                            throw new IOException("读取已下载区间失败");
+                        }
+                        buffer.flip();
+                        md.update(buffer);
+                        position += read;
+                    }
+                    digested++;
+                }
+            }
+            completed = true;
+        } catch (ExecutionException | IOException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            System.err.println("FileReceive[" + nodeId + "]: 分段下载失败，回退到单连接下载: " + cause.getMessage());
+        } finally {
+            executor.shutdownNow();
+            if (!completed) {
+                Files.deleteIfExists(partPath);
+            }
+        }
+        if (!completed) {
+            return null;
+        }
+        
+        verifyChecksum(md, expectedChecksum, partPath);
+        Files.move(partPath, Paths.get(targetPath), StandardCopyOption.REPLACE_EXISTING);
+        TransferStats stats = new TransferStats("http-parallel", CompressionCodec.NONE.getEncoding(), fileSize,
+                wireBytes.get(), System.currentTimeMillis() - startTime);
+        stats.setConnections(connections);
+        System.out.println("FileReceive[" + nodeId + "]: 分段下载完成，" + stats);
+        return stats;
+    }
+    
+    /**
+     * 下载单个区间 [start, end] 并按位置写入文件，中断时从已写入的位置重试
+     */
+    private void downloadRange(String url, String etag, FileChannel channel, long start, long end,
+                               AtomicLong wireBytes) throws IOException {
+        long position = start;
+        IOException lastError = null;
+        for (int attempt = 1; attempt <= httpMaxRetries && position <= end; attempt++) {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL(url).openConnection();
+                connection.setRequestMethod("GET");
+                connection.setConnectTimeout(30000);
+                connection.setReadTimeout(httpTimeout);
+                connection.setRequestProperty("Range", "bytes=" + position + "-" + end);
+                if (etag != null) {
+                    connection.setRequestProperty("If-Range", etag);
+                }
+                int code = connection.getResponseCode();
+                if (code != 206) {
+                    // 返回200说明文件已变化或服务端忽略了Range，不能按位置写入，不再重试
+                    lastError = new IOException("区间 " + start + "-" + end + " 响应码: " + code);
+                    break;
+                }
+                
+                ByteBuffer buffer = ByteBuffer.allocate(RANGE_BUFFER_SIZE);
+                try (ReadableByteChannel source = Channels.newChannel(connection.getInputStream())) {
+                    while (position <= end) {
+                        buffer.clear();
+                        buffer.limit((int) Math.min(buffer.capacity(), end - position + 1));
+                        int read = source.read(buffer);
+                        if (read < 0) {
+                            throw new IOException("区间 " + start + "-" + end + " 下载不完整");
+                        }
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+                        wireBytes.addAndGet(read);
+                    }
+                }
+            } catch (IOException e) {
+                lastError = e;
+                System.err.println("FileReceive[" + nodeId + "]: 区间 " + start + "-" + end + " 下载中断("
+                        + attempt + "/" + httpMaxRetries + "): " + e.getMessage());
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+        if (position <= end) {
+            throw lastError != null ? lastError : new IOException("区间 " + start + "-" + end + " 下载失败");
         }
     }
     
@@ -107,6 +429,13 @@ public class FileReceiveService {
      * 从Redis接收文件
      */
     public void receiveFromRedis(String redisKey, String targetPath) throws Exception {
+        receiveFromRedis(redisKey, targetPath, null);
+    }
+    
+    /**
+     * 从Redis接收文件，并校验解码后内容的摘要
+     */
+    public void receiveFromRedis(String redisKey, String targetPath, String expectedChecksum) throws Exception {
         System.out.println("FileReceive[" + nodeId + "]: 从Redis接收文件: " + redisKey + " -> " + targetPath);
         
         try {
@@ -118,19 +447,148 @@ public class FileReceiveService {
             
             // 解码并写入文件
             byte[] decodedData = Base64.getDecoder().decode(fileData);
+            MessageDigest md = ArtifactCacheService.newSha256();
+            md.update(decodedData);
             Files.write(Paths.get(targetPath), decodedData);
+            verifyChecksum(md, expectedChecksum, Paths.get(targetPath));
             
             System.out.println("FileReceive[" + nodeId + "]: 从Redis接收文件完成，大小: " + decodedData.length + " bytes");
             
             // 清理Redis中的临时数据
             stringRedisTemplate.delete(redisKey);
             
+        } catch (ChecksumMismatchException e) {
+            throw e;
         } catch (Exception e) {
             System.err.println("FileReceive[" + nodeId + "]: 从Redis接收文件失败: " + e.getMessage());
             throw new RuntimeException("从Redis接收文件失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 从Redis分块接收文件
+     * 逐块读取原始字节并直接写入磁盘，堆内存占用与文件大小无关；
+     * 分块以内容摘要为ID，写入的同时计算SHA-256并与ID比对
+     */
+    public TransferStats receiveChunksFromRedis(String artifactId, String targetPath) throws Exception {
+        System.out.println("FileReceive[" + nodeId + "]: 从Redis分块接收文件: " + artifactId + " -> " + targetPath);
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            String metaJson = stringRedisTemplate.opsForValue().get(REDIS_CHUNK_META_PREFIX + artifactId);
+            if (metaJson == null) {
+                throw new RuntimeException("Redis中没有找到文件元数据: " + artifactId);
+            }
+            JSONObject meta = JSON.parseObject(metaJson);
+            long fileSize = meta.getLongValue("fileSize");
+            int chunkCount = meta.getIntValue("chunkCount");
+            CompressionCodec codec = CompressionCodec.fromName(meta.getString("codec"));
+            if (codec == null) {
+                throw new RuntimeException("不支持的压缩格式: " + meta.getString("codec"));
+            }
+            
+            long totalBytes = 0;
+            MessageDigest md = ArtifactCacheService.newSha256();
+            try (FileChannel channel = FileChannel.open(Paths.get(targetPath),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (codec == CompressionCodec.NONE) {
+                    for (int i = 0; i < chunkCount; i++) {
+                        byte[] chunk = getChunk(artifactId, i);
+                        md.update(chunk);
+                        ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        totalBytes += buffer.capacity();
+                    }
+                } else {
+                    // 分块拼接为压缩流，边读取边解压写入文件
+                    try (ReadableByteChannel source = new DigestingReadableByteChannel(Channels.newChannel(
+                            codec.decompress(new RedisChunkInputStream(artifactId, chunkCount))), md)) {
+                        long transferred;
+                        while ((transferred = channel.transferFrom(source, totalBytes, HTTP_TRANSFER_SIZE)) > 0) {
+                            totalBytes += transferred;
+                        }
+                    }
+                }
+            }
+            
+            if (totalBytes != fileSize) {
+                throw new RuntimeException("文件大小不一致，期望: " + fileSize + ", 实际: " + totalBytes);
+            }
+            verifyChecksum(md, artifactId, Paths.get(targetPath));
+            
+            // 分块可能被多个节点共享读取，不在此处删除，由过期时间统一清理
+            long compressedSize = meta.containsKey("compressedSize") ? meta.getLongValue("compressedSize") : fileSize;
+            TransferStats stats = new TransferStats("redis", codec.getEncoding(), totalBytes, compressedSize,
+                    System.currentTimeMillis() - startTime);
+            System.out.println("FileReceive[" + nodeId + "]: 从Redis分块接收文件完成，共 " + chunkCount + " 块，" + stats);
+            return stats;
+            
+        } catch (ChecksumMismatchException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("FileReceive[" + nodeId + "]: 从Redis分块接收文件失败: " + e.getMessage());
+            throw new RuntimeException("从Redis分块接收文件失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 比对接收过程中计算的摘要，不一致时删除文件并抛出 ChecksumMismatchException
+     */
+    private void verifyChecksum(MessageDigest md, String expectedChecksum, Path file) throws IOException {
+        if (expectedChecksum == null || expectedChecksum.isEmpty()) {
+            return;
+        }
+        String actual = ArtifactCacheService.toHex(md.digest());
+        if (!expectedChecksum.equalsIgnoreCase(actual)) {
+            Files.deleteIfExists(file);
+            System.err.println("FileReceive[" + nodeId + "]: 文件摘要校验失败: " + file);
+            throw new ChecksumMismatchException(expectedChecksum, actual);
+        }
+        System.out.println("FileReceive[" + nodeId + "]: 文件摘要校验通过: " + actual);
+    }
+    
+    /**
+     * 计算文件前 length 字节的摘要（续传时补算已下载部分）
+     */
+    private void digestPrefix(Path file, long length, MessageDigest md) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(65536);
+            long position = 0;
+            while (position < length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    throw new IOException("读取已下载部分失败");
+                }
+                buffer.flip();
+                md.update(buffer);
+                position += read;
+            }
+        }
+    }
+    
+    /**
+     * 读取一个文件分块
+     */
+    private byte[] getChunk(String artifactId, int index) {
+        byte[] chunk = getBinary(REDIS_CHUNK_PREFIX + artifactId + ":" + index);
+        if (chunk == null) {
+            throw new RuntimeException("Redis中缺少文件分块: " + artifactId + "#" + index);
+        }
+        return chunk;
+    }
+    
+    /**
+     * 读取二进制值
+     */
+    private byte[] getBinary(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        return stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+    }
+    
     /**
      * 验证文件完整性
      */
@@ -191,4 +649,57 @@ public class FileReceiveService {
             return "";
         }
     }
+    
+    /**
+     * 按顺序读取Redis分块的输入流，只在读到时才获取下一个分块
+     */
+    private class RedisChunkInputStream extends InputStream {
+        private final String artifactId;
+        private final int chunkCount;
+        private int nextIndex;
+        private byte[] current = new byte[0];
+        private int offset;
+        
+        RedisChunkInputStream(String artifactId, int chunkCount) {
+            this.artifactId = artifactId;
+            this.chunkCount = chunkCount;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            if (!ensureData()) {
+                return -1;
+            }
+            return current[offset++] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureData()) {
+                return -1;
+            }
+            int length = Math.min(len, current.length - offset);
+            System.arraycopy(current, offset, b, off, length);
+            offset += length;
+            return length;
+        }
+        
+        private boolean ensureData() throws IOException {
+            while (offset >= current.length) {
+                if (nextIndex >= chunkCount) {
+                    return false;
+                }
+                try {
+                    current = getChunk(artifactId, nextIndex++);
+                } catch (RuntimeException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                offset = 0;
+            }
+            return true;
+        }
+    }
 }
@@ -45,6 +45,18 @@ public class HealthCheckService {
         }
     }
     
+    /**
+     * 检查健康检查端点是否返回UP
+     */
+    public boolean checkEndpoint(String healthCheckUrl) {
+        try {
+            String response = restTemplate.getForObject(healthCheckUrl, String.class);
+            return response != null && response.contains("UP");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+    
     /**
      * 检查进程是否运行
      */
@@ -0,0 +1,108 @@
+package com.redis.jedis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * JAR差量服务
+ * 用本地缓存的基础版本加Master生成的差量包还原新版本JAR，格式见Master端 JarDeltaService
+ */
+@Service
+public class JarDeltaService {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    private static final int DELTA_MAGIC = 0x4A444C54; // "JDLT"
+    private static final int DELTA_VERSION = 1;
+    private static final byte OP_END = 0;
+    private static final byte OP_COPY = 1;
+    private static final byte OP_DATA = 2;
+
+    /**
+     * 按差量包还原目标文件
+     * COPY操作从基础文件读取字节，DATA操作写入差量包中的新内容，写入的同时更新 digest
+     */
+    public void apply(Path basePath, Path deltaPath, Path targetPath, MessageDigest digest) throws IOException {
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(deltaPath), 65536));
+             FileChannel base = FileChannel.open(basePath, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(targetPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            if (in.readInt() != DELTA_MAGIC) {
+                throw new IOException("无效的差量包格式");
+            }
+            int version = in.readInt();
+            if (version != DELTA_VERSION) {
+                throw new IOException("不支持的差量包版本: " + version);
+            }
+            in.readInt(); // 块大小，还原时不需要
+            long targetSize = in.readLong();
+
+            byte[] buffer = new byte[65536];
+            ByteBuffer copyBuffer = ByteBuffer.allocate(65536);
+            long position = 0;
+            while (true) {
+                byte op = in.readByte();
+                if (op == OP_END) {
+                    break;
+                }
+                if (op == OP_COPY) {
+                    long offset = in.readLong();
+                    long remaining = in.readInt();
+                    if (offset < 0 || offset + remaining > base.size()) {
+                        throw new IOException("差量包引用超出基础文件范围");
+                    }
+                    while (remaining > 0) {
+                        copyBuffer.clear();
+                        copyBuffer.limit((int) Math.min(copyBuffer.capacity(), remaining));
+                        int read = base.read(copyBuffer, offset);
+                        if (read <= 0) {
+                            throw new IOException("基础文件读取中断");
+                        }
+                        copyBuffer.flip();
+                        digest.update(copyBuffer.duplicate());
+                        while (copyBuffer.hasRemaining()) {
+                            target.write(copyBuffer);
+                        }
+                        offset += read;
+                        remaining -= read;
+                        position += read;
+                    }
+                } else if (op == OP_DATA) {
+                    int remaining = in.readInt();
+                    while (remaining > 0) {
+                        int length = Math.min(buffer.length, remaining);
+                        in.readFully(buffer, 0, length);
+                        digest.update(buffer, 0, length);
+                        ByteBuffer data = ByteBuffer.wrap(buffer, 0, length);
+                        while (data.hasRemaining()) {
+                            target.write(data);
+                        }
+                        remaining -= length;
+                        position += length;
+                    }
+                } else {
+                    throw new IOException("未知的差量操作: " + op);
+                }
+            }
+
+            if (position != targetSize) {
+                throw new IOException("还原后文件大小不一致，期望: " + targetSize + ", 实际: " + position);
+            }
+        }
+        System.out.println("JarDelta[" + nodeId + "]: 差量还原完成: " + targetPath
+                + "，耗时: " + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -0,0 +1,128 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.TaskDelivery;
+import com.redis.jedis.util.TaskKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisListCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表任务总线（默认）
+ * 按优先级消费 task:{nodeId}:queue:rollback、task:{nodeId}:queue:control 和 task:{nodeId}:queue（部署）：
+ * 普通模式下以多键 BRPOP 阻塞读取，Redis按键的顺序返回第一个非空队列；
+ * 可靠队列模式下依次以 LMOVE 把任务原子移入 task:{nodeId}:processing，各队列都为空时阻塞在 task:{nodeId}:signal 上，
+ * Master每次推入任务后都会推入唤醒标记。执行期间在 task:{nodeId}:lease 中刷新租约，
+ * 执行结束（成功或失败）后确认删除；Agent中途崩溃时任务留在处理中列表，由Master回收后重新投递（需Redis 6.2+）。
+ * 各键以节点ID作为哈希标签（见 TaskKeys），集群模式下位于同一个槽
+ */
+@Service
+@ConditionalOnProperty(name = "agent.task-bus.type", havingValue = "list", matchIfMissing = true)
+public class ListTaskBus implements TaskBus {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${agent.task-consumer.reliable:true}")
+    private boolean reliable;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 启动时把上次运行遗留在处理中列表的任务放回原优先级队列，无需等待Master回收；
+     * 每个节点只有一个Agent消费，这些任务必然属于已退出的进程
+     */
+    @Override
+    public void recover() {
+        if (!reliable) {
+            return;
+        }
+        try {
+            String processingKey = TaskKeys.processing(nodeId);
+            List<String> inflight = stringRedisTemplate.opsForList().range(processingKey, 0, -1);
+            int recovered = 0;
+            // 从最新的一端依次放到队列的消费端，保持原有先后顺序；先放回再移除，中途退出最多重复投递
+            for (String taskJson : inflight != null ? inflight : Collections.<String>emptyList()) {
+                String action = JSON.parseObject(taskJson).getString("action");
+                stringRedisTemplate.opsForList().rightPush(queueKey(TaskBus.priorityOf(action)), taskJson);
+                stringRedisTemplate.opsForList().remove(processingKey, 1, taskJson);
+                recovered++;
+            }
+            stringRedisTemplate.delete(TaskKeys.lease(nodeId));
+            if (recovered > 0) {
+                System.out.println("TaskBus[" + nodeId + "]: 已将 " + recovered + " 个未完成的任务放回队列");
+            }
+        } catch (Exception e) {
+            System.err.println("TaskBus[" + nodeId + "]: 恢复未完成任务失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<TaskDelivery> receive(long timeoutSeconds) {
+        String taskJson = reliable ? moveNext(timeoutSeconds) : popNext(timeoutSeconds);
+        return taskJson != null ? Collections.singletonList(new TaskDelivery(null, taskJson)) : Collections.emptyList();
+    }
+
+    /**
+     * 按优先级依次尝试移入处理中列表，都为空时等待唤醒标记后返回，由调用方重新读取
+     */
+    private String moveNext(long timeoutSeconds) {
+        String processingKey = TaskKeys.processing(nodeId);
+        for (int priority = 0; priority < LANES.length; priority++) {
+            String taskJson = stringRedisTemplate.opsForList().move(queueKey(priority), RedisListCommands.Direction.RIGHT,
+                    processingKey, RedisListCommands.Direction.LEFT);
+            if (taskJson != null) {
+                return taskJson;
+            }
+        }
+        // 任务先于唤醒标记推入，检查之后到达的任务一定会留下标记
+        stringRedisTemplate.opsForList().rightPop(TaskKeys.signal(nodeId), timeoutSeconds, TimeUnit.SECONDS);
+        return null;
+    }
+
+    private String popNext(long timeoutSeconds) {
+        byte[][] keys = new byte[LANES.length][];
+        for (int priority = 0; priority < LANES.length; priority++) {
+            keys[priority] = queueKey(priority).getBytes(StandardCharsets.UTF_8);
+        }
+        List<byte[]> popped = stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.listCommands().bRPop((int) timeoutSeconds, keys));
+        // 返回 [队列键, 任务]
+        return popped != null && popped.size() == 2 ? new String(popped.get(1), StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * 优先级对应的队列键，部署通道为 task:{nodeId}:queue
+     */
+    private String queueKey(int priority) {
+        return TaskKeys.queue(nodeId, priority >= LANES.length - 1 ? null : LANES[priority]);
+    }
+
+    @Override
+    public void renew(TaskDelivery delivery) {
+        if (reliable) {
+            stringRedisTemplate.opsForZSet().add(TaskKeys.lease(nodeId), delivery.getPayload(), System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 从处理中列表和租约中移除
+     */
+    @Override
+    public void acknowledge(TaskDelivery delivery) {
+        if (reliable) {
+            stringRedisTemplate.opsForList().remove(TaskKeys.processing(nodeId), 1, delivery.getPayload());
+            stringRedisTemplate.opsForZSet().remove(TaskKeys.lease(nodeId), delivery.getPayload());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.TransferStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 节点间制品传输服务
+ * 树形P2P分发时，从上游节点下载制品，并向下游节点提供已缓存的制品
+ */
+@Service
+public class PeerTransferService {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${server.port:8081}")
+    private int serverPort;
+
+    @Value("${agent.advertise-url:}")
+    private String advertiseUrl;
+
+    @Value("${agent.p2p.parent-wait-timeout:120000}")
+    private long parentWaitTimeout;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ArtifactCacheService artifactCacheService;
+
+    @Autowired
+    private FileReceiveService fileReceiveService;
+
+    private static final String NODE_ENDPOINT_PREFIX = "node:endpoint:";
+    private static final String AGENT_ARTIFACTS_PREFIX = "agent:artifacts:";
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    /**
+     * 启动时登记本节点的访问地址
+     */
+    @PostConstruct
+    public void init() {
+        try {
+            if (advertiseUrl == null || advertiseUrl.trim().isEmpty()) {
+                advertiseUrl = "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + serverPort;
+            }
+            registerEndpoint();
+        } catch (Exception e) {
+            System.err.println("PeerTransfer[" + nodeId + "]: 登记节点地址失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 登记本节点的访问地址，供下游节点拉取制品
+     */
+    public void registerEndpoint() {
+        stringRedisTemplate.opsForValue().set(NODE_ENDPOINT_PREFIX + nodeId, advertiseUrl);
+    }
+
+    /**
+     * 按分发计划接收制品
+     * 有上游节点时等待其接收完成后从其下载，上游超时或下载失败时回退到Master
+     */
+    public TransferStats receive(DeployTask task, Path targetPath) throws Exception {
+        String digest = task.getFileChecksum();
+        Map<String, String> plan = task.getFanoutSources();
+        String parent = plan != null ? plan.get(nodeId) : null;
+
+        if (parent != null && digest != null) {
+            System.out.println("PeerTransfer[" + nodeId + "]: 上游节点: " + parent + "，等待其接收完成...");
+            String parentUrl = waitForParent(parent, digest);
+            if (parentUrl != null) {
+                try {
+                    TransferStats stats = fileReceiveService.downloadFile(parentUrl + "/api/agent/artifacts/" + digest, targetPath.toString(), digest);
+                    System.out.println("PeerTransfer[" + nodeId + "]: 已从上游节点 " + parent + " 接收制品");
+                    stats.setMethod("p2p");
+                    return stats;
+                } catch (Exception e) {
+                    System.err.println("PeerTransfer[" + nodeId + "]: 从上游节点下载失败，回退到Master: " + e.getMessage());
+                }
+            } else {
+                System.err.println("PeerTransfer[" + nodeId + "]: 等待上游节点超时，回退到Master");
+            }
+        }
+
+        return fileReceiveService.downloadFile(task.getFilePath(), targetPath.toString(), digest);
+    }
+
+    /**
+     * 等待上游节点持有制品，返回其访问地址；超时返回null
+     */
+    private String waitForParent(String parent, String digest) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + parentWaitTimeout;
+        while (System.currentTimeMillis() < deadline) {
+            Boolean held = stringRedisTemplate.opsForSet().isMember(AGENT_ARTIFACTS_PREFIX + parent, digest);
+            if (Boolean.TRUE.equals(held)) {
+                return stringRedisTemplate.opsForValue().get(NODE_ENDPOINT_PREFIX + parent);
+            }
+            Thread.sleep(500);
+        }
+        return null;
+    }
+
+    /**
+     * 向下游节点提供本地缓存的制品，支持Range续传
+     */
+    public void serveArtifact(String digest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = artifactCacheService.find(digest);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "制品不存在: " + digest);
+            return;
+        }
+
+        long fileSize = Files.size(file);
+        String etag = "\"" + digest + "\"";
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setContentType("application/java-archive");
+
+        long start = 0;
+        long end = fileSize - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || etag.equals(ifRange))) {
+            // 下游节点只会发送 bytes=N- 或 bytes=N-M 形式的续传请求
+            Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+            if (matcher.matches() && !matcher.group(1).isEmpty()) {
+                start = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(Long.parseLong(matcher.group(2)), fileSize - 1);
+                }
+            }
+            if (!matcher.matches() || matcher.group(1).isEmpty() || start >= fileSize || start > end) {
+                response.setHeader("Content-Range", "bytes */" + fileSize);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + fileSize);
+        }
+
+        long length = Math.max(0, end - start + 1);
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        System.out.println("PeerTransfer[" + nodeId + "]: 已向下游节点提供制品 " + digest + " (" + length + " bytes)");
+    }
+}
@@ -0,0 +1,211 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.TaskDelivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream任务总线
+ * 从共用的 task:stream:rollback、task:stream:control 和 task:stream（部署）中以消费组 node:{nodeId}、
+ * 消费者 {nodeId} 执行 XREADGROUP 批量读取：依次不阻塞地读取各优先级Stream，都为空时在全部Stream上阻塞等待；
+ * 条目的 targets 不含本节点时直接确认跳过；执行结束后 XACK，执行期间以 XCLAIM 给自己重置条目的空闲时间作为租约。
+ * 启动后先从 0 重读本消费者的待确认条目，上次运行中途退出的任务因此会重新执行（由幂等键避免重复部署）
+ */
+@Service
+@ConditionalOnProperty(name = "agent.task-bus.type", havingValue = "stream")
+public class StreamTaskBus implements TaskBus {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${agent.task-bus.batch-size:10}")
+    private int batchSize;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private static final String TASK_STREAM_KEY = "task:stream";
+    private static final String GROUP_PREFIX = "node:";
+
+    private volatile boolean groupReady;
+    private volatile boolean readPending;
+    private final Map<String, String> pendingCursors = new HashMap<>();
+
+    @Override
+    public void recover() {
+        pendingCursors.clear();
+        readPending = true;
+        try {
+            ensureGroups();
+        } catch (Exception e) {
+            System.err.println("TaskBus[" + nodeId + "]: 创建消费组失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<TaskDelivery> receive(long timeoutSeconds) {
+        try {
+            if (!groupReady) {
+                ensureGroups();
+            }
+            if (readPending) {
+                List<TaskDelivery> deliveries = readByPriority(true);
+                if (deliveries.isEmpty()) {
+                    readPending = false;
+                }
+                return deliveries;
+            }
+
+            List<TaskDelivery> deliveries = readByPriority(false);
+            if (!deliveries.isEmpty()) {
+                return deliveries;
+            }
+            // 各Stream都没有新条目，阻塞到任一Stream有新条目；此时取到的条目之前没有更高优先级的任务
+            List<StreamOffset<String>> offsets = new ArrayList<>();
+            for (int priority = 0; priority < LANES.length; priority++) {
+                offsets.add(StreamOffset.create(streamKey(priority), ReadOffset.lastConsumed()));
+            }
+            List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(consumer(),
+                    StreamReadOptions.empty().count(batchSize).block(Duration.ofSeconds(timeoutSeconds)), toArray(offsets));
+            return toDeliveries(records);
+        } catch (RuntimeException e) {
+            // 消费组可能随 Stream 一起被删除，下次读取前重新创建
+            groupReady = false;
+            throw e;
+        }
+    }
+
+    /**
+     * 按优先级依次不阻塞地读取，返回第一个有条目的Stream中属于本节点的任务
+     * 重读待确认条目时按已读到的位置继续，已交给执行线程但尚未确认的条目不会被重复读取
+     */
+    private List<TaskDelivery> readByPriority(boolean pending) {
+        for (int priority = 0; priority < LANES.length; priority++) {
+            String streamKey = streamKey(priority);
+            while (true) {
+                ReadOffset offset = pending ? ReadOffset.from(pendingCursors.getOrDefault(streamKey, "0"))
+                        : ReadOffset.lastConsumed();
+                List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream().read(consumer(),
+                        StreamReadOptions.empty().count(batchSize),
+                        toArray(Collections.singletonList(StreamOffset.create(streamKey, offset))));
+                if (records == null || records.isEmpty()) {
+                    break;
+                }
+                if (pending) {
+                    pendingCursors.put(streamKey, records.get(records.size() - 1).getId().getValue());
+                }
+                // 取到的条目都不属于本节点时已确认跳过，继续读取同一优先级
+                List<TaskDelivery> deliveries = toDeliveries(records);
+                if (!deliveries.isEmpty()) {
+                    return deliveries;
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private List<TaskDelivery> toDeliveries(List<MapRecord<String, Object, Object>> records) {
+        List<TaskDelivery> deliveries = new ArrayList<>();
+        if (records == null) {
+            return deliveries;
+        }
+        for (MapRecord<String, Object, Object> record : records) {
+            String entryId = record.getId().getValue();
+            Object targets = record.getValue() != null ? record.getValue().get("targets") : null;
+            Object payload = record.getValue() != null ? record.getValue().get("payload") : null;
+            if (payload == null || targets == null
+                    || !Arrays.asList(targets.toString().split(",")).contains(nodeId)) {
+                // 发给其他节点的任务，或已被 MAXLEN 裁剪的待确认条目
+                acknowledge(new TaskDelivery(entryId, record.getStream(), null));
+                continue;
+            }
+            deliveries.add(new TaskDelivery(entryId, record.getStream(), payload.toString()));
+        }
+        return deliveries;
+    }
+
+    /**
+     * read 以泛型可变参数接收读取位置且未标注 @SafeVarargs，泛型数组统一在这里创建；
+     * 数组元素类型就是 StreamOffset，转换实际是安全的
+     */
+    @SuppressWarnings("unchecked")
+    private static StreamOffset<String>[] toArray(List<StreamOffset<String>> offsets) {
+        return offsets.toArray((StreamOffset<String>[]) Array.newInstance(StreamOffset.class, offsets.size()));
+    }
+
+    private Consumer consumer() {
+        return Consumer.from(GROUP_PREFIX + nodeId, nodeId);
+    }
+
+    /**
+     * 优先级对应的Stream键，部署通道沿用 task:stream
+     */
+    private String streamKey(int priority) {
+        if (priority >= LANES.length - 1) {
+            return TASK_STREAM_KEY;
+        }
+        return TASK_STREAM_KEY + ":" + LANES[priority];
+    }
+
+    @Override
+    public void renew(TaskDelivery delivery) {
+        byte[] key = delivery.getSource().getBytes(StandardCharsets.UTF_8);
+        RedisStreamCommands.XClaimOptions options = RedisStreamCommands.XClaimOptions.minIdle(Duration.ZERO)
+                .ids(RecordId.of(delivery.getId()));
+        stringRedisTemplate.execute((RedisCallback<Object>) connection ->
+                connection.streamCommands().xClaim(key, GROUP_PREFIX + nodeId, nodeId, options));
+    }
+
+    @Override
+    public void acknowledge(TaskDelivery delivery) {
+        stringRedisTemplate.opsForStream().acknowledge(delivery.getSource(), GROUP_PREFIX + nodeId, delivery.getId());
+    }
+
+    /**
+     * 在各优先级Stream上创建本节点的消费组（从当前末尾开始），已存在时忽略
+     */
+    private void ensureGroups() {
+        for (int priority = 0; priority < LANES.length; priority++) {
+            byte[] key = streamKey(priority).getBytes(StandardCharsets.UTF_8);
+            try {
+                stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                        connection.streamCommands().xGroupCreate(key, GROUP_PREFIX + nodeId, ReadOffset.latest(), true));
+            } catch (RuntimeException e) {
+                if (!isBusyGroup(e)) {
+                    throw e;
+                }
+            }
+        }
+        groupReady = true;
+    }
+
+    private boolean isBusyGroup(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
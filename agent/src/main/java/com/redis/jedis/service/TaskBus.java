@@ -0,0 +1,53 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.TaskDelivery;
+
+import java.util.List;
+
+/**
+ * 任务总线
+ * Agent读取Master投递任务的统一入口，由 agent.task-bus.type 选择实现：
+ * list 为节点自己的列表队列（ListTaskBus），stream 为共用的 task:stream 中本节点的消费组（StreamTaskBus），
+ * 需与Master的 deploy.task-bus.type 保持一致。
+ * 任务按操作类型分入优先级通道，总是先取完高优先级通道：回滚 > 启停 > 部署
+ */
+public interface TaskBus {
+
+    /**
+     * 优先级通道名称，下标即优先级，数值越小越优先，与Master保持一致
+     */
+    String[] LANES = {"rollback", "control", "deploy"};
+
+    /**
+     * 按操作类型确定任务的优先级
+     */
+    static int priorityOf(String action) {
+        if ("ROLLBACK".equals(action)) {
+            return 0;
+        }
+        if ("START".equals(action) || "STOP".equals(action) || "RESTART".equals(action)) {
+            return 1;
+        }
+        return 2;
+    }
+    
+    /**
+     * 启动时处理上次运行遗留的未确认任务
+     */
+    void recover();
+    
+    /**
+     * 读取任务，高优先级通道中的任务先返回；所有通道都为空时阻塞等待，超时返回空列表
+     */
+    List<TaskDelivery> receive(long timeoutSeconds);
+    
+    /**
+     * 刷新执行中任务的租约
+     */
+    void renew(TaskDelivery delivery);
+    
+    /**
+     * 确认任务已处理完毕
+     */
+    void acknowledge(TaskDelivery delivery);
+}
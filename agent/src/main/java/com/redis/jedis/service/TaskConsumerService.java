@@ -0,0 +1,229 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.TaskDelivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 任务消费服务
+ * 由常驻线程阻塞读取任务总线（TaskBus），取到的任务交给 TaskExecutorService 按服务并行执行，随即继续读取，没有定时轮询的间隔；
+ * 可选订阅 task:notify:{nodeId}，Master推送任务后发布通知，Redis异常后的退避等待会被立即唤醒。
+ * 每个任务执行结束（成功或失败）后向总线确认，执行期间定期刷新已取到但未确认任务的租约；
+ * 列表与Stream两种总线的投递和确认方式见 ListTaskBus、StreamTaskBus
+ */
+@Service
+public class TaskConsumerService {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${agent.task-consumer.block-timeout:30}")
+    private long blockTimeoutSeconds;
+
+    @Value("${agent.task-consumer.error-backoff:5000}")
+    private long errorBackoffMillis;
+
+    @Value("${agent.task-consumer.notify-enabled:true}")
+    private boolean notifyEnabled;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private TaskBus taskBus;
+
+    @Autowired
+    private AgentService agentService;
+
+    @Autowired
+    private TaskExecutorService taskExecutorService;
+
+    private static final String TASK_NOTIFY_PREFIX = "task:notify:";
+    private static final int LOWEST_PRIORITY = TaskBus.LANES.length - 1;
+
+    private final Object doorbell = new Object();
+    private volatile boolean running;
+    private volatile boolean notified;
+    private Thread consumerThread;
+    private RedisMessageListenerContainer listenerContainer;
+    // 已取到未确认的任务，以及其中正在执行的任务
+    private final Set<TaskDelivery> heldDeliveries = ConcurrentHashMap.newKeySet();
+    private final Set<TaskDelivery> runningDeliveries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 应用启动完成后启动消费线程
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (notifyEnabled) {
+            subscribeNotifications();
+        }
+        taskBus.recover();
+        running = true;
+        consumerThread = new Thread(this::consumeLoop, "TaskConsumer-" + nodeId);
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+        System.out.println("TaskConsumer[" + nodeId + "]: 任务消费线程已启动，任务总线: " + taskBus.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        ring();
+        if (consumerThread != null) {
+            consumerThread.interrupt();
+        }
+        if (listenerContainer != null) {
+            try {
+                listenerContainer.stop();
+                listenerContainer.destroy();
+            } catch (Exception e) {
+                System.err.println("TaskConsumer[" + nodeId + "]: 关闭通知订阅失败: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 消费循环：阻塞等待任务，取到后提交执行并继续读取；执行通道已满时提交阻塞，暂停读取
+     */
+    private void consumeLoop() {
+        while (running) {
+            try {
+                List<TaskDelivery> deliveries = taskBus.receive(blockTimeoutSeconds);
+                for (TaskDelivery delivery : deliveries) {
+                    heldDeliveries.add(delivery);
+                    taskBus.renew(delivery);
+                    DeployTask task = parseTask(delivery);
+                    if (task == null) {
+                        taskExecutorService.submit(null, LOWEST_PRIORITY, () -> execute(delivery));
+                        continue;
+                    }
+                    if ("ROLLBACK".equals(task.getAction())) {
+                        // 回滚先于执行登记，同一服务尚未开始的部署任务在执行前被取消
+                        agentService.markRollback(task);
+                    }
+                    taskExecutorService.submit(task.getServiceName(), TaskBus.priorityOf(task.getAction()),
+                            () -> execute(delivery));
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("TaskConsumer[" + nodeId + "]: 读取任务失败: " + e.getMessage());
+                awaitDoorbell(errorBackoffMillis);
+            }
+        }
+        System.out.println("TaskConsumer[" + nodeId + "]: 任务消费线程已停止");
+    }
+
+    /**
+     * 在执行线程中处理任务，结束（成功或失败）后确认
+     */
+    private void execute(TaskDelivery delivery) {
+        runningDeliveries.add(delivery);
+        try {
+            agentService.handleTaskMessage(delivery.getPayload());
+        } finally {
+            runningDeliveries.remove(delivery);
+            heldDeliveries.remove(delivery);
+            acknowledge(delivery);
+        }
+    }
+
+    private DeployTask parseTask(TaskDelivery delivery) {
+        try {
+            return JSON.parseObject(delivery.getPayload(), DeployTask.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 确认任务已处理完毕
+     */
+    private void acknowledge(TaskDelivery delivery) {
+        try {
+            taskBus.acknowledge(delivery);
+        } catch (Exception e) {
+            // 未确认的任务会被重新投递，由幂等键保证不会重复执行
+            System.err.println("TaskConsumer[" + nodeId + "]: 确认任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 定期刷新租约，避免耗时较长的部署被Master判定为超时；
+     * 已取到但在服务通道中排队的任务同样刷新
+     */
+    @Scheduled(fixedDelayString = "${agent.task-consumer.heartbeat-interval:30000}")
+    public void renewLease() {
+        try {
+            for (TaskDelivery delivery : heldDeliveries) {
+                taskBus.renew(delivery);
+            }
+            for (TaskDelivery delivery : runningDeliveries) {
+                agentService.renewIdempotencyClaim(delivery.getPayload());
+            }
+        } catch (Exception e) {
+            System.err.println("TaskConsumer[" + nodeId + "]: 刷新任务租约失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅Master的任务通知
+     */
+    private void subscribeNotifications() {
+        try {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(stringRedisTemplate.getConnectionFactory());
+            listenerContainer.addMessageListener((message, pattern) -> ring(),
+                    new ChannelTopic(TASK_NOTIFY_PREFIX + nodeId));
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+        } catch (Exception e) {
+            listenerContainer = null;
+            System.err.println("TaskConsumer[" + nodeId + "]: 订阅任务通知失败，仅使用阻塞读取: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 收到通知，唤醒正在退避等待的消费线程
+     */
+    private void ring() {
+        synchronized (doorbell) {
+            notified = true;
+            doorbell.notifyAll();
+        }
+    }
+
+    /**
+     * 等待通知或超时
+     */
+    private void awaitDoorbell(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (doorbell) {
+            try {
+                long remaining;
+                while (!notified && running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    doorbell.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            notified = false;
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package com.redis.jedis.service;
 
+import com.alibaba.fastjson.JSON;
 import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.TransferStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 任务执行服务
@@ -20,38 +32,75 @@ public class TaskExecutionService {
     @Value("${agent.work-dir:/tmp/agent}")
     private String workDir;
     
+    @Value("${agent.releases.keep:3}")
+    private int releasesToKeep;
+    
+    @Value("${agent.health-check.timeout:60000}")
+    private long healthCheckTimeoutMillis;
+    
+    @Value("${agent.health-check.interval:2000}")
+    private long healthCheckIntervalMillis;
+    
     @Autowired
     private ServiceManagementService serviceManagementService;
     
     @Autowired
     private FileReceiveService fileReceiveService;
     
+    @Autowired
+    private ArtifactCacheService artifactCacheService;
+    
+    @Autowired
+    private PeerTransferService peerTransferService;
+    
+    @Autowired
+    private JarDeltaService jarDeltaService;
+    
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    @Autowired
+    private TransferMetricsService transferMetricsService;
+    
+    @Autowired
+    private HealthCheckService healthCheckService;
+    
+    // 与Master部署信息缓存的过期时间一致（60天）
+    private static final long DEPLOY_INFO_TTL = 5184000;
+    
+    // 服务目录下保存各版本JAR的子目录：{workDir}/{service}/releases/{taskId}/{service}.jar
+    private static final String RELEASES_DIR = "releases";
+    
     /**
      * 执行部署任务
      */
-    public void executeDeployTask(DeployTask task) {
+    public TransferStats executeDeployTask(DeployTask task) {
+        applyNodeDistribution(task);
         System.out.println("TaskExecution[" + nodeId + "]: === 开始执行部署任务 ===");
         System.out.println("TaskExecution[" + nodeId + "]: 服务名: " + task.getServiceName());
         System.out.println("TaskExecution[" + nodeId + "]: 文件路径: " + task.getFilePath());
         System.out.println("TaskExecution[" + nodeId + "]: 分发方式: " + task.getDistributionMethod());
         
         try {
-            // 步骤1: 接收文件
+            // 步骤1: 接收文件，直接写入本版本的发布目录
             System.out.println("TaskExecution[" + nodeId + "]: 步骤1 - 接收JAR文件...");
-            String localJarPath = receiveFile(task);
+            TransferStats transferStats = new TransferStats();
+            Path releaseJar = prepareRelease(task);
+            String localJarPath = receiveFile(task, releaseJar, transferStats);
             System.out.println("TaskExecution[" + nodeId + "]: JAR文件接收完成: " + localJarPath);
+            transferMetricsService.record(task.getDistributionMethod(), transferStats);
             
             // 步骤2: 停止旧服务（如果存在）
             System.out.println("TaskExecution[" + nodeId + "]: 步骤2 - 停止旧服务...");
             stopServiceIfRunning(task.getServiceName());
             
-            // 步骤3: 备份旧版本（如果存在）
+            // 步骤3: 保留旧版本（仅旧目录结构需要迁移，发布目录中的版本无需备份）
             System.out.println("TaskExecution[" + nodeId + "]: 步骤3 - 备份旧版本...");
             backupOldVersion(task.getServiceName());
             
-            // 步骤4: 部署新版本
+            // 步骤4: 切换到新版本
             System.out.println("TaskExecution[" + nodeId + "]: 步骤4 - 部署新版本...");
-            deployNewVersion(task.getServiceName(), localJarPath);
+            deployNewVersion(task.getServiceName(), releaseJar);
             
             // 步骤5: 启动新服务
             System.out.println("TaskExecution[" + nodeId + "]: 步骤5 - 启动新服务...");
@@ -59,8 +108,11 @@ public class TaskExecutionService {
             
             // 步骤6: 健康检查
             System.out.println("TaskExecution[" + nodeId + "]: 步骤6 - 健康检查...");
-            if (healthCheck(task.getServiceName())) {
+            if (healthCheck(task.getServiceName(), task.getHealthCheckUrl())) {
+                reportDeployInfo(task, localJarPath);
+                pruneReleases(task.getServiceName(), releaseJar.getParent());
                 System.out.println("TaskExecution[" + nodeId + "]: === 部署任务执行成功 ===");
+                return transferStats;
             } else {
                 throw new RuntimeException("健康检查失败，服务可能未正常启动");
             }
@@ -69,64 +121,205 @@ public class TaskExecutionService {
             System.err.println("TaskExecution[" + nodeId + "]: === 部署任务执行失败 ===");
             System.err.println("TaskExecution[" + nodeId + "]: 错误详情: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("部署任务执行失败: " + e.getMessage());
+            throw new RuntimeException("部署任务执行失败: " + e.getMessage(), e);
         }
     }
     
     /**
-     * 接收文件
+     * Master为本节点单独选择了分发方式时，改用该方式及其文件路径
      */
-    private String receiveFile(DeployTask task) throws Exception {
+    private void applyNodeDistribution(DeployTask task) {
+        if (task.getNodeMethods() == null || !task.getNodeMethods().containsKey(nodeId)) {
+            return;
+        }
+        String method = task.getNodeMethods().get(nodeId);
+        task.setDistributionMethod(method);
+        if (task.getMethodSources() != null && task.getMethodSources().containsKey(method)) {
+            task.setFilePath(task.getMethodSources().get(method));
+        }
+    }
+    
+    /**
+     * 创建本次部署的发布目录，返回接收JAR的目标路径
+     */
+    private Path prepareRelease(DeployTask task) throws Exception {
+        Path releaseDir = Paths.get(workDir, task.getServiceName(), RELEASES_DIR, task.getTaskId());
+        Files.createDirectories(releaseDir);
+        System.out.println("TaskExecution[" + nodeId + "]: 发布目录: " + releaseDir.toAbsolutePath());
+        return releaseDir.resolve(task.getServiceName() + ".jar");
+    }
+    
+    /**
+     * 接收文件到 localFilePath，传输统计写入 transferStats
+     */
+    private String receiveFile(DeployTask task, Path localFilePath, TransferStats transferStats) throws Exception {
         System.out.println("TaskExecution[" + nodeId + "]: 开始接收文件...");
         System.out.println("TaskExecution[" + nodeId + "]: 源文件路径: " + task.getFilePath());
         System.out.println("TaskExecution[" + nodeId + "]: 分发方式: " + task.getDistributionMethod());
+        System.out.println("TaskExecution[" + nodeId + "]: 本地文件路径: " + localFilePath.toAbsolutePath());
         
-        // 确保工作目录存在
-        Path workDirPath = Paths.get(workDir);
-        Files.createDirectories(workDirPath);
-        System.out.println("TaskExecution[" + nodeId + "]: 工作目录: " + workDirPath.toAbsolutePath());
+        // 本地已缓存相同摘要的制品时直接使用，无需传输
+        String checksum = task.getFileChecksum();
+        if (artifactCacheService.find(checksum) != null) {
+            artifactCacheService.materialize(checksum, localFilePath);
+            transferStats.setMethod("cached");
+            return localFilePath.toString();
+        }
         
-        // 生成本地文件路径
-        String fileName = Paths.get(task.getFilePath()).getFileName().toString();
-        Path localFilePath = workDirPath.resolve(fileName);
-        System.out.println("TaskExecution[" + nodeId + "]: 本地文件路径: " + localFilePath.toAbsolutePath());
+        // 先删除旧文件再写入，避免原地覆盖与缓存共享的硬链接
+        Files.deleteIfExists(localFilePath);
+        
+        // 缓存了基础版本时优先用差量包还原，失败时回退到完整传输
+        TransferStats received = receiveDelta(task, localFilePath);
+        if (received != null) {
+            copyStats(received, transferStats);
+            return localFilePath.toString();
+        }
         
         // 根据分发方式接收文件
+        copyStats(receiveByMethod(task, localFilePath), transferStats);
+        
+        // 验证文件是否接收成功
+        if (!Files.exists(localFilePath)) {
+            throw new RuntimeException("文件接收失败，本地文件不存在: " + localFilePath);
+        }
+        
+        long fileSize = Files.size(localFilePath);
+        System.out.println("TaskExecution[" + nodeId + "]: 文件接收成功，大小: " + fileSize + " bytes");
+        
+        // 接收过程中已校验摘要，加入本地制品缓存
+        if (checksum != null && !checksum.isEmpty()) {
+            artifactCacheService.put(checksum, localFilePath);
+        }
+        
+        return localFilePath.toString();
+    }
+    
+    /**
+     * 按分发方式接收完整文件
+     */
+    private TransferStats receiveByMethod(DeployTask task, Path localFilePath) throws Exception {
+        long startTime = System.currentTimeMillis();
         String distributionMethod = task.getDistributionMethod().toUpperCase();
         switch (distributionMethod) {
+            case "CACHED":
+                throw new RuntimeException("Master判定本节点已缓存制品，但本地缓存不存在: " + task.getFileChecksum());
             case "DIRECT_COPY":
+            case "SHARED-STORAGE":
                 System.out.println("TaskExecution[" + nodeId + "]: 使用直接复制方式...");
-                Files.copy(Paths.get(task.getFilePath()), localFilePath, StandardCopyOption.REPLACE_EXISTING);
-                break;
+                return fileReceiveService.copyFile(Paths.get(task.getFilePath()), localFilePath, task.getFileChecksum());
             case "HTTP_DOWNLOAD":
             case "HTTP":
+            case "DELTA":
                 System.out.println("TaskExecution[" + nodeId + "]: 使用HTTP下载方式...");
-                fileReceiveService.downloadFile(task.getFilePath(), localFilePath.toString());
-                break;
+                return fileReceiveService.downloadFile(task.getFilePath(), localFilePath.toString(), task.getFileChecksum());
+            case "P2P":
+                System.out.println("TaskExecution[" + nodeId + "]: 使用树形P2P分发方式...");
+                return peerTransferService.receive(task, localFilePath);
             case "REDIS_TRANSFER":
             case "REDIS":
                 System.out.println("TaskExecution[" + nodeId + "]: 使用Redis传输方式...");
-                // 处理Redis路径格式：redis://filename -> filename
                 String redisKey = task.getFilePath();
+                if (redisKey.startsWith("redis-chunk://")) {
+                    // 分块格式：redis-chunk://artifactId
+                    redisKey = redisKey.substring(14);
+                    System.out.println("TaskExecution[" + nodeId + "]: Redis分块文件ID: " + redisKey);
+                    return fileReceiveService.receiveChunksFromRedis(redisKey, localFilePath.toString());
+                }
+                // 处理Redis路径格式：redis://filename -> filename
                 if (redisKey.startsWith("redis://")) {
                     redisKey = redisKey.substring(8); // 移除 "redis://" 前缀
                 }
                 System.out.println("TaskExecution[" + nodeId + "]: Redis键名: " + redisKey);
-                fileReceiveService.receiveFromRedis(redisKey, localFilePath.toString());
-                break;
+                fileReceiveService.receiveFromRedis(redisKey, localFilePath.toString(), task.getFileChecksum());
+                long decoded = Files.size(localFilePath);
+                // 旧格式为Base64编码，传输大小约为原始大小的4/3
+                return new TransferStats("redis", "base64", decoded, (decoded + 2) / 3 * 4, System.currentTimeMillis() - startTime);
             default:
                 throw new RuntimeException("不支持的分发方式: " + task.getDistributionMethod() + " (标准化后: " + distributionMethod + ")");
         }
-        
-        // 验证文件是否接收成功
-        if (!Files.exists(localFilePath)) {
-            throw new RuntimeException("文件接收失败，本地文件不存在: " + localFilePath);
+    }
+    
+    /**
+     * 用本地缓存的基础版本和差量包还原新版本，还原结果通过摘要校验后返回传输统计，未使用差量时返回null
+     */
+    private TransferStats receiveDelta(DeployTask task, Path localFilePath) {
+        Map<String, String> deltaArtifacts = task.getDeltaArtifacts();
+        if (deltaArtifacts == null || task.getFileChecksum() == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : deltaArtifacts.entrySet()) {
+            Path basePath = artifactCacheService.find(entry.getKey());
+            if (basePath == null) {
+                continue;
+            }
+            Path deltaPath = Paths.get(localFilePath + ".delta");
+            try {
+                System.out.println("TaskExecution[" + nodeId + "]: 使用差量分发方式，基础版本: " + entry.getKey());
+                long startTime = System.currentTimeMillis();
+                TransferStats stats = fileReceiveService.receiveChunksFromRedis(entry.getValue(), deltaPath.toString());
+                MessageDigest md = ArtifactCacheService.newSha256();
+                jarDeltaService.apply(basePath, deltaPath, localFilePath, md);
+                String actual = ArtifactCacheService.toHex(md.digest());
+                if (!task.getFileChecksum().equals(actual)) {
+                    throw new ChecksumMismatchException(task.getFileChecksum(), actual);
+                }
+                artifactCacheService.put(task.getFileChecksum(), localFilePath);
+                System.out.println("TaskExecution[" + nodeId + "]: 差量还原成功，差量包大小: " + Files.size(deltaPath) + " bytes");
+                // 以还原后的完整大小计算压缩率，体现差量节省的传输量
+                stats.setMethod("delta");
+                stats.setOriginalSize(Files.size(localFilePath));
+                stats.setDurationMillis(System.currentTimeMillis() - startTime);
+                return stats;
+            } catch (Exception e) {
+                System.err.println("TaskExecution[" + nodeId + "]: 差量还原失败，回退到完整传输: " + e.getMessage());
+                try {
+                    Files.deleteIfExists(localFilePath);
+                } catch (Exception ignored) {
+                    // 由后续完整传输覆盖
+                }
+            } finally {
+                try {
+                    Files.deleteIfExists(deltaPath);
+                } catch (Exception ignored) {
+                    // 临时差量包清理失败不影响部署
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void copyStats(TransferStats source, TransferStats target) {
+        target.setMethod(source.getMethod());
+        target.setCodec(source.getCodec());
+        target.setOriginalSize(source.getOriginalSize());
+        target.setTransferredSize(source.getTransferredSize());
+        target.setDurationMillis(source.getDurationMillis());
+        target.setConnections(source.getConnections());
+    }
+    
+    /**
+     * 上报本节点当前运行的版本，供Master计算下次部署的差量包
+     */
+    private void reportDeployInfo(DeployTask task, String localJarPath) {
+        try {
+            Map<String, Object> deployInfo = new HashMap<>();
+            deployInfo.put("serviceName", task.getServiceName());
+            deployInfo.put("version", task.getTaskId());
+            deployInfo.put("deployTime", System.currentTimeMillis());
+            deployInfo.put("jarPath", localJarPath);
+            deployInfo.put("jarFileSize", task.getFileSize());
+            deployInfo.put("status", "SUCCESS");
+            deployInfo.put("operator", task.getOperator());
+            deployInfo.put("nodeId", nodeId);
+            deployInfo.put("distributionMethod", task.getDistributionMethod());
+            deployInfo.put("artifactDigest", task.getFileChecksum());
+            
+            String key = "service:deploy:" + nodeId + ":" + task.getServiceName();
+            stringRedisTemplate.opsForValue().set(key, JSON.toJSONString(deployInfo), DEPLOY_INFO_TTL, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.err.println("TaskExecution[" + nodeId + "]: 上报部署信息失败: " + e.getMessage());
         }
-        
-        long fileSize = Files.size(localFilePath);
-        System.out.println("TaskExecution[" + nodeId + "]: 文件接收成功，大小: " + fileSize + " bytes");
-        
-        return localFilePath.toString();
     }
     
     /**
@@ -162,18 +355,19 @@ public class TaskExecutionService {
     
     /**
      * 备份旧版本
+     * 旧目录结构下服务目录中的JAR是普通文件，将其移入发布目录保留；已使用发布目录时旧版本本身就保留在 releases 下
      */
     private void backupOldVersion(String serviceName) {
         try {
             System.out.println("TaskExecution[" + nodeId + "]: 开始备份旧版本...");
             
-            Path servicePath = Paths.get(workDir, serviceName);
-            if (Files.exists(servicePath)) {
-                String backupName = serviceName + "_backup_" + System.currentTimeMillis();
-                Path backupPath = Paths.get(workDir, backupName);
+            Path currentJar = Paths.get(workDir, serviceName, serviceName + ".jar");
+            if (Files.exists(currentJar, LinkOption.NOFOLLOW_LINKS) && !Files.isSymbolicLink(currentJar)) {
+                Path backupDir = Paths.get(workDir, serviceName, RELEASES_DIR, "backup_" + System.currentTimeMillis());
+                Files.createDirectories(backupDir);
                 
-                System.out.println("TaskExecution[" + nodeId + "]: 备份路径: " + backupPath.toAbsolutePath());
-                Files.move(servicePath, backupPath);
+                System.out.println("TaskExecution[" + nodeId + "]: 备份路径: " + backupDir.toAbsolutePath());
+                Files.move(currentJar, backupDir.resolve(currentJar.getFileName()));
                 System.out.println("TaskExecution[" + nodeId + "]: 旧版本备份完成");
             } else {
                 System.out.println("TaskExecution[" + nodeId + "]: 没有旧版本需要备份");
@@ -186,26 +380,70 @@ public class TaskExecutionService {
     
     /**
      * 部署新版本
+     * 服务目录中的 {service}.jar 是指向发布目录的符号链接，先创建临时链接再原子改名替换，
+     * 切换过程不复制JAR内容；文件系统不支持符号链接时退回硬链接
      */
-    private void deployNewVersion(String serviceName, String jarPath) throws Exception {
+    private void deployNewVersion(String serviceName, Path releaseJar) throws Exception {
         System.out.println("TaskExecution[" + nodeId + "]: 开始部署新版本...");
         
-        // 创建服务目录
         Path servicePath = Paths.get(workDir, serviceName);
-        Files.createDirectories(servicePath);
         System.out.println("TaskExecution[" + nodeId + "]: 服务目录: " + servicePath.toAbsolutePath());
         
-        // 复制JAR文件到服务目录
         Path targetJarPath = servicePath.resolve(serviceName + ".jar");
-        Files.copy(Paths.get(jarPath), targetJarPath, StandardCopyOption.REPLACE_EXISTING);
-        System.out.println("TaskExecution[" + nodeId + "]: JAR文件部署完成: " + targetJarPath.toAbsolutePath());
+        Path tempLink = servicePath.resolve(serviceName + ".jar.next");
+        Files.deleteIfExists(tempLink);
+        try {
+            Files.createSymbolicLink(tempLink, servicePath.relativize(releaseJar));
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.createLink(tempLink, releaseJar);
+        }
+        Files.move(tempLink, targetJarPath, StandardCopyOption.ATOMIC_MOVE);
+        System.out.println("TaskExecution[" + nodeId + "]: JAR文件部署完成: " + targetJarPath.toAbsolutePath()
+                + " -> " + releaseJar.toAbsolutePath());
         
-        // 创建启动脚本
+        // 启动脚本只引用 {service}.jar，内容不随版本变化
         createStartScript(serviceName, servicePath, targetJarPath);
         
         System.out.println("TaskExecution[" + nodeId + "]: 新版本部署完成");
     }
     
+    /**
+     * 清理旧的发布目录，保留当前版本和最近的 releasesToKeep 个版本
+     */
+    private void pruneReleases(String serviceName, Path currentRelease) {
+        Path releasesPath = Paths.get(workDir, serviceName, RELEASES_DIR);
+        try (Stream<Path> stream = Files.list(releasesPath)) {
+            List<Path> releases = stream
+                    .filter(Files::isDirectory)
+                    .filter(path -> !path.equals(currentRelease))
+                    .sorted(Comparator.comparingLong(this::lastModified).reversed())
+                    .collect(Collectors.toList());
+            for (int i = Math.max(0, releasesToKeep - 1); i < releases.size(); i++) {
+                deleteRecursively(releases.get(i));
+                System.out.println("TaskExecution[" + nodeId + "]: 已清理旧版本: " + releases.get(i).getFileName());
+            }
+        } catch (Exception e) {
+            System.err.println("TaskExecution[" + nodeId + "]: 清理旧版本失败: " + e.getMessage());
+        }
+    }
+    
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+    
+    private void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            List<Path> paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+    
     /**
      * 创建启动脚本
      */
@@ -250,7 +488,7 @@ public class TaskExecutionService {
     /**
      * 健康检查
      */
-    private boolean healthCheck(String serviceName) {
+    private boolean healthCheck(String serviceName, String healthCheckUrl) {
         try {
             System.out.println("TaskExecution[" + nodeId + "]: 开始健康检查: " + serviceName);
             
@@ -260,11 +498,25 @@ public class TaskExecutionService {
                 return false;
             }
             
-            // TODO: 这里可以添加更多健康检查逻辑，比如HTTP健康检查等
+            // 配置了健康检查地址时等待其返回UP，依赖本服务的服务在此之后才开始部署
+            if (healthCheckUrl != null && !healthCheckUrl.isEmpty()) {
+                long deadline = System.currentTimeMillis() + healthCheckTimeoutMillis;
+                while (!healthCheckService.checkEndpoint(healthCheckUrl)) {
+                    if (System.currentTimeMillis() >= deadline) {
+                        System.err.println("TaskExecution[" + nodeId + "]: 健康检查失败: " + healthCheckUrl
+                                + " 在 " + healthCheckTimeoutMillis + "ms 内未返回UP");
+                        return false;
+                    }
+                    Thread.sleep(healthCheckIntervalMillis);
+                }
+            }
             
             System.out.println("TaskExecution[" + nodeId + "]: 健康检查通过");
             return true;
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             System.err.println("TaskExecution[" + nodeId + "]: 健康检查异常: " + e.getMessage());
             return false;
@@ -0,0 +1,147 @@
+package com.redis.jedis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 任务执行服务
+ * 不同服务的任务在线程池中并行执行，同一服务的任务排队串行执行（每个服务一条通道），
+ * 避免同一服务的部署、启停交错；通道内按优先级（与 TaskBus.LANES 一致）再按提交顺序执行；已接收未完成的任务数达到 max-pending 时提交阻塞，任务暂留在Redis中
+ */
+@Service
+public class TaskExecutorService {
+
+    @Value("${node.id}")
+    private String nodeId;
+
+    @Value("${agent.task-executor.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${agent.task-executor.max-pending:16}")
+    private int maxPending;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore pendingPermits;
+    private final AtomicInteger activeTasks = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 正在执行的服务 -> 该服务排队等待的任务；服务不在表中表示通道空闲
+    private final Map<String, PriorityQueue<LaneTask>> lanes = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "TaskExecutor-" + nodeId + "-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        pendingPermits = new Semaphore(Math.max(maxPending, maxConcurrency));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 不中断执行中的任务；未执行的任务没有确认，重启后会重新投递
+        executor.shutdown();
+    }
+
+    /**
+     * 提交任务到服务对应的通道，通道空闲时立即执行，否则排在该服务优先级不低于它的任务之后
+     */
+    public void submit(String serviceName, int priority, Runnable task) throws InterruptedException {
+        pendingPermits.acquire();
+        String lane = serviceName != null ? serviceName : "";
+        LaneTask laneTask = new LaneTask(priority, sequence.incrementAndGet(), () -> {
+            activeTasks.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                System.err.println("TaskExecutor[" + nodeId + "]: 服务 " + lane + " 的任务执行异常: " + e.getMessage());
+            } finally {
+                activeTasks.decrementAndGet();
+                pendingPermits.release();
+                runNext(lane);
+            }
+        });
+
+        synchronized (lanes) {
+            PriorityQueue<LaneTask> waiting = lanes.get(lane);
+            if (waiting != null) {
+                waiting.add(laneTask);
+                return;
+            }
+            lanes.put(lane, new PriorityQueue<>(LANE_ORDER));
+        }
+        execute(lane, laneTask);
+    }
+
+    private void runNext(String lane) {
+        LaneTask next;
+        synchronized (lanes) {
+            PriorityQueue<LaneTask> waiting = lanes.get(lane);
+            next = waiting != null ? waiting.poll() : null;
+            if (next == null) {
+                lanes.remove(lane);
+                return;
+            }
+        }
+        execute(lane, next);
+    }
+
+    private void execute(String lane, LaneTask laneTask) {
+        try {
+            executor.execute(laneTask.runnable);
+        } catch (RuntimeException e) {
+            // 关闭过程中不再接收任务
+            pendingPermits.release();
+            synchronized (lanes) {
+                lanes.remove(lane);
+            }
+            System.err.println("TaskExecutor[" + nodeId + "]: 任务提交被拒绝: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 已接收、等待执行的任务数
+     */
+    public int getQueueDepth() {
+        return Math.max(0, Math.max(maxPending, maxConcurrency) - pendingPermits.availablePermits() - activeTasks.get());
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getActiveTasks() {
+        return activeTasks.get();
+    }
+
+    private static final Comparator<LaneTask> LANE_ORDER =
+            Comparator.comparingInt((LaneTask t) -> t.priority).thenComparingLong(t -> t.sequence);
+
+    private static class LaneTask {
+        private final int priority;
+        private final long sequence;
+        private final Runnable runnable;
+
+        LaneTask(int priority, long sequence, Runnable runnable) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.LinkMetrics;
+import com.redis.jedis.dto.TransferStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 传输指标服务
+ * 每次完整接收制品后记录本节点该分发方式的传输样本（transfer:metrics:{nodeId}:{method}），
+ * Master据此为下次部署选择预测最快的分发方式，格式见Master端 TransferMetricsService
+ */
+@Service
+public class TransferMetricsService {
+    
+    @Value("${node.id}")
+    private String nodeId;
+    
+    @Value("${agent.transfer-metrics.decay:0.7}")
+    private double decay;
+    
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    private static final String METRICS_PREFIX = "transfer:metrics:";
+    private static final long METRICS_TTL = 2592000; // 30天
+    
+    /**
+     * 记录一次接收；只统计Master可选择的 redis、shared-storage、http 三种方式，
+     * 命中缓存、差量还原和P2P转发的耗时不代表该方式的链路性能，不计入
+     */
+    public void record(String method, TransferStats stats) {
+        String normalized = normalizeMethod(method);
+        if (normalized == null || stats == null || stats.getOriginalSize() <= 0
+                || "cached".equals(stats.getMethod()) || "delta".equals(stats.getMethod())) {
+            return;
+        }
+        try {
+            String key = METRICS_PREFIX + nodeId + ":" + normalized;
+            String json = stringRedisTemplate.opsForValue().get(key);
+            LinkMetrics metrics = json != null ? JSON.parseObject(json, LinkMetrics.class) : new LinkMetrics();
+            metrics.addSample(stats.getOriginalSize(), stats.getDurationMillis(), decay);
+            stringRedisTemplate.opsForValue().set(key, JSON.toJSONString(metrics), METRICS_TTL, TimeUnit.SECONDS);
+            System.out.println("TransferMetrics[" + nodeId + "]: " + normalized + " 吞吐量 "
+                    + String.format("%.2f MB/s，延迟 %.0fms", metrics.getThroughputMBps(), metrics.getLatencyMillis()));
+        } catch (Exception e) {
+            System.err.println("TransferMetrics[" + nodeId + "]: 记录传输指标失败: " + e.getMessage());
+        }
+    }
+    
+    private String normalizeMethod(String method) {
+        if (method == null) {
+            return null;
+        }
+        switch (method.toUpperCase()) {
+            case "REDIS":
+            case "REDIS_TRANSFER":
+                return "redis";
+            case "SHARED-STORAGE":
+            case "DIRECT_COPY":
+                return "shared-storage";
+            case "HTTP":
+            case "HTTP_DOWNLOAD":
+                return "http";
+            default:
+                return null;
+        }
+    }
+}
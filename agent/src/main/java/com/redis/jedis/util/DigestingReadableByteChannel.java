@@ -0,0 +1,43 @@
+package com.redis.jedis.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+
+/**
+ * 读取时同步更新摘要的通道，接收文件的同时完成校验，无需再次读取文件
+ */
+public class DigestingReadableByteChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel source;
+    private final MessageDigest digest;
+
+    public DigestingReadableByteChannel(ReadableByteChannel source, MessageDigest digest) {
+        this.source = source;
+        this.digest = digest;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = source.read(dst);
+        if (read > 0) {
+            ByteBuffer view = dst.duplicate();
+            view.position(start);
+            view.limit(start + read);
+            digest.update(view);
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.redis.jedis.util;
+
+/**
+ * 任务键命名，需与Master端保持一致
+ * 第2版以 {taskId} 作为哈希标签，同一任务的键在集群中位于同一个槽；第1版的 task:state:{taskId} 仅在滚动升级期间使用。
+ * 列表任务总线的节点键以 {nodeId} 作为哈希标签，LMOVE 的源队列和处理中列表在集群中位于同一个槽
+ */
+public final class TaskKeys {
+
+    public static final String LEGACY_STATE_PREFIX = "task:state:";
+
+    private TaskKeys() {
+    }
+
+    /**
+     * 节点队列键，lane 为null时是部署通道
+     */
+    public static String queue(String nodeId, String lane) {
+        return "task:{" + nodeId + (lane != null ? "}:queue:" + lane : "}:queue");
+    }
+
+    public static String processing(String nodeId) {
+        return "task:{" + nodeId + "}:processing";
+    }
+
+    public static String lease(String nodeId) {
+        return "task:{" + nodeId + "}:lease";
+    }
+
+    public static String signal(String nodeId) {
+        return "task:{" + nodeId + "}:signal";
+    }
+
+    public static String state(String taskId) {
+        return "task:{" + taskId + "}:state";
+    }
+
+    /**
+     * 按键版本取状态键
+     */
+    public static String state(String taskId, int version) {
+        return version >= 2 ? state(taskId) : LEGACY_STATE_PREFIX + taskId;
+    }
+}
@@ -0,0 +1,115 @@
+package com.redis.jedis.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.service.ListTaskBus;
+import com.redis.jedis.service.TaskManagementService;
+import com.redis.jedis.util.RedisBatch;
+import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.RedisStandaloneClient;
+import com.redis.jedis.util.TaskKeys;
+import com.redis.jedis.util.ValueCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务投递开销：一次部署写入任务、初始化状态并推送到 nodeCount 个节点的耗时
+ * perNodePush 为逐条发送的方式（写入任务、回读任务、每个节点序列化一次并单独 LPUSH），
+ * batchedPublish 为当前的批量投递（任务只序列化一次，写入、推送、唤醒标记和通知在一次往返中发送）。
+ * 需要可写的Redis（单机），地址由 -Djmh.redis.host / -Djmh.redis.port 指定；基准使用 bench- 前缀的节点ID，结束后删除其队列
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskDispatchBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int nodeCount;
+
+    private RedisClient redisClient;
+    private TaskManagementService taskManagementService;
+    private ListTaskBus taskBus;
+    private DeployTask task;
+    private List<String> nodeIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redisClient = new RedisStandaloneClient(System.getProperty("jmh.redis.host", "127.0.0.1"),
+                Integer.getInteger("jmh.redis.port", 6379), System.getProperty("jmh.redis.password"), 8, 8, 1, 2000);
+
+        taskManagementService = new TaskManagementService();
+        inject(taskManagementService, "jedisCluster", redisClient);
+        inject(taskManagementService, "codec", ValueCodecs.JSON);
+
+        taskBus = new ListTaskBus();
+        inject(taskBus, "jedisCluster", redisClient);
+        inject(taskBus, "taskManagementService", taskManagementService);
+        inject(taskBus, "notifyEnabled", true);
+
+        nodeIds = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodeIds.add("bench-" + i);
+        }
+        task = new DeployTask("bench-task", "all", "bench-service", "DEPLOY");
+        task.setIdempotencyKey("bench-task");
+        task.setDistributionMethod("http");
+        task.setFilePath("http://master:8080/api/artifacts/4f2a9c/download");
+        task.setFileSize(52_428_800L);
+        task.setFileChecksum("4f2a9c7d1e0b8a63f5c2d94e7b1a0c3d8e6f5a4b3c2d1e0f9a8b7c6d5e4f3a2b");
+        task.setTargetNodes(nodeIds);
+        task.setCreateTime(System.currentTimeMillis());
+        task.setOperator("admin");
+        task.setHealthCheckUrl("http://localhost:8081/actuator/health");
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearQueues() {
+        RedisBatch batch = new RedisBatch();
+        for (String nodeId : nodeIds) {
+            batch.del(TaskKeys.queue(nodeId, null)).del(TaskKeys.signal(nodeId));
+        }
+        redisClient.execute(batch);
+    }
+
+    @Benchmark
+    public void perNodePush() {
+        taskManagementService.storeTask(task);
+        DeployTask stored = taskManagementService.getTask(task.getTaskId());
+        for (String nodeId : nodeIds) {
+            redisClient.lpush(TaskKeys.queue(nodeId, null), JSON.toJSONString(stored));
+        }
+    }
+
+    @Benchmark
+    public void batchedPublish() {
+        RedisBatch batch = new RedisBatch();
+        taskManagementService.storeTask(task, batch);
+        taskBus.publish(task, nodeIds, batch);
+        redisClient.execute(batch);
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
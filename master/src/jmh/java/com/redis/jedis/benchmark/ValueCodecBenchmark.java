@@ -0,0 +1,112 @@
+package com.redis.jedis.benchmark;
+
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.NodeStatus;
+import com.redis.jedis.util.ValueCodec;
+import com.redis.jedis.util.ValueCodecs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON与紧凑二进制编码的编解码耗时，对象为 NodeStatus 和 DeployTask（10个目标节点）
+ * 解码走 ValueCodecs.decode（与读取路径一致，按首字节识别编码）；编码后的字节数在每次试验开始时输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueCodecBenchmark {
+
+    @Param({"json", "compact"})
+    private String codecName;
+
+    @Param({"NodeStatus", "DeployTask"})
+    private String type;
+
+    private ValueCodec codec;
+    private Object value;
+    private Class<?> valueType;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        codec = ValueCodecs.forName(codecName);
+        if ("NodeStatus".equals(type)) {
+            value = nodeStatus();
+            valueType = NodeStatus.class;
+        } else {
+            value = deployTask();
+            valueType = DeployTask.class;
+        }
+        encoded = codec.encode(value);
+        System.out.println("ValueCodecBenchmark: " + codecName + " " + type + " 编码后 " + encoded.length + " 字节");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return ValueCodecs.decode(encoded, valueType);
+    }
+
+    private static NodeStatus nodeStatus() {
+        NodeStatus status = new NodeStatus("node-01", "应用服务器01");
+        status.setServiceStatus("RUNNING");
+        status.setCpuUsage(37.5);
+        status.setMemoryUsage(62.25);
+        status.setHealthStatus("HEALTHY");
+        status.setLastHeartbeat(System.currentTimeMillis());
+        status.setLastDeployTime(System.currentTimeMillis() - 3_600_000L);
+        status.setLastDeployVersion("1.4.2-20261018");
+        status.setUptime(86_400_000L);
+        status.setJarPath("/opt/apps/order-service/order-service.jar");
+        status.setJarFileSize(52_428_800L);
+        status.setJarFileTime(System.currentTimeMillis() - 3_600_000L);
+        return status;
+    }
+
+    private static DeployTask deployTask() {
+        List<String> nodes = new ArrayList<>();
+        Map<String, String> fanoutSources = new HashMap<>();
+        for (int i = 1; i <= 10; i++) {
+            String nodeId = String.format("node-%02d", i);
+            nodes.add(nodeId);
+            if (i > 2) {
+                fanoutSources.put(nodeId, String.format("node-%02d", i / 2));
+            }
+        }
+        DeployTask task = new DeployTask("deploy-1760745600000-8f3a", "all", "order-service", "DEPLOY");
+        task.setIdempotencyKey(task.getTaskId());
+        task.setDistributionMethod("http");
+        task.setFilePath("http://master:8080/api/artifacts/4f2a9c7d1e0b8a63/download");
+        task.setFileSize(52_428_800L);
+        task.setFileChecksum("4f2a9c7d1e0b8a63f5c2d94e7b1a0c3d8e6f5a4b3c2d1e0f9a8b7c6d5e4f3a2b");
+        task.setTargetNodes(nodes);
+        task.setCreateTime(System.currentTimeMillis());
+        task.setOperator("admin");
+        task.setFanoutSources(fanoutSources);
+        task.setHealthCheckUrl("http://localhost:8081/actuator/health");
+        return task;
+    }
+}
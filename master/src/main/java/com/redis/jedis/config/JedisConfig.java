@@ -7,6 +7,7 @@ import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisCluster;
 import com.redis.jedis.util.RedisClient;
 import com.redis.jedis.util.RedisClusterClient;
+import com.redis.jedis.util.RedisScripts;
 import com.redis.jedis.util.RedisStandaloneClient;
 import redis.clients.jedis.JedisPoolConfig;
 
@@ -85,14 +86,27 @@ public class JedisConfig {
 
             if (password != null && !password.trim().isEmpty()) {
                 // 带密码的 JedisCluster 构造
-                return new RedisClusterClient(new JedisCluster(nodes, timeout, soTimeout, maxRedirects, password, poolConfig));
+                return loadScripts(new RedisClusterClient(new JedisCluster(nodes, timeout, soTimeout, maxRedirects, password, poolConfig)));
             }
             // 无密码的 JedisCluster 构造
-            return new RedisClusterClient(new JedisCluster(nodes, timeout, maxRedirects, poolConfig));
+            return loadScripts(new RedisClusterClient(new JedisCluster(nodes, timeout, maxRedirects, poolConfig)));
         }
 
         // 否则使用单机模式（JedisPooled 线程安全，且实现 JedisCommands）
         System.out.println("Using standalone Redis at " + redisHost + ":" + redisPort + ", db=" + redisDatabase);
-        return new RedisStandaloneClient(redisHost, redisPort, redisPassword, maxActive, maxIdle, minIdle, maxWait);
+        return loadScripts(new RedisStandaloneClient(redisHost, redisPort, redisPassword, maxActive, maxIdle, minIdle, maxWait));
+    }
+
+    /**
+     * 预加载注册的Lua脚本，之后以 EVALSHA 调用；加载失败不影响启动，首次调用时由 EVAL 缓存
+     */
+    private RedisClient loadScripts(RedisClient client) {
+        try {
+            client.loadScripts(RedisScripts.ALL);
+            System.out.println("Loaded " + RedisScripts.ALL.size() + " Redis Lua scripts");
+        } catch (Exception e) {
+            System.err.println("Failed to preload Redis Lua scripts: " + e.getMessage());
+        }
+        return client;
     }
 }
\ No newline at end of file
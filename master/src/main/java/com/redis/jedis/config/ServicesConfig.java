@@ -21,6 +21,8 @@ public class ServicesConfig {
         private String jarPath;
         private List<String> targetNodes;
         private String description;
+        private String healthCheckUrl;
+        private List<String> dependsOn;
         
         // Getters and Setters
         public String getName() {
@@ -63,6 +65,22 @@ public class ServicesConfig {
             this.description = description;
         }
         
+        public String getHealthCheckUrl() {
+            return healthCheckUrl;
+        }
+        
+        public void setHealthCheckUrl(String healthCheckUrl) {
+            this.healthCheckUrl = healthCheckUrl;
+        }
+        
+        public List<String> getDependsOn() {
+            return dependsOn;
+        }
+        
+        public void setDependsOn(List<String> dependsOn) {
+            this.dependsOn = dependsOn;
+        }
+        
         @Override
         public String toString() {
             return "ServiceInfo{" +
@@ -71,6 +89,8 @@ public class ServicesConfig {
                     ", jarPath='" + jarPath + '\'' +
                     ", targetNodes=" + targetNodes +
                     ", description='" + description + '\'' +
+                    ", healthCheckUrl='" + healthCheckUrl + '\'' +
+                    ", dependsOn=" + dependsOn +
                     '}';
         }
     }
@@ -0,0 +1,210 @@
+package com.redis.jedis.controller;
+
+import com.redis.jedis.service.ArtifactStoreService;
+import com.redis.jedis.service.FileDistributionService;
+import com.redis.jedis.util.CompressionCodec;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 制品下载Controller
+ * 为Agent节点提供HTTP分发方式的下载服务，支持Range断点续传
+ */
+@RestController
+@Api(tags = "制品下载")
+public class ArtifactDownloadController {
+
+    @Autowired
+    private ArtifactStoreService artifactStoreService;
+
+    @Autowired
+    private FileDistributionService fileDistributionService;
+
+    private static final Pattern DIGEST_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    // Tomcat sendfile 请求属性
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // 压缩传输时响应没有 Content-Length，以该头告知原始文件大小
+    private static final String ORIGINAL_LENGTH_HEADER = "X-Original-Length";
+
+    // 小于该大小的响应不使用sendfile
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    @ApiOperation("下载制品（支持Range/If-Range）")
+    @RequestMapping(value = "/download/{digest}/{fileName:.+}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void download(@PathVariable String digest, @PathVariable String fileName,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!DIGEST_PATTERN.matcher(digest).matches() || !artifactStoreService.contains(digest)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "制品不存在: " + digest);
+            return;
+        }
+
+        Path file = artifactStoreService.resolve(digest);
+        long fileSize = Files.size(file);
+        String etag = "\"" + digest + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader("Digest", "sha-256=" + Base64.getEncoder().encodeToString(hexToBytes(digest)));
+        // 文件名来自请求路径，按 RFC 5987 编码，引号和换行不会进入响应头
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+        response.setContentType("application/java-archive");
+
+        // 内容按摘要寻址不会变化，If-None-Match 命中直接返回304
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = fileSize - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        boolean partial = range != null && (ifRange == null || etag.equals(ifRange));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        
+        // 完整下载按Agent声明的编码压缩传输；Range续传请求始终返回原始字节
+        CompressionCodec codec = partial ? CompressionCodec.NONE
+                : fileDistributionService.negotiateCodec(digest, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (codec != CompressionCodec.NONE) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, codec.getEncoding());
+            response.setHeader(ORIGINAL_LENGTH_HEADER, String.valueOf(fileSize));
+            if (!"HEAD".equals(request.getMethod())) {
+                sendCompressed(file, fileSize, codec, response);
+            }
+            return;
+        }
+        
+        if (partial) {
+            long[] parsed = parseRange(range, fileSize);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = parsed[0];
+            end = parsed[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        // 容器支持sendfile时交由内核直接发送文件
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 压缩后以分块编码发送完整文件；压缩率和吞吐量由Agent在接收端统计并随任务状态上报
+     */
+    private void sendCompressed(Path file, long fileSize, CompressionCodec codec, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             OutputStream out = codec.compress(response.getOutputStream())) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < fileSize) {
+                long transferred = channel.transferTo(position, fileSize - position, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+    
+    /**
+     * 解析单段Range请求，返回[start, end]，不可满足时返回null（数值超出 long 范围同样按不可满足处理）
+     */
+    private long[] parseRange(String range, long fileSize) {
+        Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String startText = matcher.group(1);
+        String endText = matcher.group(2);
+        long start;
+        long end;
+        try {
+            if (startText.isEmpty()) {
+                // bytes=-N 表示最后N个字节
+                if (endText.isEmpty()) {
+                    return null;
+                }
+                long suffix = Long.parseLong(endText);
+                start = Math.max(0, fileSize - suffix);
+                end = fileSize - 1;
+            } else {
+                start = Long.parseLong(startText);
+                end = endText.isEmpty() ? fileSize - 1 : Math.min(Long.parseLong(endText), fileSize - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (start >= fileSize || start > end) {
+            return null;
+        }
+        return new long[]{start, end};
+    }
+
+    private byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
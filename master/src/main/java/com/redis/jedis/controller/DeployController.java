@@ -2,11 +2,14 @@ package com.redis.jedis.controller;
 
 import com.redis.jedis.dto.*;
 import com.redis.jedis.service.DeployService;
+import com.redis.jedis.service.TaskEventService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -32,6 +35,9 @@ public class DeployController {
     @Autowired
     private com.redis.jedis.config.ServicesConfig servicesConfig;
     
+    @Autowired
+    private TaskEventService taskEventService;
+    
     /**
      * 创建默认的部署请求
      */
@@ -360,6 +366,40 @@ public class DeployController {
         return step3GetTaskStatus(taskId);
     }
     
+    @ApiOperation(value = "分页查看最近的任务", notes = "按创建时间倒序，page从0开始；只读取当前页的任务状态")
+    @GetMapping("/tasks")
+    public ApiResponse<List<TaskStatus>> getRecentTasks(@RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ApiResponse.success("查询成功", deployService.getRecentTasks(page, size));
+        } catch (Exception e) {
+            return ApiResponse.error("获取最近任务失败 - " + e.getMessage());
+        }
+    }
+    
+    @ApiOperation(value = "订阅任务状态变化", 
+                  notes = "Server-Sent Events：连接后先推送当前状态(status事件)，之后每次节点状态变化推送node事件和汇总后的status事件，任务结束后关闭连接")
+    @GetMapping(value = "/task-events/{taskId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(@PathVariable String taskId) {
+        return taskEventService.subscribe(taskId);
+    }
+    
+    @ApiOperation(value = "订阅全部任务的状态变化", notes = "Server-Sent Events：任一任务状态变化时推送该任务汇总后的status事件")
+    @GetMapping(value = "/task-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAllTaskEvents() {
+        return taskEventService.subscribe(null);
+    }
+    
+    @ApiOperation(value = "查看节点待确认的任务", notes = "列出节点已领取但尚未确认的任务及空闲时间，用于排查卡住的任务")
+    @GetMapping("/pending-tasks/{nodeId}")
+    public ApiResponse<List<PendingTask>> getPendingTasks(@PathVariable String nodeId) {
+        try {
+            return ApiResponse.success("查询成功", deployService.getPendingTasks(nodeId));
+        } catch (Exception e) {
+            return ApiResponse.error("获取待确认任务失败 - " + e.getMessage());
+        }
+    }
+    
     @ApiOperation("获取服务列表")
     @GetMapping("/services")
     public ApiResponse<List<ServiceInfo>> getAvailableServices() {
@@ -12,6 +12,10 @@ public class BatchDeployResult {
     private String status; // 部署状态
     private long startTime; // 开始时间
     private String operator; // 操作人
+    private long durationMillis; // 整批处理耗时(毫秒)
+    private List<ServiceDeployResult> serviceResults; // 各服务的处理结果，按完成顺序排列
+    private List<String> criticalPath; // 关键路径：依赖链上累计耗时最长的服务序列
+    private long criticalPathMillis; // 关键路径耗时(毫秒)
     
     public BatchDeployResult() {
         this.startTime = System.currentTimeMillis();
@@ -64,4 +68,36 @@ public class BatchDeployResult {
     public void setOperator(String operator) {
         this.operator = operator;
     }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+    
+    public List<ServiceDeployResult> getServiceResults() {
+        return serviceResults;
+    }
+    
+    public void setServiceResults(List<ServiceDeployResult> serviceResults) {
+        this.serviceResults = serviceResults;
+    }
+    
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+    
+    public void setCriticalPath(List<String> criticalPath) {
+        this.criticalPath = criticalPath;
+    }
+    
+    public long getCriticalPathMillis() {
+        return criticalPathMillis;
+    }
+    
+    public void setCriticalPathMillis(long criticalPathMillis) {
+        this.criticalPathMillis = criticalPathMillis;
+    }
 }
@@ -14,6 +14,7 @@ public class DeployInfo {
     private String operator; // 操作人
     private String nodeId; // 节点ID
     private String distributionMethod; // 分发方式
+    private String artifactDigest; // 制品SHA-256摘要，用于差量分发
     
     public DeployInfo() {
         this.deployTime = System.currentTimeMillis();
@@ -98,5 +99,12 @@ public class DeployInfo {
     public void setDistributionMethod(String distributionMethod) {
         this.distributionMethod = distributionMethod;
     }
+    
+    public String getArtifactDigest() {
+        return artifactDigest;
+    }
+    
+    public void setArtifactDigest(String artifactDigest) {
+        this.artifactDigest = artifactDigest;
+    }
 }
-
@@ -13,6 +13,7 @@ public class DeployRequest {
     private boolean forceDeploy; // 是否强制部署
     private String deployMode; // 部署模式：parallel(并行) 或 sequential(串行)
     private String operator; // 操作人
+    private String healthCheckUrl; // 健康检查地址，Agent部署后等待其返回UP才上报成功
     
     public DeployRequest() {
     }
@@ -71,4 +72,12 @@ public class DeployRequest {
     public void setOperator(String operator) {
         this.operator = operator;
     }
+    
+    public String getHealthCheckUrl() {
+        return healthCheckUrl;
+    }
+    
+    public void setHealthCheckUrl(String healthCheckUrl) {
+        this.healthCheckUrl = healthCheckUrl;
+    }
 }
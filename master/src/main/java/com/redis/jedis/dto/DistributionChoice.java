@@ -0,0 +1,51 @@
+package com.redis.jedis.dto;
+
+/**
+ * 分发方式选择结果DTO
+ * 自适应选择器为每个目标节点选出的分发方式及预测耗时
+ */
+public class DistributionChoice {
+    
+    private String method; // 分发方式
+    private long predictedMillis; // 预测耗时(毫秒)
+    private boolean measured; // 是否基于实测数据（false 表示使用默认估计值）
+    
+    public DistributionChoice() {
+    }
+    
+    public DistributionChoice(String method, long predictedMillis, boolean measured) {
+        this.method = method;
+        this.predictedMillis = predictedMillis;
+        this.measured = measured;
+    }
+    
+    // Getters and Setters
+    public String getMethod() {
+        return method;
+    }
+    
+    public void setMethod(String method) {
+        this.method = method;
+    }
+    
+    public long getPredictedMillis() {
+        return predictedMillis;
+    }
+    
+    public void setPredictedMillis(long predictedMillis) {
+        this.predictedMillis = predictedMillis;
+    }
+    
+    public boolean isMeasured() {
+        return measured;
+    }
+    
+    public void setMeasured(boolean measured) {
+        this.measured = measured;
+    }
+    
+    @Override
+    public String toString() {
+        return method + " (" + predictedMillis + "ms" + (measured ? "" : ", 估计") + ")";
+    }
+}
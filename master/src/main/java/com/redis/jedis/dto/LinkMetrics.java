@@ -0,0 +1,143 @@
+package com.redis.jedis.dto;
+
+/**
+ * 链路传输指标DTO
+ * 记录某节点某种分发方式的历史传输样本（文件大小、耗时），按 耗时 = 延迟 + 大小 / 吞吐量 拟合；
+ * 样本按衰减系数加权，较新的传输影响更大。
+ * 由Agent在每次接收完成后更新，Master读取后预测各分发方式的耗时
+ */
+public class LinkMetrics {
+    
+    private double weight; // 衰减后的样本权重之和
+    private double sumSize; // Σ大小(字节)
+    private double sumMillis; // Σ耗时(毫秒)
+    private double sumSizeSquare; // Σ大小²
+    private double sumSizeMillis; // Σ大小×耗时
+    private long samples; // 累计样本数
+    private long updateTime; // 最后更新时间
+    
+    /**
+     * 加入一个传输样本，已有样本先乘以衰减系数
+     */
+    public void addSample(long size, long millis, double decay) {
+        weight = weight * decay + 1;
+        sumSize = sumSize * decay + size;
+        sumMillis = sumMillis * decay + millis;
+        sumSizeSquare = sumSizeSquare * decay + (double) size * size;
+        sumSizeMillis = sumSizeMillis * decay + (double) size * millis;
+        samples++;
+        updateTime = System.currentTimeMillis();
+    }
+    
+    /**
+     * 固定延迟(毫秒)；样本大小差异不足以拟合时为0
+     */
+    public double getLatencyMillis() {
+        double[] fit = fit();
+        return fit != null ? fit[0] : 0.0;
+    }
+    
+    /**
+     * 吞吐量(MB/s)
+     */
+    public double getThroughputMBps() {
+        double millisPerByte = millisPerByte();
+        return millisPerByte > 0 ? 1000.0 / millisPerByte / 1048576.0 : 0.0;
+    }
+    
+    /**
+     * 预测传输 size 字节的耗时(毫秒)，没有样本时返回 -1
+     */
+    public long predictMillis(long size) {
+        if (weight <= 0 || sumSize <= 0) {
+            return -1;
+        }
+        return Math.round(getLatencyMillis() + millisPerByte() * size);
+    }
+    
+    private double millisPerByte() {
+        double[] fit = fit();
+        if (fit != null) {
+            return fit[1];
+        }
+        return sumSize > 0 ? sumMillis / sumSize : 0.0;
+    }
+    
+    /**
+     * 加权最小二乘拟合 耗时 = a + b × 大小，返回 {a, b}；样本大小过于接近或结果不合理时返回null
+     */
+    private double[] fit() {
+        if (weight < 2) {
+            return null;
+        }
+        double meanSize = sumSize / weight;
+        double meanMillis = sumMillis / weight;
+        double variance = sumSizeSquare / weight - meanSize * meanSize;
+        if (variance <= 0.01 * meanSize * meanSize) {
+            return null;
+        }
+        double slope = (sumSizeMillis / weight - meanSize * meanMillis) / variance;
+        double intercept = meanMillis - slope * meanSize;
+        if (slope <= 0 || intercept < 0) {
+            return null;
+        }
+        return new double[]{intercept, slope};
+    }
+    
+    // Getters and Setters
+    public double getWeight() {
+        return weight;
+    }
+    
+    public void setWeight(double weight) {
+        this.weight = weight;
+    }
+    
+    public double getSumSize() {
+        return sumSize;
+    }
+    
+    public void setSumSize(double sumSize) {
+        this.sumSize = sumSize;
+    }
+    
+    public double getSumMillis() {
+        return sumMillis;
+    }
+    
+    public void setSumMillis(double sumMillis) {
+        this.sumMillis = sumMillis;
+    }
+    
+    public double getSumSizeSquare() {
+        return sumSizeSquare;
+    }
+    
+    public void setSumSizeSquare(double sumSizeSquare) {
+        this.sumSizeSquare = sumSizeSquare;
+    }
+    
+    public double getSumSizeMillis() {
+        return sumSizeMillis;
+    }
+    
+    public void setSumSizeMillis(double sumSizeMillis) {
+        this.sumSizeMillis = sumSizeMillis;
+    }
+    
+    public long getSamples() {
+        return samples;
+    }
+    
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+    
+    public long getUpdateTime() {
+        return updateTime;
+    }
+    
+    public void setUpdateTime(long updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,66 @@
+package com.redis.jedis.dto;
+
+/**
+ * 待确认任务DTO
+ * 已投递给Agent但尚未确认的任务，用于排查卡住的任务
+ */
+public class PendingTask {
+    
+    private String taskId; // 任务ID
+    private String nodeId; // 节点ID
+    private String deliveryId; // 投递标识：Stream条目ID，列表模式下为空
+    private long idleMillis; // 距离领取或最近一次心跳的时间(毫秒)
+    private long deliveryCount; // 投递次数，列表模式下为0（不统计）
+    
+    public PendingTask() {
+    }
+    
+    public PendingTask(String taskId, String nodeId, String deliveryId, long idleMillis, long deliveryCount) {
+        this.taskId = taskId;
+        this.nodeId = nodeId;
+        this.deliveryId = deliveryId;
+        this.idleMillis = idleMillis;
+        this.deliveryCount = deliveryCount;
+    }
+    
+    // Getters and Setters
+    public String getTaskId() {
+        return taskId;
+    }
+    
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    public String getDeliveryId() {
+        return deliveryId;
+    }
+    
+    public void setDeliveryId(String deliveryId) {
+        this.deliveryId = deliveryId;
+    }
+    
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+    
+    public void setIdleMillis(long idleMillis) {
+        this.idleMillis = idleMillis;
+    }
+    
+    public long getDeliveryCount() {
+        return deliveryCount;
+    }
+    
+    public void setDeliveryCount(long deliveryCount) {
+        this.deliveryCount = deliveryCount;
+    }
+}
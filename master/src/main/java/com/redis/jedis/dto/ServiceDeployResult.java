@@ -0,0 +1,95 @@
+package com.redis.jedis.dto;
+
+/**
+ * 单个服务的批量部署结果DTO
+ * 记录批量部署中每个服务的处理结果和耗时，用于定位拖慢整批部署的服务
+ */
+public class ServiceDeployResult {
+    
+    private String serviceName; // 服务名称
+    private String status; // 处理结果：SUCCESS/SKIPPED/FAILED
+    private String taskId; // 部署任务ID，未创建任务时为空
+    private String message; // 跳过或失败原因
+    private long startTime; // 开始处理时间
+    private long waitMillis; // 提交后等待执行线程的时间(毫秒)
+    private long durationMillis; // 文件分发和任务创建耗时(毫秒)
+    
+    public ServiceDeployResult() {
+    }
+    
+    public ServiceDeployResult(String serviceName, String status, String taskId, String message) {
+        this.serviceName = serviceName;
+        this.status = status;
+        this.taskId = taskId;
+        this.message = message;
+    }
+    
+    public static ServiceDeployResult success(String serviceName, String taskId) {
+        return new ServiceDeployResult(serviceName, "SUCCESS", taskId, null);
+    }
+    
+    public static ServiceDeployResult skipped(String serviceName, String message) {
+        return new ServiceDeployResult(serviceName, "SKIPPED", null, message);
+    }
+    
+    public static ServiceDeployResult failed(String serviceName, String message) {
+        return new ServiceDeployResult(serviceName, "FAILED", null, message);
+    }
+    
+    // Getters and Setters
+    public String getServiceName() {
+        return serviceName;
+    }
+    
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getTaskId() {
+        return taskId;
+    }
+    
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+    
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+    
+    public void setWaitMillis(long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+}
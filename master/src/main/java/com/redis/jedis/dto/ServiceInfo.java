@@ -16,6 +16,7 @@ public class ServiceInfo {
     private String stopCommand; // 停止命令
     private String healthCheckUrl; // 健康检查URL
     private int port; // 服务端口
+    private List<String> dependsOn; // 依赖的服务：这些服务在目标节点上通过健康检查后才部署本服务
     
     public ServiceInfo() {
     }
@@ -98,4 +99,12 @@ public class ServiceInfo {
     public void setPort(int port) {
         this.port = port;
     }
+    
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+    
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
 }
@@ -20,6 +20,8 @@ public class TaskStatus {
     private int progress; // 进度百分比
     private List<String> targetNodes; // 目标节点
     private Map<String, String> nodeResults; // 各节点执行结果
+    private Map<String, TransferStats> transferStats; // 传输统计：master 为分发端，其余为各节点接收端
+    private Map<String, DistributionChoice> distributionPlan; // 各节点选定的分发方式及预测耗时
     
     public TaskStatus() {
     }
@@ -118,4 +120,20 @@ public class TaskStatus {
     public void setNodeResults(Map<String, String> nodeResults) {
         this.nodeResults = nodeResults;
     }
+    
+    public Map<String, TransferStats> getTransferStats() {
+        return transferStats;
+    }
+    
+    public void setTransferStats(Map<String, TransferStats> transferStats) {
+        this.transferStats = transferStats;
+    }
+    
+    public Map<String, DistributionChoice> getDistributionPlan() {
+        return distributionPlan;
+    }
+    
+    public void setDistributionPlan(Map<String, DistributionChoice> distributionPlan) {
+        this.distributionPlan = distributionPlan;
+    }
 }
@@ -0,0 +1,220 @@
+package com.redis.jedis.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 制品存储服务
+ * 按SHA-256摘要寻址存储JAR包，相同内容只保存一份
+ */
+@Service
+public class ArtifactStoreService {
+
+    @Value("${deploy.artifact-store.path:}")
+    private String storePath;
+
+    @Autowired
+    private DirectoryService directoryService;
+
+    // 已计算过摘要的源文件：路径|大小|修改时间 -> 摘要
+    private final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化制品库目录
+     */
+    @PostConstruct
+    public void init() {
+        if (storePath == null || storePath.trim().isEmpty()) {
+            storePath = Paths.get(directoryService.getDistributePath(), "artifacts").toString();
+        }
+        directoryService.createDirectoryIfNotExists(storePath);
+    }
+
+    /**
+     * 将本地文件存入制品库，返回摘要
+     * 源文件未变化时直接命中缓存；否则复制的同时计算摘要，源文件只读取一遍
+     */
+    public String store(Path source) {
+        try {
+            String fingerprint = fingerprint(source);
+            String digest = fingerprintCache.get(fingerprint);
+            if (digest != null && Files.exists(resolve(digest))) {
+                System.out.println("制品库: 源文件未变化，复用制品 " + digest);
+                return digest;
+            }
+
+            try (InputStream in = Files.newInputStream(source)) {
+                digest = store(in);
+            }
+            fingerprintCache.put(fingerprint, digest);
+            return digest;
+
+        } catch (IOException e) {
+            throw new RuntimeException("存入制品库失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将输入流存入制品库，返回摘要
+     * 写入临时文件的同时计算摘要，只读取一遍数据
+     */
+    public String store(InputStream inputStream) {
+        Path temp = null;
+        try {
+            temp = createTempFile();
+            MessageDigest md = newDigest();
+            try (InputStream in = new DigestInputStream(inputStream, md)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String digest = toHex(md.digest());
+            Path target = resolve(digest);
+            if (Files.exists(target)) {
+                Files.deleteIfExists(temp);
+                System.out.println("制品库: 制品已存在，丢弃重复内容 " + digest);
+            } else {
+                commit(temp, target);
+                System.out.println("制品库: 新增制品 " + digest);
+            }
+            return digest;
+
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new RuntimeException("存入制品库失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 将制品发布到指定路径
+     * 优先使用硬链接，不同文件系统时退化为复制；目标已是相同内容时跳过
+     */
+    public void publish(String digest, Path target) {
+        try {
+            Path source = resolve(digest);
+            if (!Files.exists(source)) {
+                throw new RuntimeException("制品不存在: " + digest);
+            }
+            if (Files.exists(target)) {
+                // 同一个文件，或位于以摘要命名的目录下，内容必然一致
+                boolean digestNamed = digest.equals(target.getParent().getFileName().toString());
+                if (digestNamed || Files.isSameFile(source, target)) {
+                    return;
+                }
+            }
+
+            Files.createDirectories(target.getParent());
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, source);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+        } catch (IOException e) {
+            throw new RuntimeException("发布制品失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 制品是否存在
+     */
+    public boolean contains(String digest) {
+        return Files.exists(resolve(digest));
+    }
+
+    /**
+     * 获取制品在库中的路径：{store}/{摘要前2位}/{摘要}
+     */
+    public Path resolve(String digest) {
+        return Paths.get(storePath, digest.substring(0, 2), digest);
+    }
+
+    /**
+     * 计算文件的SHA-256摘要
+     */
+    public String digest(Path file) throws IOException {
+        MessageDigest md = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), md)) {
+            byte[] buffer = new byte[65536];
+            while (in.read(buffer) != -1) {
+                // 读取过程中由DigestInputStream更新摘要
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * 创建SHA-256摘要器
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256算法", e);
+        }
+    }
+
+    /**
+     * 摘要转十六进制字符串
+     */
+    public static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private Path createTempFile() throws IOException {
+        Path tempDir = Paths.get(storePath, "tmp");
+        Files.createDirectories(tempDir);
+        return Files.createTempFile(tempDir, "incoming-", ".tmp");
+    }
+
+    /**
+     * 临时文件原子移动到制品路径
+     */
+    private void commit(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            if (Files.exists(target)) {
+                // 并发写入了相同内容
+                Files.deleteIfExists(temp);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private String fingerprint(Path source) throws IOException {
+        Path absolute = source.toAbsolutePath().normalize();
+        return absolute + "|" + Files.size(absolute) + "|" + Files.getLastModifiedTime(absolute).toMillis();
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 临时文件清理失败不影响主流程
+        }
+    }
+}
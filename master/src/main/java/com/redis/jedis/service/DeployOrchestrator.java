@@ -0,0 +1,338 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.BatchDeployResult;
+import com.redis.jedis.dto.ServiceDeployResult;
+import com.redis.jedis.dto.TaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 部署编排器
+ * 批量部署时各服务的文件检查、文件分发和任务创建在有界线程池中并发执行，整批耗时取决于最慢的服务而不是所有服务之和；
+ * 线程池为所有批量部署共用，同时处理的服务数不超过 deploy.orchestration.parallelism。
+ * 服务间的依赖（dependsOn）构成有向无环图：没有未完成依赖的服务立即并发部署，被依赖的服务等到部署任务在全部目标节点
+ * 完成（含Agent端健康检查）后才放行其下游服务；依赖失败时下游服务被跳过。
+ * 等待部署任务完成由单独的定时检查线程按间隔查询任务状态，不占用线程池。
+ * 结果按完成顺序返回，每个服务完成时立即输出其耗时，并给出依赖链上耗时最长的关键路径
+ */
+@Service
+public class DeployOrchestrator {
+
+    @Autowired
+    private TaskManagementService taskManagementService;
+
+    @Value("${deploy.orchestration.parallelism:4}")
+    private int parallelism;
+
+    @Value("${deploy.orchestration.ready-timeout:600000}")
+    private long readyTimeoutMillis;
+
+    @Value("${deploy.orchestration.ready-poll-interval:2000}")
+    private long readyPollIntervalMillis;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService readyChecker;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, parallelism);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "DeployOrchestrator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        readyChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "DeployOrchestrator-ready");
+            thread.setDaemon(true);
+            return thread;
+        });
+        System.out.println("DeployOrchestrator: 批量部署并发数 " + threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        readyChecker.shutdownNow();
+    }
+
+    /**
+     * 按依赖关系并发处理各服务，等待全部完成后返回
+     * dependencies 的键为本批的服务（按配置顺序），值为其依赖的服务；不在本批中的依赖视为已就绪。
+     * 单个服务抛出异常时记为FAILED，不影响与其无关的服务
+     */
+    public BatchDeployResult run(Map<String, List<String>> dependencies, Function<String, ServiceDeployResult> action) {
+        long startTime = System.currentTimeMillis();
+        Map<String, List<String>> prerequisites = new LinkedHashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+            List<String> inBatch = new ArrayList<>();
+            if (entry.getValue() != null) {
+                for (String dependency : entry.getValue()) {
+                    if (!dependencies.containsKey(dependency)) {
+                        System.out.println("DeployOrchestrator: 服务 " + entry.getKey() + " 的依赖 " + dependency
+                                + " 不在本批部署中，视为已就绪");
+                    } else if (!inBatch.contains(dependency)) {
+                        inBatch.add(dependency);
+                        dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+            }
+            prerequisites.put(entry.getKey(), inBatch);
+        }
+        checkAcyclic(prerequisites, dependents);
+
+        BlockingQueue<ServiceDeployResult> completed = new LinkedBlockingQueue<>();
+        Map<String, Integer> remaining = new HashMap<>();
+        int submitted = 0;
+        for (Map.Entry<String, List<String>> entry : prerequisites.entrySet()) {
+            remaining.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                submit(completed, entry.getKey(), dependents.containsKey(entry.getKey()), action);
+                submitted++;
+            }
+        }
+
+        Map<String, ServiceDeployResult> finished = new LinkedHashMap<>();
+        try {
+            while (submitted > 0) {
+                ServiceDeployResult result = completed.take();
+                submitted--;
+                record(finished, result, prerequisites.size());
+
+                List<String> next = dependents.getOrDefault(result.getServiceName(), Collections.emptyList());
+                if ("SUCCESS".equals(result.getStatus())) {
+                    for (String dependent : next) {
+                        if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                            submit(completed, dependent, dependents.containsKey(dependent), action);
+                            submitted++;
+                        }
+                    }
+                } else {
+                    skipDependents(result.getServiceName(), dependents, finished, prerequisites.size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("批量部署被中断");
+        }
+
+        BatchDeployResult batchResult = new BatchDeployResult();
+        List<String> taskIds = new ArrayList<>();
+        for (ServiceDeployResult result : finished.values()) {
+            if (result.getTaskId() != null) {
+                taskIds.add(result.getTaskId());
+            }
+        }
+        batchResult.setTotalServices(prerequisites.size());
+        batchResult.setTaskIds(taskIds);
+        batchResult.setServiceResults(new ArrayList<>(finished.values()));
+        batchResult.setStartTime(startTime);
+        batchResult.setDurationMillis(System.currentTimeMillis() - startTime);
+        fillCriticalPath(batchResult, prerequisites, finished);
+        return batchResult;
+    }
+
+    /**
+     * 在线程池中执行服务的部署操作；有下游服务时部署任务创建成功后转入定时检查，
+     * 任务在所有目标节点完成后才交回结果，下游服务才能开始
+     */
+    private void submit(BlockingQueue<ServiceDeployResult> completed, String serviceName, boolean awaitReady,
+            Function<String, ServiceDeployResult> action) {
+        long submitTime = System.currentTimeMillis();
+        executor.execute(() -> {
+            long startTime = System.currentTimeMillis();
+            ServiceDeployResult result;
+            try {
+                // 结果为空时按失败交回，避免 run 一直等待
+                result = Objects.requireNonNull(action.apply(serviceName), "部署操作没有返回结果");
+            } catch (Exception e) {
+                System.err.println("DeployOrchestrator: 部署服务 " + serviceName + " 失败: " + e.getMessage());
+                result = ServiceDeployResult.failed(serviceName, e.getMessage());
+            }
+            result.setStartTime(startTime);
+            result.setWaitMillis(startTime - submitTime);
+            if (awaitReady && "SUCCESS".equals(result.getStatus())) {
+                scheduleReadyCheck(result, System.currentTimeMillis() + readyTimeoutMillis, completed);
+            } else {
+                finish(result, completed);
+            }
+        });
+    }
+
+    /**
+     * 按间隔检查部署任务是否完成，Agent在启动服务并通过健康检查后才上报成功；
+     * 任务完成、失败或超时后交回结果，否则安排下一次检查。有节点被取消（如被回滚任务取消）时按失败处理
+     */
+    private void scheduleReadyCheck(ServiceDeployResult result, long deadline, BlockingQueue<ServiceDeployResult> completed) {
+        Runnable check = () -> {
+            try {
+                TaskStatus status = taskManagementService.getTaskStatus(result.getTaskId());
+                String cancelled = status != null && "COMPLETED".equals(status.getStatus()) ? cancelledNodes(status) : null;
+                if (cancelled != null) {
+                    finish(failed(result, "部署任务在节点 " + cancelled + " 上被取消"), completed);
+                } else if (status != null && "COMPLETED".equals(status.getStatus())) {
+                    finish(result, completed);
+                } else if (status != null && "FAILED".equals(status.getStatus())) {
+                    finish(failed(result, "部署任务失败: "
+                            + (status.getErrorMessage() != null ? status.getErrorMessage() : result.getTaskId())), completed);
+                } else if (System.currentTimeMillis() >= deadline) {
+                    finish(failed(result, "等待部署任务 " + result.getTaskId() + " 完成超时(" + readyTimeoutMillis + "ms)"), completed);
+                } else {
+                    scheduleReadyCheck(result, deadline, completed);
+                }
+            } catch (Exception e) {
+                finish(failed(result, "检查部署任务状态失败: " + e.getMessage()), completed);
+            }
+        };
+        try {
+            readyChecker.schedule(check, readyPollIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            finish(failed(result, "编排器已关闭"), completed);
+        }
+    }
+
+    /**
+     * 任务状态汇总时被取消的节点也算作已结束，任务仍为COMPLETED；这些节点上服务没有启动，下游服务不能放行
+     */
+    private static String cancelledNodes(TaskStatus status) {
+        List<String> cancelled = new ArrayList<>();
+        if (status.getNodeResults() != null) {
+            for (Map.Entry<String, String> entry : status.getNodeResults().entrySet()) {
+                if ("CANCELLED".equals(entry.getValue())) {
+                    cancelled.add(entry.getKey());
+                }
+            }
+        }
+        return cancelled.isEmpty() ? null : String.join(",", cancelled);
+    }
+
+    private static ServiceDeployResult failed(ServiceDeployResult result, String message) {
+        result.setStatus("FAILED");
+        result.setMessage(message);
+        return result;
+    }
+
+    /**
+     * 处理耗时包含等待部署任务完成的时间
+     */
+    private static void finish(ServiceDeployResult result, BlockingQueue<ServiceDeployResult> completed) {
+        result.setDurationMillis(System.currentTimeMillis() - result.getStartTime());
+        completed.add(result);
+    }
+
+    private void record(Map<String, ServiceDeployResult> finished, ServiceDeployResult result, int total) {
+        finished.put(result.getServiceName(), result);
+        System.out.println("DeployOrchestrator: [" + finished.size() + "/" + total + "] 服务 "
+                + result.getServiceName() + " " + result.getStatus()
+                + "，等待 " + result.getWaitMillis() + "ms，耗时 " + result.getDurationMillis() + "ms"
+                + (result.getMessage() != null ? "，" + result.getMessage() : ""));
+    }
+
+    /**
+     * 依赖未就绪，跳过所有直接和间接下游服务
+     */
+    private void skipDependents(String serviceName, Map<String, List<String>> dependents,
+            Map<String, ServiceDeployResult> finished, int total) {
+        Deque<String> pending = new ArrayDeque<>();
+        pending.push(serviceName);
+        while (!pending.isEmpty()) {
+            String current = pending.pop();
+            for (String dependent : dependents.getOrDefault(current, Collections.emptyList())) {
+                if (!finished.containsKey(dependent)) {
+                    record(finished, ServiceDeployResult.skipped(dependent, "依赖服务 " + current + " 未就绪"), total);
+                    pending.push(dependent);
+                }
+            }
+        }
+    }
+
+    /**
+     * 拓扑排序检查依赖是否成环，成环时整批拒绝
+     */
+    private void checkAcyclic(Map<String, List<String>> prerequisites, Map<String, List<String>> dependents) {
+        Map<String, Integer> inDegree = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, List<String>> entry : prerequisites.entrySet()) {
+            inDegree.put(entry.getKey(), entry.getValue().size());
+            if (entry.getValue().isEmpty()) {
+                ready.add(entry.getKey());
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            String current = ready.poll();
+            visited++;
+            for (String dependent : dependents.getOrDefault(current, Collections.emptyList())) {
+                if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited < prerequisites.size()) {
+            List<String> cyclic = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : inDegree.entrySet()) {
+                if (entry.getValue() > 0) {
+                    cyclic.add(entry.getKey());
+                }
+            }
+            throw new RuntimeException("服务依赖存在循环: " + cyclic);
+        }
+    }
+
+    /**
+     * 关键路径：沿依赖链累加各服务的处理耗时，取耗时最长的一条
+     */
+    private void fillCriticalPath(BatchDeployResult batchResult, Map<String, List<String>> prerequisites,
+            Map<String, ServiceDeployResult> finished) {
+        Map<String, Long> pathMillis = new HashMap<>();
+        Map<String, String> previous = new HashMap<>();
+        String last = null;
+        // finished 按完成顺序排列，依赖总是先于下游完成
+        for (ServiceDeployResult result : finished.values()) {
+            String serviceName = result.getServiceName();
+            long longest = 0;
+            for (String dependency : prerequisites.get(serviceName)) {
+                Long dependencyMillis = pathMillis.get(dependency);
+                if (dependencyMillis != null && dependencyMillis > longest) {
+                    longest = dependencyMillis;
+                    previous.put(serviceName, dependency);
+                }
+            }
+            pathMillis.put(serviceName, longest + result.getDurationMillis());
+            if (last == null || pathMillis.get(serviceName) > pathMillis.get(last)) {
+                last = serviceName;
+            }
+        }
+
+        List<String> criticalPath = new ArrayList<>();
+        for (String current = last; current != null; current = previous.get(current)) {
+            criticalPath.add(0, current);
+        }
+        batchResult.setCriticalPath(criticalPath);
+        batchResult.setCriticalPathMillis(last != null ? pathMillis.get(last) : 0);
+    }
+}
@@ -1,16 +1,19 @@
 package com.redis.jedis.service;
 
-import com.alibaba.fastjson.JSON;
 import com.redis.jedis.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import com.redis.jedis.util.RedisBatch;
 import com.redis.jedis.util.RedisClient;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 部署服务
@@ -28,9 +31,15 @@ public class DeployService {
     @Autowired
     private TaskManagementService taskManagementService;
 
+    @Autowired
+    private TaskBus taskBus;
+
     @Autowired
     private RollbackService rollbackService;
 
+    @Autowired
+    private DeployOrchestrator deployOrchestrator;
+
     @Autowired
     private GitService gitService;
 
@@ -40,6 +49,12 @@ public class DeployService {
     @Autowired
     private DirectoryService directoryService;
 
+    @Autowired
+    private ArtifactStoreService artifactStoreService;
+
+    @Autowired
+    private JarDeltaService jarDeltaService;
+
     @Autowired
     private LogService logService;
 
@@ -126,9 +141,10 @@ public class DeployService {
             // 确保分发目录存在
             java.nio.file.Files.createDirectories(java.nio.file.Paths.get(distributePath));
 
-            Files.copy(java.nio.file.Paths.get(jarPath), java.nio.file.Paths.get(targetJarPath),
-                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-            System.out.println("JAR文件复制成功");
+            // 存入制品库，内容未变化时不会重复复制
+            String digest = artifactStoreService.store(java.nio.file.Paths.get(jarPath));
+            artifactStoreService.publish(digest, java.nio.file.Paths.get(targetJarPath));
+            System.out.println("JAR文件发布成功，摘要: " + digest);
 
             // 步骤6: 更新服务配置中的JAR路径
             System.out.println("步骤6: 更新服务配置...");
@@ -176,7 +192,8 @@ public class DeployService {
             String distributePath = directoryService.getProjectDistributePath(projectName);
             String targetJarPath = Paths.get(distributePath, Paths.get(jarPath).getFileName().toString()).toString();
 
-            Files.copy(Paths.get(jarPath), Paths.get(targetJarPath), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            String digest = artifactStoreService.store(Paths.get(jarPath));
+            artifactStoreService.publish(digest, Paths.get(targetJarPath));
 
             // 记录构建日志
             logBuildInfo(projectName, gitUrl, branch, targetJarPath, buildResult.getDuration());
@@ -234,21 +251,108 @@ public class DeployService {
                 throw new RuntimeException("JAR文件不存在: " + request.getJarPath());
             }
 
-            // 选择分发方式
-            long fileSize = new java.io.File(request.getJarPath()).length();
-            String distributionMethod = fileDistributionService.selectDistributionMethod(fileSize);
+            // 存入制品库，按内容摘要去重
+            String digest = artifactStoreService.store(Paths.get(request.getJarPath()));
+            long fileSize = Files.size(artifactStoreService.resolve(digest));
+
+            // 只向本地没有该制品的节点分发
+            List<String> missingNodes = fileDistributionService.findNodesMissingArtifact(digest, request.getTargetNodes());
+
+            // 节点缓存了当前版本时改为分发差量包，其余节点分发完整制品
+            Map<String, String> deltaArtifacts = new HashMap<>();
+            List<String> deltaNodes = new ArrayList<>();
+            List<String> fullNodes = new ArrayList<>();
+            for (String nodeId : missingNodes) {
+                String base = jarDeltaService.findDeltaBase(nodeId, request.getServiceName(), digest);
+                String delta = base != null ? deltaArtifacts.get(base) : null;
+                if (base != null && delta == null) {
+                    delta = jarDeltaService.createDelta(base, digest);
+                }
+                if (delta != null) {
+                    deltaArtifacts.put(base, delta);
+                    deltaNodes.add(nodeId);
+                } else {
+                    fullNodes.add(nodeId);
+                }
+            }
+            TransferStats deltaStats = new TransferStats();
+            for (String delta : deltaArtifacts.values()) {
+                fileDistributionService.distributeFile(delta, delta, deltaNodes, "redis", deltaStats);
+            }
+
+            TransferStats distributionStats = new TransferStats();
+            String distributionMethod;
+            String distributionResult;
+            Map<String, DistributionChoice> distributionPlan = null;
+            Map<String, String> nodeMethods = null;
+            Map<String, String> methodSources = null;
+            if (missingNodes.isEmpty()) {
+                System.out.println("所有目标节点已缓存制品 " + digest + "，跳过文件分发");
+                distributionMethod = "cached";
+                distributionResult = Paths.get(request.getJarPath()).getFileName().toString();
+            } else if (fullNodes.isEmpty()) {
+                System.out.println("所有待分发节点均使用差量包，完整制品仅作为HTTP回退");
+                distributionMethod = "delta";
+                distributionResult = fileDistributionService.distributeFile(
+                        request.getJarPath(), digest, deltaNodes, distributionMethod);
+            } else {
+                // 按各节点的历史传输指标选择分发方式，同一次部署中不同节点可使用不同方式
+                distributionPlan = fileDistributionService.planDistribution(digest, fileSize, fullNodes);
+                Map<String, List<String>> nodesByMethod = new LinkedHashMap<>();
+                for (Map.Entry<String, DistributionChoice> entry : distributionPlan.entrySet()) {
+                    nodesByMethod.computeIfAbsent(entry.getValue().getMethod(), k -> new ArrayList<>()).add(entry.getKey());
+                }
 
-            // 分发文件
-            String distributionResult = fileDistributionService.distributeFile(
-                    request.getJarPath(),
-                    request.getTargetNodes(),
-                    distributionMethod);
+                // 分发文件，节点最多的方式作为任务的默认分发方式
+                methodSources = new HashMap<>();
+                distributionMethod = null;
+                for (Map.Entry<String, List<String>> group : nodesByMethod.entrySet()) {
+                    methodSources.put(group.getKey(), fileDistributionService.distributeFile(
+                            request.getJarPath(),
+                            digest,
+                            group.getValue(),
+                            group.getKey(),
+                            distributionStats));
+                    if (distributionMethod == null
+                            || group.getValue().size() > nodesByMethod.get(distributionMethod).size()) {
+                        distributionMethod = group.getKey();
+                    }
+                }
+                distributionResult = methodSources.get(distributionMethod);
+                if (nodesByMethod.size() > 1) {
+                    nodeMethods = new HashMap<>();
+                    for (Map.Entry<String, DistributionChoice> entry : distributionPlan.entrySet()) {
+                        nodeMethods.put(entry.getKey(), entry.getValue().getMethod());
+                    }
+                } else {
+                    methodSources = null;
+                }
+            }
 
             // 创建部署任务
-            String taskId = createDeployTask(request, distributionResult, distributionMethod);
+            DeployTask task = createDeployTask(request, distributionResult, distributionMethod, digest, fileSize,
+                    "p2p".equals(distributionMethod) ? fileDistributionService.buildFanoutPlan(fullNodes) : null,
+                    deltaArtifacts.isEmpty() ? null : deltaArtifacts, nodeMethods, methodSources);
+            String taskId = task.getTaskId();
+
+            // 任务状态、分发计划、传输统计和各节点的投递命令合并为一次批量写入，以管道发送
+            RedisBatch batch = new RedisBatch();
+            taskManagementService.storeTask(task, batch);
+            if (distributionPlan != null) {
+                taskManagementService.recordDistributionPlan(taskId, distributionPlan, batch);
+            }
+
+            // 记录Master端的压缩率和吞吐量（仅Redis分发由Master推送数据）
+            if (distributionStats.getMethod() != null) {
+                taskManagementService.recordTransferStats(taskId, "master", distributionStats, batch);
+            }
+            if (deltaStats.getMethod() != null) {
+                deltaStats.setMethod("delta");
+                taskManagementService.recordTransferStats(taskId, "master-delta", deltaStats, batch);
+            }
 
             // 发送任务到Agent节点
-            sendTaskToAgents(taskId, request.getTargetNodes());
+            sendTaskToAgents(task, request.getTargetNodes(), batch);
 
             return taskId;
 
@@ -268,6 +372,28 @@ public class DeployService {
         }
     }
 
+    /**
+     * 分页获取最近的任务状态
+     */
+    public List<TaskStatus> getRecentTasks(int page, int size) {
+        try {
+            return taskManagementService.getRecentTaskStatus(page, size);
+        } catch (Exception e) {
+            throw new RuntimeException("获取最近任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取节点已领取但尚未确认的任务
+     */
+    public List<PendingTask> getPendingTasks(String nodeId) {
+        try {
+            return taskBus.inspectPending(nodeId);
+        } catch (Exception e) {
+            throw new RuntimeException("获取待确认任务失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取服务列表
      */
@@ -305,6 +431,8 @@ public class DeployService {
                     service.setJarPath(configService.getJarPath());
                     service.setTargetNodes(configService.getTargetNodes());
                     service.setDescription(configService.getDescription());
+                    service.setHealthCheckUrl(configService.getHealthCheckUrl());
+                    service.setDependsOn(configService.getDependsOn());
                     services.add(service);
 
                     System.out.println("    ✓ 服务转换完成");
@@ -335,6 +463,7 @@ public class DeployService {
 
     /**
      * 批量部署所有服务
+     * 各服务由 DeployOrchestrator 按依赖关系并发分发和创建任务
      */
     public BatchDeployResult deployAllServices(BatchDeployRequest request) {
         System.out.println("=== 开始批量部署所有服务 ===");
@@ -346,8 +475,10 @@ public class DeployService {
             List<ServiceInfo> services = getAvailableServices();
             System.out.println("找到 " + services.size() + " 个服务配置:");
 
+            Map<String, ServiceInfo> servicesByName = new LinkedHashMap<>();
             for (int i = 0; i < services.size(); i++) {
                 ServiceInfo service = services.get(i);
+                servicesByName.put(service.getName(), service);
                 System.out.println("  服务" + (i + 1) + ": " + service.getName());
                 System.out.println("    - JAR路径: " + service.getJarPath());
                 System.out.println("    - 目标节点: " + service.getTargetNodes());
@@ -358,98 +489,33 @@ public class DeployService {
                 System.out.println("警告: 没有找到任何服务配置，请检查application.yml中的services配置");
             }
 
-            List<String> taskIds = new ArrayList<>();
-            List<String> skippedServices = new ArrayList<>();
-            List<String> failedServices = new ArrayList<>();
-
-            System.out.println("步骤2: 开始逐个部署服务...");
-            for (int i = 0; i < services.size(); i++) {
-                ServiceInfo service = services.get(i);
-                System.out.println("处理服务 " + (i + 1) + "/" + services.size() + ": " + service.getName());
-
-                try {
-                    // 检查JAR文件是否存在
-                    System.out.println("  检查JAR文件: " + service.getJarPath());
-                    if (!new java.io.File(service.getJarPath()).exists()) {
-                        System.out.println("  ✗ JAR文件不存在，跳过部署");
-                        skippedServices.add(service.getName() + " (JAR文件不存在)");
-                        continue;
-                    }
-                    System.out.println("  ✓ JAR文件存在");
-
-                    // 检查目标节点
-                    if (service.getTargetNodes() == null || service.getTargetNodes().isEmpty()) {
-                        System.out.println("  ✗ 目标节点为空，跳过部署");
-                        skippedServices.add(service.getName() + " (目标节点为空)");
-                        continue;
-                    }
-                    System.out.println("  ✓ 目标节点: " + service.getTargetNodes());
-
-                    // 创建部署请求
-                    System.out.println("  创建部署请求...");
-                    DeployRequest deployRequest = new DeployRequest();
-                    deployRequest.setServiceName(service.getName());
-                    deployRequest.setJarPath(service.getJarPath());
-                    deployRequest.setTargetNodes(service.getTargetNodes());
-                    deployRequest.setForceDeploy(request != null ? request.isForceDeploy() : false);
-                    deployRequest.setDeployMode(request != null ? request.getDeployMode() : null);
-                    deployRequest.setOperator(request != null ? request.getOperator() : null);
-
-                    System.out.println("  部署请求详情:");
-                    System.out.println("    - 服务名: " + deployRequest.getServiceName());
-                    System.out.println("    - JAR路径: " + deployRequest.getJarPath());
-                    System.out.println("    - 目标节点: " + deployRequest.getTargetNodes());
-                    System.out.println("    - 强制部署: " + deployRequest.isForceDeploy());
-                    System.out.println("    - 部署模式: " + deployRequest.getDeployMode());
-                    System.out.println("    - 操作员: " + deployRequest.getOperator());
-
-                    // 部署服务
-                    System.out.println("  开始部署服务...");
-                    String taskId = deployService(deployRequest);
-                    taskIds.add(taskId);
-                    System.out.println("  ✓ 部署任务创建成功，任务ID: " + taskId);
-
-                } catch (Exception e) {
-                    // 记录错误但继续处理其他服务
-                    System.err.println("  ✗ 部署服务 " + service.getName() + " 失败: " + e.getMessage());
-                    e.printStackTrace();
-                    failedServices.add(service.getName() + " (" + e.getMessage() + ")");
-                }
+            System.out.println("步骤2: 按依赖关系并发部署服务...");
+            Map<String, List<String>> dependencies = new LinkedHashMap<>();
+            for (ServiceInfo service : servicesByName.values()) {
+                dependencies.put(service.getName(), service.getDependsOn());
             }
+            BatchDeployResult result = deployOrchestrator.run(dependencies,
+                    serviceName -> deployConfiguredService(servicesByName.get(serviceName),
+                            request != null ? request.isForceDeploy() : false,
+                            request != null ? request.getDeployMode() : null,
+                            request != null ? request.getOperator() : null));
+            result.setTotalServices(services.size());
+            result.setStatus(batchStatus("批量部署", result));
+            result.setOperator(request != null ? request.getOperator() : null);
+            List<ServiceDeployResult> serviceResults = result.getServiceResults();
 
             System.out.println("步骤3: 汇总部署结果...");
             System.out.println("  总服务数: " + services.size());
-            System.out.println("  成功创建任务数: " + taskIds.size());
-            System.out.println("  跳过服务数: " + skippedServices.size());
-            System.out.println("  失败服务数: " + failedServices.size());
-
-            if (!skippedServices.isEmpty()) {
-                System.out.println("  跳过的服务:");
-                for (String skipped : skippedServices) {
-                    System.out.println("    - " + skipped);
-                }
-            }
-
-            if (!failedServices.isEmpty()) {
-                System.out.println("  失败的服务:");
-                for (String failed : failedServices) {
-                    System.out.println("    - " + failed);
-                }
-            }
-
-            if (!taskIds.isEmpty()) {
-                System.out.println("  创建的任务ID:");
-                for (String taskId : taskIds) {
-                    System.out.println("    - " + taskId);
+            System.out.println("  成功创建任务数: " + result.getTaskIds().size());
+            System.out.println("  总耗时: " + result.getDurationMillis() + "ms");
+            System.out.println("  关键路径: " + result.getCriticalPath() + "，耗时: " + result.getCriticalPathMillis() + "ms");
+            for (ServiceDeployResult serviceResult : serviceResults) {
+                if (!"SUCCESS".equals(serviceResult.getStatus())) {
+                    System.out.println("  " + serviceResult.getStatus() + ": " + serviceResult.getServiceName()
+                            + " (" + serviceResult.getMessage() + ")");
                 }
             }
 
-            BatchDeployResult result = new BatchDeployResult();
-            result.setTotalServices(services.size());
-            result.setTaskIds(taskIds);
-            result.setStatus("批量部署任务已创建");
-            result.setOperator(request != null ? request.getOperator() : null);
-
             System.out.println("=== 批量部署处理完成 ===");
             return result;
 
@@ -463,48 +529,28 @@ public class DeployService {
 
     /**
      * 部署选定服务
+     * 各服务由 DeployOrchestrator 按依赖关系并发分发和创建任务
      */
     public BatchDeployResult deploySelectedServices(SelectedDeployRequest request) {
         try {
             List<String> serviceNames = request.getServiceNames();
-            List<String> taskIds = new ArrayList<>();
 
+            Map<String, List<String>> dependencies = new LinkedHashMap<>();
             for (String serviceName : serviceNames) {
-                try {
-                    // 查找服务配置
-                    ServiceInfo service = findServiceByName(serviceName);
-                    if (service == null) {
-                        continue; // 跳过不存在的服务
-                    }
-
-                    // 检查JAR文件是否存在
-                    if (!new java.io.File(service.getJarPath()).exists()) {
-                        continue; // 跳过不存在的服务
-                    }
-
-                    // 创建部署请求
-                    DeployRequest deployRequest = new DeployRequest();
-                    deployRequest.setServiceName(service.getName());
-                    deployRequest.setJarPath(service.getJarPath());
-                    deployRequest.setTargetNodes(service.getTargetNodes());
-                    deployRequest.setForceDeploy(request != null ? request.isForceDeploy() : false);
-                    deployRequest.setDeployMode(request != null ? request.getDeployMode() : null);
-                    deployRequest.setOperator(request != null ? request.getOperator() : null);
-
-                    // 部署服务
-                    String taskId = deployService(deployRequest);
-                    taskIds.add(taskId);
-
-                } catch (Exception e) {
-                    // 记录错误但继续处理其他服务
-                    System.err.println("部署服务 " + serviceName + " 失败: " + e.getMessage());
-                }
+                ServiceInfo service = findServiceByName(serviceName);
+                dependencies.put(serviceName, service != null ? service.getDependsOn() : null);
             }
-
-            BatchDeployResult result = new BatchDeployResult();
+            BatchDeployResult result = deployOrchestrator.run(dependencies, serviceName -> {
+                // 查找服务配置
+                ServiceInfo service = findServiceByName(serviceName);
+                if (service == null) {
+                    return ServiceDeployResult.skipped(serviceName, "服务配置不存在");
+                }
+                return deployConfiguredService(service, request.isForceDeploy(), request.getDeployMode(),
+                        request.getOperator());
+            });
             result.setTotalServices(serviceNames.size());
-            result.setTaskIds(taskIds);
-            result.setStatus("选定服务部署任务已创建");
+            result.setStatus(batchStatus("选定服务部署", result));
             result.setOperator(request.getOperator());
 
             return result;
@@ -514,6 +560,52 @@ public class DeployService {
         }
     }
 
+    /**
+     * 按各服务的处理结果给出整批状态：编排器在整批处理结束后才返回，被依赖的服务已等到部署任务在全部目标节点完成
+     */
+    private String batchStatus(String prefix, BatchDeployResult result) {
+        int succeeded = 0;
+        for (ServiceDeployResult serviceResult : result.getServiceResults()) {
+            if ("SUCCESS".equals(serviceResult.getStatus())) {
+                succeeded++;
+            }
+        }
+        if (succeeded == result.getServiceResults().size()) {
+            return prefix + "已完成";
+        }
+        return prefix + (succeeded > 0 ? "部分失败" : "失败");
+    }
+
+    /**
+     * 部署一个已配置的服务：检查JAR文件和目标节点后分发文件并创建任务，在编排器线程中执行
+     */
+    private ServiceDeployResult deployConfiguredService(ServiceInfo service, boolean forceDeploy, String deployMode,
+            String operator) {
+        // 检查JAR文件是否存在
+        if (!new java.io.File(service.getJarPath()).exists()) {
+            return ServiceDeployResult.skipped(service.getName(), "JAR文件不存在");
+        }
+
+        // 检查目标节点
+        if (service.getTargetNodes() == null || service.getTargetNodes().isEmpty()) {
+            return ServiceDeployResult.skipped(service.getName(), "目标节点为空");
+        }
+
+        // 创建部署请求
+        DeployRequest deployRequest = new DeployRequest();
+        deployRequest.setServiceName(service.getName());
+        deployRequest.setJarPath(service.getJarPath());
+        deployRequest.setTargetNodes(service.getTargetNodes());
+        deployRequest.setForceDeploy(forceDeploy);
+        deployRequest.setDeployMode(deployMode);
+        deployRequest.setOperator(operator);
+        deployRequest.setHealthCheckUrl(service.getHealthCheckUrl());
+
+        // 部署服务
+        String taskId = deployService(deployRequest);
+        return ServiceDeployResult.success(service.getName(), taskId);
+    }
+
     /**
      * 获取批量部署状态
      */
@@ -646,36 +738,38 @@ public class DeployService {
     /**
      * 创建部署任务
      */
-    private String createDeployTask(DeployRequest request, String distributionResult, String distributionMethod) {
+    private DeployTask createDeployTask(DeployRequest request, String distributionResult, String distributionMethod,
+            String fileChecksum, long fileSize, Map<String, String> fanoutSources, Map<String, String> deltaArtifacts,
+            Map<String, String> nodeMethods, Map<String, String> methodSources) {
         String taskId = "deploy_" + request.getServiceName() + "_" + System.currentTimeMillis();
 
         DeployTask task = new DeployTask();
         task.setTaskId(taskId);
+        task.setIdempotencyKey(taskId);
         task.setServiceName(request.getServiceName());
         task.setAction("DEPLOY");
         task.setDistributionMethod(distributionMethod);
         task.setFilePath(distributionResult);
+        task.setFileChecksum(fileChecksum);
+        task.setFileSize(fileSize);
+        task.setFanoutSources(fanoutSources);
+        task.setDeltaArtifacts(deltaArtifacts);
+        task.setNodeMethods(nodeMethods);
+        task.setMethodSources(methodSources);
         task.setTargetNodes(request.getTargetNodes());
         task.setOperator(request.getOperator());
+        task.setHealthCheckUrl(request.getHealthCheckUrl());
 
-        // 存储任务到Redis
-        taskManagementService.storeTask(task);
-
-        return taskId;
+        return task;
     }
 
     /**
-     * 发送任务到Agent节点
+     * 发送任务到Agent节点，与任务状态的初始化一起提交
      */
-    private void sendTaskToAgents(String taskId, List<String> targetNodes) {
+    private void sendTaskToAgents(DeployTask task, List<String> targetNodes, RedisBatch batch) {
         try {
-            DeployTask task = taskManagementService.getTask(taskId);
-            if (task != null) {
-                for (String nodeId : targetNodes) {
-                    String taskJson = JSON.toJSONString(task);
-                    jedisCluster.lpush("task:queue:" + nodeId, taskJson);
-                }
-            }
+            taskBus.publish(task, targetNodes, batch);
+            jedisCluster.execute(batch);
         } catch (Exception e) {
             throw new RuntimeException("发送任务到Agent节点失败: " + e.getMessage());
         }
@@ -1,19 +1,36 @@
 package com.redis.jedis.service;
 
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DistributionChoice;
+import com.redis.jedis.dto.LinkMetrics;
+import com.redis.jedis.dto.TransferStats;
+import com.redis.jedis.util.CompressionCodec;
+import com.redis.jedis.util.CountingOutputStream;
+import com.redis.jedis.util.RedisBatch;
 import com.redis.jedis.util.RedisClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.Base64;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 文件分发服务
@@ -28,41 +45,188 @@ public class FileDistributionService {
     @Value("${deploy.jar-deploy-dir}")
     private String deployDir;
     
-    @Value("${deploy.file-transfer.max-file-size:524288000}")
-    private long maxFileSize; // 500MB
-    
     @Value("${deploy.file-transfer.use-shared-dir:true}")
     private boolean useSharedDir;
     
+    @Value("${deploy.file-transfer.redis-chunk-size:1048576}")
+    private int redisChunkSize; // 1MB
+    
+    @Value("${deploy.file-transfer.p2p.enabled:true}")
+    private boolean p2pEnabled;
+    
+    @Value("${deploy.file-transfer.p2p.min-nodes:4}")
+    private int p2pMinNodes;
+    
+    @Value("${deploy.file-transfer.p2p.fanout-degree:2}")
+    private int fanoutDegree;
+    
+    @Value("${file-distribution.http-server.base-url:http://localhost:${server.port:8080}}")
+    private String downloadBaseUrl;
+    
+    @Value("${deploy.file-transfer.adaptive.redis-max-size:52428800}")
+    private long redisMaxSize; // 50MB
+    
+    @Value("${deploy.file-transfer.compression.redis-codec:lz4}")
+    private String redisCodec;
+    
+    @Value("${deploy.file-transfer.compression.http-codecs:zstd,lz4,gzip}")
+    private String httpCodecs;
+    
+    @Value("${deploy.file-transfer.compression.min-saving:0.05}")
+    private double minSaving;
+    
+    @Value("${deploy.file-transfer.compression.sample-size:4194304}")
+    private int sampleSize;
+    
     @Autowired
     private RedisClient jedisCluster;
     
+    @Autowired
+    private ArtifactStoreService artifactStoreService;
+    
+    @Autowired
+    private TransferMetricsService transferMetricsService;
+    
+    private static final String REDIS_CHUNK_SCHEME = "redis-chunk://";
+    private static final String REDIS_CHUNK_PREFIX = "file:chunk:";
+    private static final String REDIS_CHUNK_META_PREFIX = "file:meta:";
+    private static final int REDIS_FILE_TTL = 3600; // 1小时
+    private static final String AGENT_ARTIFACTS_PREFIX = "agent:artifacts:";
+    
+    // 制品摘要:编解码器 -> 采样压缩是否值得
+    private final Map<String, Boolean> compressibleCache = new ConcurrentHashMap<>();
+    
     /**
-     * 选择文件分发方式
-     * 根据文件大小选择合适的分发方式
+     * 为每个目标节点选择分发方式
+     * 按各节点的历史吞吐量和延迟预测 redis、shared-storage、http 的耗时，选择预测最快的方式，同一次部署中不同节点可使用不同方式；
+     * Redis分块需要先由Master推送，尚未推送时预测耗时计入推送时间。
+     * 大文件分发到较多节点时使用树形P2P分发，预测耗时按节点在分发树中的层数估算
+     *
+     * @return 节点ID -> 选定的分发方式及预测耗时，顺序与 nodes 一致
      */
-    public String selectDistributionMethod(long fileSize) {
-        if (fileSize < 52428800) { // 50MB以下
-            return "redis";
-        } else if (fileSize < maxFileSize && useSharedDir) { // 50MB-500MB，使用共享存储
-            return "shared-storage";
-        } else { // 500MB以上，使用HTTP
-            return "http";
+    public Map<String, DistributionChoice> planDistribution(String digest, long fileSize, List<String> nodes) {
+        Map<String, DistributionChoice> plan = new LinkedHashMap<>();
+        if (p2pEnabled && nodes.size() >= p2pMinNodes && fileSize > redisMaxSize) {
+            Map<String, String> fanoutPlan = buildFanoutPlan(nodes);
+            Map<String, LinkMetrics> metrics = transferMetricsService.getMetrics(nodes, Collections.singletonList("http"));
+            for (String nodeId : nodes) {
+                DistributionChoice http = transferMetricsService.predict(metrics.get(nodeId + ":http"), "http", fileSize);
+                int depth = 0;
+                for (String parent = fanoutPlan.get(nodeId); parent != null; parent = fanoutPlan.get(parent)) {
+                    depth++;
+                }
+                plan.put(nodeId, new DistributionChoice("p2p", http.getPredictedMillis() * (depth + 1), http.isMeasured()));
+            }
+            return plan;
+        }
+        
+        long pushMillis = 0;
+        boolean pushMeasured = true;
+        if (fileSize <= redisMaxSize && jedisCluster.get(REDIS_CHUNK_META_PREFIX + digest) == null) {
+            DistributionChoice push = transferMetricsService.predict(TransferMetricsService.MASTER_NODE, "redis", fileSize);
+            pushMillis = push.getPredictedMillis();
+            pushMeasured = push.isMeasured();
+        }
+        
+        // 所有节点各方式的历史指标一次读取
+        List<String> methods = candidateMethods(fileSize);
+        Map<String, LinkMetrics> metrics = transferMetricsService.getMetrics(nodes, methods);
+        for (String nodeId : nodes) {
+            DistributionChoice best = null;
+            for (String method : methods) {
+                DistributionChoice choice = transferMetricsService.predict(metrics.get(nodeId + ":" + method), method, fileSize);
+                if ("redis".equals(method)) {
+                    choice = new DistributionChoice(method, choice.getPredictedMillis() + pushMillis,
+                            choice.isMeasured() && pushMeasured);
+                }
+                if (best == null || choice.getPredictedMillis() < best.getPredictedMillis()) {
+                    best = choice;
+                }
+            }
+            plan.put(nodeId, best);
         }
+        System.out.println("FileDistribution: 分发计划 " + plan);
+        return plan;
     }
     
     /**
-     * 分发文件到目标节点
+     * 可选的分发方式：Redis分块需占用Redis内存，仅用于不超过 redis-max-size 的文件
      */
-    public String distributeFile(String filePath, List<String> targetNodes, String method) {
+    private List<String> candidateMethods(long fileSize) {
+        List<String> methods = new ArrayList<>();
+        if (fileSize <= redisMaxSize) {
+            methods.add("redis");
+        }
+        if (useSharedDir) {
+            methods.add("shared-storage");
+        }
+        methods.add("http");
+        return methods;
+    }
+    
+    /**
+     * 生成树形分发计划
+     * 前 fanoutDegree 个节点直接从Master下载，其余节点 i 从节点 (i / fanoutDegree - 1) 下载，
+     * 每个节点最多服务 fanoutDegree 个下游，整体耗时随节点数按对数增长
+     *
+     * @return 节点ID -> 上游节点ID，直接从Master下载的节点不在其中
+     */
+    public Map<String, String> buildFanoutPlan(List<String> nodes) {
+        Map<String, String> plan = new HashMap<>();
+        for (int i = fanoutDegree; i < nodes.size(); i++) {
+            plan.put(nodes.get(i), nodes.get(i / fanoutDegree - 1));
+        }
+        return plan;
+    }
+    
+    /**
+     * 找出尚未持有指定制品的节点
+     * Agent通过 agent:artifacts:{nodeId} 集合上报本地已缓存的制品摘要
+     */
+    public List<String> findNodesMissingArtifact(String digest, List<String> targetNodes) {
+        RedisBatch batch = new RedisBatch();
+        List<RedisBatch.Reply<Boolean>> replies = new ArrayList<>();
+        for (String nodeId : targetNodes) {
+            replies.add(batch.sismember(AGENT_ARTIFACTS_PREFIX + nodeId, digest));
+        }
+        jedisCluster.execute(batch);
+        
+        List<String> missingNodes = new ArrayList<>();
+        for (int i = 0; i < targetNodes.size(); i++) {
+            if (!Boolean.TRUE.equals(replies.get(i).get())) {
+                missingNodes.add(targetNodes.get(i));
+            }
+        }
+        return missingNodes;
+    }
+    
+    /**
+     * 分发制品到目标节点
+     *
+     * @param filePath 原始JAR路径，用于确定分发后的文件名
+     * @param digest   制品摘要，文件内容从制品库读取
+     */
+    public String distributeFile(String filePath, String digest, List<String> targetNodes, String method) {
+        return distributeFile(filePath, digest, targetNodes, method, null);
+    }
+    
+    /**
+     * 分发制品到目标节点，并将Master端的压缩率和吞吐量记录到 stats（可为null）
+     */
+    public String distributeFile(String filePath, String digest, List<String> targetNodes, String method,
+                                 TransferStats stats) {
         try {
+            String fileName = Paths.get(filePath).getFileName().toString();
             switch (method) {
                 case "shared-storage":
-                    return distributeToSharedStorage(filePath, targetNodes);
+                    return distributeToSharedStorage(fileName, digest, targetNodes);
                 case "http":
-                    return distributeViaHttp(filePath, targetNodes);
+                case "p2p":
+                case "delta":
+                    // P2P分发的根节点、差量还原失败的节点同样从Master的HTTP下载接口获取
+                    return distributeViaHttp(fileName, digest, targetNodes);
                 case "redis":
-                    return distributeViaRedis(filePath, targetNodes);
+                    return distributeViaRedis(digest, targetNodes, stats);
                 default:
                     throw new IllegalArgumentException("不支持的分发方式: " + method);
             }
@@ -73,110 +237,75 @@ public class FileDistributionService {
     
     /**
      * 通过共享存储分发文件
+     * 目标路径按摘要分目录，相同内容只发布一次
      */
-    private String distributeToSharedStorage(String filePath, List<String> targetNodes) {
-        try {
-            File sourceFile = new File(filePath);
-            if (!sourceFile.exists()) {
-                throw new RuntimeException("源文件不存在: " + filePath);
-            }
-            
-            // 确保共享目录存在
-            Path sharedPath = Paths.get(sharedDir);
-            if (!Files.exists(sharedPath)) {
-                Files.createDirectories(sharedPath);
-            }
-            
-            // 复制文件到共享存储
-            String fileName = sourceFile.getName();
-            Path targetPath = sharedPath.resolve(fileName);
-            Files.copy(sourceFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // 通过Redis通知Agent节点文件已准备就绪
-            notifyAgentsFileReady(targetPath.toString(), targetNodes);
-            
-            return targetPath.toString();
-            
-        } catch (IOException e) {
-            throw new RuntimeException("共享存储分发失败: " + e.getMessage());
-        }
+    private String distributeToSharedStorage(String fileName, String digest, List<String> targetNodes) {
+        Path targetPath = Paths.get(sharedDir, digest, fileName);
+        artifactStoreService.publish(digest, targetPath);
+        
+        // 通过Redis通知Agent节点文件已准备就绪
+        notifyAgentsFileReady(targetPath.toString(), targetNodes);
+        
+        return targetPath.toString();
     }
     
     /**
      * 通过HTTP分发文件
+     * 由 ArtifactDownloadController 直接从制品库提供下载，无需复制
      */
-    private String distributeViaHttp(String filePath, List<String> targetNodes) {
-        try {
-            File sourceFile = new File(filePath);
-            if (!sourceFile.exists()) {
-                throw new RuntimeException("源文件不存在: " + filePath);
-            }
-            
-            // 确保部署目录存在
-            Path deployPath = Paths.get(deployDir);
-            if (!Files.exists(deployPath)) {
-                Files.createDirectories(deployPath);
-            }
-            
-            // 复制文件到部署目录
-            String fileName = sourceFile.getName();
-            Path targetPath = deployPath.resolve(fileName);
-            Files.copy(sourceFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // 生成HTTP下载URL
-            String downloadUrl = generateDownloadUrl(fileName);
-            
-            // 通过Redis通知Agent节点下载URL
-            notifyAgentsDownloadUrl(downloadUrl, targetNodes);
-            
-            return downloadUrl;
-            
-        } catch (IOException e) {
-            throw new RuntimeException("HTTP分发失败: " + e.getMessage());
+    private String distributeViaHttp(String fileName, String digest, List<String> targetNodes) {
+        if (!artifactStoreService.contains(digest)) {
+            throw new RuntimeException("制品不存在: " + digest);
         }
+        
+        // 生成HTTP下载URL
+        String downloadUrl = generateDownloadUrl(digest, fileName);
+        
+        // 通过Redis通知Agent节点下载URL
+        notifyAgentsDownloadUrl(downloadUrl, targetNodes);
+        
+        return downloadUrl;
     }
     
     /**
      * 通过Redis分发文件（小文件）
+     * 按固定大小切分为原始字节分块写入Redis，不做Base64编码；分块以摘要为键空间，同一制品只写一次
      */
-    private String distributeViaRedis(String filePath, List<String> targetNodes) {
-        try {
-            File sourceFile = new File(filePath);
-            if (!sourceFile.exists()) {
-                throw new RuntimeException("源文件不存在: " + filePath);
+    private String distributeViaRedis(String digest, List<String> targetNodes, TransferStats stats) {
+        if (jedisCluster.get(REDIS_CHUNK_META_PREFIX + digest) != null) {
+            System.out.println("FileDistribution: Redis中已存在制品分块，跳过发送: " + digest);
+        } else {
+            TransferStats sent = sendFileChunksToAgents(artifactStoreService.resolve(digest), digest, targetNodes);
+            transferMetricsService.record(TransferMetricsService.MASTER_NODE, "redis", sent.getOriginalSize(),
+                    sent.getDurationMillis());
+            if (stats != null) {
+                stats.setMethod(sent.getMethod());
+                stats.setCodec(sent.getCodec());
+                stats.setOriginalSize(sent.getOriginalSize());
+                stats.setTransferredSize(sent.getTransferredSize());
+                stats.setDurationMillis(sent.getDurationMillis());
             }
-            
-            // 读取文件内容
-            byte[] fileContent = Files.readAllBytes(sourceFile.toPath());
-            
-            // 通过Redis发送文件内容到Agent节点
-            sendFileToAgents(fileContent, sourceFile.getName(), targetNodes);
-            
-            return "redis://" + sourceFile.getName();
-            
-        } catch (IOException e) {
-            throw new RuntimeException("Redis分发失败: " + e.getMessage());
         }
+        
+        return REDIS_CHUNK_SCHEME + digest;
     }
     
     /**
      * 保存上传的文件
+     * 上传内容先写入制品库，再以硬链接发布到部署目录
      */
     public String saveUploadedFile(MultipartFile file) {
         try {
-            // 确保部署目录存在
-            Path deployPath = Paths.get(deployDir);
-            if (!Files.exists(deployPath)) {
-                Files.createDirectories(deployPath);
+            String digest;
+            try (InputStream inputStream = file.getInputStream()) {
+                digest = artifactStoreService.store(inputStream);
             }
             
             // 生成唯一文件名
             String originalFilename = file.getOriginalFilename();
             String fileName = generateUniqueFileName(originalFilename);
-            Path targetPath = deployPath.resolve(fileName);
-            
-            // 保存文件
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            Path targetPath = Paths.get(deployDir).resolve(fileName);
+            artifactStoreService.publish(digest, targetPath);
             
             return targetPath.toString();
             
@@ -202,43 +331,166 @@ public class FileDistributionService {
     }
     
     /**
-     * 发送文件到Agent节点
+     * 分块发送文件到Agent节点
+     * 文件顺序读取后经压缩流写入分块缓冲区，每满一块写入Redis，堆内存占用与文件大小无关
      */
-    private void sendFileToAgents(byte[] fileContent, String fileName, List<String> targetNodes) {
-        try {
-            System.out.println("FileDistribution: 开始通过Redis发送文件: " + fileName);
-            System.out.println("FileDistribution: 文件大小: " + fileContent.length + " bytes");
+    private TransferStats sendFileChunksToAgents(Path sourcePath, String artifactId, List<String> targetNodes) {
+        CompressionCodec codec = selectCodec(artifactId, CompressionCodec.fromName(redisCodec));
+        long startTime = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(sourcePath, StandardOpenOption.READ);
+             RedisChunkOutputStream chunks = new RedisChunkOutputStream(artifactId)) {
+            long fileSize = channel.size();
+            System.out.println("FileDistribution: 开始通过Redis分块发送文件: " + artifactId);
+            System.out.println("FileDistribution: 文件大小: " + fileSize + " bytes, 分块大小: " + redisChunkSize
+                    + " bytes, 压缩: " + codec.getEncoding());
             System.out.println("FileDistribution: 目标节点: " + targetNodes);
             
-            // 将文件内容编码为Base64
-            String encodedContent = Base64.getEncoder().encodeToString(fileContent);
-            System.out.println("FileDistribution: Base64编码后大小: " + encodedContent.length() + " 字符");
+            ByteBuffer buffer = ByteBuffer.allocate(redisChunkSize);
+            MessageDigest md = ArtifactStoreService.newDigest();
+            // 压缩流在自己的 try 中关闭：写出尾部数据并关闭分块流，最后一个不满的分块随之写出
+            try (OutputStream out = codec.compress(chunks)) {
+                int length;
+                while ((length = readChunk(channel, buffer)) > 0) {
+                    // 发送的同时计算摘要，不额外读取文件
+                    md.update(buffer.array(), 0, length);
+                    out.write(buffer.array(), 0, length);
+                }
+            }
             
-            // 将文件内容存储到Redis，使用文件名作为键
-            String redisKey = fileName;
-            jedisCluster.set(redisKey, encodedContent);
-            System.out.println("FileDistribution: 文件已存储到Redis，键名: " + redisKey);
+            // 制品库中的文件与摘要不一致时不写元数据，Agent不会读取到已损坏的分块
+            String actual = ArtifactStoreService.toHex(md.digest());
+            if (!actual.equals(artifactId)) {
+                throw new IOException("制品库文件已损坏，期望摘要: " + artifactId + ", 实际: " + actual);
+            }
             
-            // 设置过期时间（1小时）
-            jedisCluster.expire(redisKey, 3600);
-            System.out.println("FileDistribution: 设置Redis键过期时间: 1小时");
+            // 元数据最后写入，Agent读取到元数据即代表所有分块已就绪
+            long duration = System.currentTimeMillis() - startTime;
+            Map<String, Object> meta = new HashMap<>();
+            meta.put("artifactId", artifactId);
+            meta.put("fileSize", fileSize);
+            meta.put("chunkSize", redisChunkSize);
+            meta.put("chunkCount", chunks.getChunkCount());
+            meta.put("codec", codec.getEncoding());
+            meta.put("compressedSize", chunks.getTotalBytes());
+            meta.put("encodeMillis", duration);
+            // 元数据比分块早过期，保证元数据存在时分块一定还在
+            jedisCluster.setex(REDIS_CHUNK_META_PREFIX + artifactId, REDIS_FILE_TTL - 60, JSON.toJSONString(meta));
             
-            System.out.println("FileDistribution: 文件发送完成");
+            TransferStats stats = new TransferStats("redis", codec.getEncoding(), fileSize, chunks.getTotalBytes(), duration);
+            System.out.println("FileDistribution: 文件分块发送完成，共 " + chunks.getChunkCount() + " 块，" + stats);
+            return stats;
             
-        } catch (Exception e) {
+        } catch (IOException e) {
             System.err.println("FileDistribution: 发送文件到Agent节点失败: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("发送文件到Agent节点失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 为制品选择压缩编解码器
+     * 对文件开头采样压缩，节省比例不足 min-saving 时（如JAR内已是deflate压缩的条目）不压缩
+     */
+    public CompressionCodec selectCodec(String digest, CompressionCodec preferred) {
+        if (preferred == null || preferred == CompressionCodec.NONE) {
+            return CompressionCodec.NONE;
+        }
+        String cacheKey = digest + ":" + preferred.getEncoding();
+        Boolean compressible = compressibleCache.get(cacheKey);
+        if (compressible == null) {
+            compressible = sampleCompressible(artifactStoreService.resolve(digest), preferred);
+            compressibleCache.put(cacheKey, compressible);
+        }
+        return compressible ? preferred : CompressionCodec.NONE;
+    }
+    
+    /**
+     * 按Agent的 Accept-Encoding 协商HTTP传输的编解码器，按 http-codecs 配置的优先级选择
+     */
+    public CompressionCodec negotiateCodec(String digest, String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return CompressionCodec.NONE;
+        }
+        List<String> accepted = new ArrayList<>();
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            boolean disabled = tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (!disabled) {
+                accepted.add(tokens[0].trim().toLowerCase());
+            }
+        }
+        for (String name : httpCodecs.split(",")) {
+            CompressionCodec codec = CompressionCodec.fromName(name);
+            if (codec != null && codec != CompressionCodec.NONE && accepted.contains(codec.getEncoding())) {
+                return selectCodec(digest, codec);
+            }
+        }
+        return CompressionCodec.NONE;
+    }
+    
+    private boolean sampleCompressible(Path path, CompressionCodec codec) {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] sample = new byte[sampleSize];
+            int length = 0;
+            int read;
+            while (length < sample.length && (read = in.read(sample, length, sample.length - length)) != -1) {
+                length += read;
+            }
+            if (length == 0) {
+                return false;
+            }
+            CountingOutputStream counter = new CountingOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    // 只统计压缩后的字节数
+                }
+                
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    // 只统计压缩后的字节数
+                }
+            });
+            try (OutputStream out = codec.compress(counter)) {
+                out.write(sample, 0, length);
+            }
+            double ratio = (double) counter.getCount() / length;
+            System.out.println("FileDistribution: 制品采样压缩率(" + codec.getEncoding() + "): "
+                    + String.format("%.1f%%", ratio * 100));
+            return ratio <= 1 - minSaving;
+        } catch (IOException e) {
+            System.err.println("FileDistribution: 采样压缩失败，按不压缩处理: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * 读满一个分块，返回实际读取的字节数（0表示文件已读完）
+     */
+    private int readChunk(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+    
+    /**
+     * 分块键名
+     */
+    private String chunkKey(String artifactId, int index) {
+        return REDIS_CHUNK_PREFIX + artifactId + ":" + index;
+    }
+    
     /**
      * 生成下载URL
      */
-    private String generateDownloadUrl(String fileName) {
-        // TODO: 生成HTTP下载URL
-        // 这里先返回空字符串，后续实现
-        return "http://localhost:8080/download/" + fileName;
+    private String generateDownloadUrl(String digest, String fileName) {
+        String baseUrl = downloadBaseUrl.endsWith("/")
+                ? downloadBaseUrl.substring(0, downloadBaseUrl.length() - 1)
+                : downloadBaseUrl;
+        return baseUrl + "/download/" + digest + "/" + fileName;
     }
     
     /**
@@ -254,4 +506,69 @@ public class FileDistributionService {
         return originalFilename.substring(0, lastDotIndex > 0 ? lastDotIndex : originalFilename.length()) 
                + "_" + timestamp + extension;
     }
+    
+    /**
+     * 写入Redis分块的输出流，每满 redisChunkSize 字节写入一个分块
+     */
+    private class RedisChunkOutputStream extends OutputStream {
+        private final String artifactId;
+        private final byte[] buffer = new byte[redisChunkSize];
+        private int count;
+        private int chunkCount;
+        private long totalBytes;
+        private boolean closed;
+        
+        RedisChunkOutputStream(String artifactId) {
+            this.artifactId = artifactId;
+        }
+        
+        @Override
+        public void write(int b) {
+            buffer[count++] = (byte) b;
+            if (count == buffer.length) {
+                flushChunk();
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int length = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, length);
+                count += length;
+                off += length;
+                len -= length;
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+            }
+        }
+        
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (count > 0) {
+                    flushChunk();
+                }
+            }
+        }
+        
+        int getChunkCount() {
+            return chunkCount;
+        }
+        
+        long getTotalBytes() {
+            return totalBytes;
+        }
+        
+        private void flushChunk() {
+            // 满块直接使用缓冲区数组，只有最后一个不满的分块需要拷贝
+            byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+            jedisCluster.setex(chunkKey(artifactId, chunkCount), REDIS_FILE_TTL, chunk);
+            chunkCount++;
+            totalBytes += count;
+            count = 0;
+        }
+    }
 }
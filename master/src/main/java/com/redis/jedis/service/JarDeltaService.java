@@ -0,0 +1,327 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.DeployInfo;
+import com.redis.jedis.util.RedisClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JAR差量服务
+ * 以节点当前版本为基础，按块滚动校验（rsync算法）生成新版本的差量包
+ *
+ * 差量包格式：
+ *   int 魔数 "JDLT" | int 格式版本 | int 块大小 | long 目标文件大小
+ *   之后为若干操作：
+ *     byte 1 COPY | long 基础文件偏移 | int 长度
+ *     byte 2 DATA | int 长度 | 字节内容
+ *     byte 0 END
+ */
+@Service
+public class JarDeltaService {
+
+    @Value("${deploy.file-transfer.delta.enabled:true}")
+    private boolean deltaEnabled;
+
+    @Value("${deploy.file-transfer.delta.block-size:8192}")
+    private int blockSize;
+
+    @Value("${deploy.file-transfer.delta.max-ratio:0.5}")
+    private double maxRatio;
+
+    @Autowired
+    private ArtifactStoreService artifactStoreService;
+
+    @Autowired
+    private RedisCacheService redisCacheService;
+
+    @Autowired
+    private RedisClient jedisCluster;
+
+    public static final int DELTA_MAGIC = 0x4A444C54; // "JDLT"
+    public static final int DELTA_VERSION = 1;
+    public static final byte OP_END = 0;
+    public static final byte OP_COPY = 1;
+    public static final byte OP_DATA = 2;
+
+    private static final String AGENT_ARTIFACTS_PREFIX = "agent:artifacts:";
+
+    // 基础摘要:目标摘要 -> 差量包摘要，差量不划算时为空字符串
+    private final Map<String, String> deltaCache = new ConcurrentHashMap<>();
+
+    /**
+     * 查找节点可用作差量基础的制品摘要
+     * 需要节点上报的当前版本与目标不同、节点仍缓存该制品且Master制品库中存在
+     */
+    public String findDeltaBase(String nodeId, String serviceName, String targetDigest) {
+        if (!deltaEnabled) {
+            return null;
+        }
+        try {
+            DeployInfo current = redisCacheService.getDeployInfo(nodeId, serviceName);
+            String base = current != null ? current.getArtifactDigest() : null;
+            if (base == null || base.equals(targetDigest) || !artifactStoreService.contains(base)) {
+                return null;
+            }
+            return jedisCluster.sismember(AGENT_ARTIFACTS_PREFIX + nodeId, base) ? base : null;
+        } catch (Exception e) {
+            System.err.println("JarDelta: 查询节点 " + nodeId + " 当前版本失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 生成从基础制品到目标制品的差量包并存入制品库，返回差量包摘要
+     * 差量包超过目标大小的 max-ratio 时放弃，返回null
+     */
+    public String createDelta(String baseDigest, String targetDigest) {
+        String cacheKey = baseDigest + ":" + targetDigest;
+        String cached = deltaCache.get(cacheKey);
+        if (cached != null && (cached.isEmpty() || artifactStoreService.contains(cached))) {
+            return cached.isEmpty() ? null : cached;
+        }
+
+        Path temp = null;
+        try {
+            long start = System.currentTimeMillis();
+            Path basePath = artifactStoreService.resolve(baseDigest);
+            Path targetPath = artifactStoreService.resolve(targetDigest);
+            long targetSize = Files.size(targetPath);
+            if (Files.size(basePath) > Integer.MAX_VALUE || targetSize > Integer.MAX_VALUE) {
+                deltaCache.put(cacheKey, "");
+                return null;
+            }
+
+            temp = Files.createTempFile("jar-delta-", ".tmp");
+            long deltaSize = encode(basePath, targetPath, temp, (long) (targetSize * maxRatio));
+            if (deltaSize < 0) {
+                System.out.println("JarDelta: 差量包过大，放弃差量传输 " + baseDigest + " -> " + targetDigest);
+                deltaCache.put(cacheKey, "");
+                return null;
+            }
+
+            String deltaDigest;
+            try (InputStream in = Files.newInputStream(temp)) {
+                deltaDigest = artifactStoreService.store(in);
+            }
+            deltaCache.put(cacheKey, deltaDigest);
+            System.out.println("JarDelta: 差量包生成完成 " + baseDigest + " -> " + targetDigest
+                    + "，大小: " + deltaSize + "/" + targetSize + " bytes，耗时: "
+                    + (System.currentTimeMillis() - start) + "ms");
+            return deltaDigest;
+
+        } catch (IOException e) {
+            System.err.println("JarDelta: 生成差量包失败: " + e.getMessage());
+            return null;
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // 临时文件清理失败不影响主流程
+                }
+            }
+        }
+    }
+
+    /**
+     * 按rsync算法编码差量，返回差量包大小；超过 limit 时中止并返回-1
+     */
+    private long encode(Path basePath, Path targetPath, Path deltaPath, long limit) throws IOException {
+        try (FileChannel baseChannel = FileChannel.open(basePath, StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(targetPath, StandardOpenOption.READ);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(deltaPath), 65536))) {
+
+            MappedByteBuffer base = baseChannel.map(FileChannel.MapMode.READ_ONLY, 0, baseChannel.size());
+            MappedByteBuffer target = targetChannel.map(FileChannel.MapMode.READ_ONLY, 0, targetChannel.size());
+            int baseSize = base.limit();
+            int targetSize = target.limit();
+
+            out.writeInt(DELTA_MAGIC);
+            out.writeInt(DELTA_VERSION);
+            out.writeInt(blockSize);
+            out.writeLong(targetSize);
+
+            // 基础文件按块建立索引：弱校验 -> 块序号列表
+            int blockCount = baseSize / blockSize;
+            Map<Integer, List<Integer>> index = new HashMap<>(blockCount * 2);
+            byte[][] strong = new byte[blockCount][];
+            MessageDigest md = newMd5();
+            byte[] block = new byte[blockSize];
+            for (int i = 0; i < blockCount; i++) {
+                int offset = i * blockSize;
+                int weak = weakChecksum(base, offset, blockSize);
+                index.computeIfAbsent(weak, k -> new ArrayList<>()).add(i);
+                readBlock(base, offset, block);
+                strong[i] = md.digest(block);
+            }
+
+            DeltaWriter writer = new DeltaWriter(out, target, limit);
+            int pos = 0;
+            int literalStart = 0;
+            boolean fresh = true;
+            int a = 0;
+            int b = 0;
+            while (blockCount > 0 && pos + blockSize <= targetSize) {
+                if (fresh) {
+                    int weak = weakChecksum(target, pos, blockSize);
+                    a = weak & 0xFFFF;
+                    b = weak >>> 16;
+                    fresh = false;
+                }
+
+                List<Integer> candidates = index.get((b << 16) | a);
+                int matched = -1;
+                if (candidates != null) {
+                    readBlock(target, pos, block);
+                    byte[] hash = md.digest(block);
+                    for (int candidate : candidates) {
+                        if (Arrays.equals(hash, strong[candidate])) {
+                            matched = candidate;
+                            break;
+                        }
+                    }
+                }
+
+                if (matched >= 0) {
+                    if (!writer.data(literalStart, pos) || !writer.copy((long) matched * blockSize, blockSize)) {
+                        return -1;
+                    }
+                    pos += blockSize;
+                    literalStart = pos;
+                    fresh = true;
+                    continue;
+                }
+
+                // 滚动一个字节
+                int out0 = target.get(pos) & 0xFF;
+                if (pos + blockSize < targetSize) {
+                    int in0 = target.get(pos + blockSize) & 0xFF;
+                    a = (a - out0 + in0) & 0xFFFF;
+                    b = (b - blockSize * out0 + a) & 0xFFFF;
+                }
+                pos++;
+            }
+
+            if (!writer.data(literalStart, targetSize) || !writer.end()) {
+                return -1;
+            }
+            out.flush();
+            return writer.size();
+        }
+    }
+
+    /**
+     * rsync弱校验：低16位为字节和，高16位为加权和
+     */
+    private int weakChecksum(MappedByteBuffer buffer, int offset, int length) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < length; i++) {
+            int value = buffer.get(offset + i) & 0xFF;
+            a += value;
+            b += (length - i) * value;
+        }
+        return ((b & 0xFFFF) << 16) | (a & 0xFFFF);
+    }
+
+    private static void readBlock(MappedByteBuffer buffer, int offset, byte[] block) {
+        readBytes(buffer, offset, block, block.length);
+    }
+
+    private static void readBytes(MappedByteBuffer buffer, int offset, byte[] dest, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(dest, 0, length);
+    }
+
+    private MessageDigest newMd5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持MD5算法", e);
+        }
+    }
+
+    /**
+     * 差量操作写入器，合并相邻的COPY操作，并在超过大小上限时中止
+     */
+    private static class DeltaWriter {
+        private final DataOutputStream out;
+        private final MappedByteBuffer target;
+        private final long limit;
+        private long pendingOffset = -1;
+        private int pendingLength;
+        private final byte[] buffer = new byte[65536];
+
+        DeltaWriter(DataOutputStream out, MappedByteBuffer target, long limit) {
+            this.out = out;
+            this.target = target;
+            this.limit = limit;
+        }
+
+        boolean copy(long offset, int length) throws IOException {
+            if (pendingOffset >= 0 && pendingOffset + pendingLength == offset) {
+                pendingLength += length;
+                return true;
+            }
+            flushCopy();
+            pendingOffset = offset;
+            pendingLength = length;
+            return size() <= limit;
+        }
+
+        boolean data(int from, int to) throws IOException {
+            if (to <= from) {
+                return true;
+            }
+            flushCopy();
+            out.writeByte(OP_DATA);
+            out.writeInt(to - from);
+            for (int pos = from; pos < to; pos += buffer.length) {
+                int length = Math.min(buffer.length, to - pos);
+                readBytes(target, pos, buffer, length);
+                out.write(buffer, 0, length);
+            }
+            return size() <= limit;
+        }
+
+        boolean end() throws IOException {
+            flushCopy();
+            out.writeByte(OP_END);
+            return size() <= limit;
+        }
+
+        long size() {
+            return out.size();
+        }
+
+        private void flushCopy() throws IOException {
+            if (pendingOffset >= 0) {
+                out.writeByte(OP_COPY);
+                out.writeLong(pendingOffset);
+                out.writeInt(pendingLength);
+                pendingOffset = -1;
+            }
+        }
+    }
+}
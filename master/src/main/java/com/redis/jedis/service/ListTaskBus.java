@@ -0,0 +1,290 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.PendingTask;
+import com.redis.jedis.util.RedisBatch;
+import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.RedisScripts;
+import com.redis.jedis.util.TaskKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 列表任务总线（默认）
+ * 将任务按优先级推入节点的 task:{nodeId}:queue:rollback、task:{nodeId}:queue:control 或 task:{nodeId}:queue（部署），
+ * 随后向 task:{nodeId}:signal 推入唤醒标记（最多保留一个），并按配置在 task:notify:{nodeId} 发布通知；
+ * Agent依次检查各通道，全部为空时阻塞在唤醒标记上，推入即被取走。
+ * 回滚任务推入前，同一服务在部署通道中尚未被取走的部署任务被取消。
+ * 可靠队列模式下Agent把取出的任务原子移入 task:{nodeId}:processing，执行结束后确认删除，
+ * 并在 task:{nodeId}:lease（有序集合，分数为领取或最近心跳时间）中登记；
+ * 回收任务定期检查处理中列表，超过可见性超时仍未确认的任务重新投递。
+ * 各键以节点ID作为哈希标签（见 TaskKeys），集群模式下位于同一个槽
+ */
+@Service
+@ConditionalOnProperty(name = "deploy.task-bus.type", havingValue = "list", matchIfMissing = true)
+public class ListTaskBus implements TaskBus {
+    
+    @Autowired
+    private RedisClient jedisCluster;
+    
+    @Value("${deploy.task-notify.enabled:true}")
+    private boolean notifyEnabled;
+    
+    @Value("${deploy.task-queue.reaper.enabled:true}")
+    private boolean reaperEnabled;
+    
+    @Value("${deploy.task-queue.visibility-timeout:300}")
+    private long visibilityTimeoutSeconds;
+    
+    @Value("${deploy.task-keys.migrate-legacy:true}")
+    private boolean migrateLegacy;
+    
+    private static final String TASK_NOTIFY_PREFIX = "task:notify:";
+    private static final String NODE_LIST_KEY = "node:list";
+    private static final int SCAN_COUNT = 500;
+    
+    @Autowired
+    private TaskManagementService taskManagementService;
+    
+    @Override
+    public void publish(DeployTask task, List<String> nodeIds) {
+        RedisBatch batch = new RedisBatch();
+        publish(task, nodeIds, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    /**
+     * 推送任务到各目标节点对应优先级的队列，任务只序列化一次，推入、唤醒标记和通知都加入批量写入
+     */
+    @Override
+    public void publish(DeployTask task, List<String> nodeIds, RedisBatch batch) {
+        String taskJson = JSON.toJSONString(task);
+        int priority = TaskBus.priorityOf(task.getAction());
+        for (String nodeId : nodeIds) {
+            if ("ROLLBACK".equals(task.getAction())) {
+                cancelQueuedDeploys(nodeId, task.getServiceName(), batch);
+            }
+            batch.lpush(queueKey(nodeId, priority), taskJson);
+            signalAgent(nodeId, batch);
+            notifyAgent(nodeId, task.getTaskId(), batch);
+        }
+    }
+    
+    /**
+     * 取消节点部署通道中同一服务尚未被取走的部署任务：由脚本在同一批量中查找并移除，
+     * 批量执行后再为被取消的任务一次性记录节点结果。
+     * 已被Agent取走的任务由Agent按回滚时间自行取消
+     */
+    private void cancelQueuedDeploys(String nodeId, String serviceName, RedisBatch batch) {
+        RedisBatch.Reply<List<String>> cancelled = batch.evalForReply(RedisScripts.TASK_QUEUE_CANCEL_DEPLOYS,
+                Collections.singletonList(queueKey(nodeId, LANES.length - 1)),
+                Collections.singletonList(serviceName));
+        batch.afterExecute(() -> {
+            List<String> taskIds = cancelled.get();
+            if (taskIds == null || taskIds.isEmpty()) {
+                return;
+            }
+            RedisBatch results = new RedisBatch();
+            for (String taskId : taskIds) {
+                taskManagementService.recordNodeResult(taskId, nodeId, "CANCELLED", "已被回滚任务取消", results);
+                System.out.println("TaskQueue: 节点 " + nodeId + " 的部署任务 " + taskId + " 已被回滚任务取消");
+            }
+            jedisCluster.execute(results);
+        });
+    }
+    
+    /**
+     * 优先级对应的队列键，部署通道为 task:{nodeId}:queue
+     */
+    private String queueKey(String nodeId, int priority) {
+        return TaskKeys.queue(nodeId, priority >= LANES.length - 1 ? null : LANES[priority]);
+    }
+    
+    /**
+     * 推入唤醒标记，只保留一个：Agent在各通道都为空时阻塞等待该标记
+     */
+    private void signalAgent(String nodeId, RedisBatch batch) {
+        String signalKey = TaskKeys.signal(nodeId);
+        batch.lpush(signalKey, "1").ltrim(signalKey, 0, 0);
+    }
+    
+    /**
+     * 处理中列表里的任务即为已领取未确认的任务，空闲时间按租约计算
+     */
+    @Override
+    public List<PendingTask> inspectPending(String nodeId) {
+        List<PendingTask> pendingTasks = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String taskJson : jedisCluster.lrange(TaskKeys.processing(nodeId), 0, -1)) {
+            Double leasedAt = jedisCluster.zscore(TaskKeys.lease(nodeId), taskJson);
+            long idleMillis = leasedAt != null ? now - leasedAt.longValue() : 0;
+            String taskId = JSON.parseObject(taskJson).getString("taskId");
+            pendingTasks.add(new PendingTask(taskId, nodeId, null, idleMillis, 0));
+        }
+        return pendingTasks;
+    }
+    
+    /**
+     * 回收超时未确认的任务
+     * 超过可见性超时的租约以一次 ZRANGEBYSCORE 取出，由脚本把任务从处理中列表原子移回原优先级队列；
+     * 只有仍在处理中列表里的任务才重新投递，避免与Agent的确认同时发生时重复投递。
+     * 处理中的任务没有租约记录时（Agent移入后即崩溃）以首次发现的时间作为领取时间
+     */
+    @Scheduled(fixedDelayString = "${deploy.task-queue.reaper.interval:30000}", initialDelay = 30000)
+    public void reapExpiredTasks() {
+        if (!reaperEnabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            for (String nodeId : jedisCluster.smembers(NODE_LIST_KEY)) {
+                String leaseKey = TaskKeys.lease(nodeId);
+                Set<String> expired = jedisCluster.zrangeByScore(leaseKey, "-inf",
+                        "(" + (now - visibilityTimeoutSeconds * 1000));
+                if (!expired.isEmpty()) {
+                    redeliver(nodeId, expired);
+                }
+                syncLeases(nodeId, now);
+            }
+        } catch (Exception e) {
+            System.err.println("TaskQueue: 回收超时任务失败: " + e.getMessage());
+        }
+    }
+    
+    private void redeliver(String nodeId, Set<String> expired) {
+        String processingKey = TaskKeys.processing(nodeId);
+        String leaseKey = TaskKeys.lease(nodeId);
+        RedisBatch batch = new RedisBatch();
+        List<RedisBatch.Reply<Long>> moved = new ArrayList<>();
+        for (String taskJson : expired) {
+            // 队列从右端消费，放回原优先级队列的右端使其优先被重新处理
+            String action = JSON.parseObject(taskJson).getString("action");
+            moved.add(batch.evalForReply(RedisScripts.TASK_QUEUE_REDELIVER,
+                    Arrays.asList(processingKey, leaseKey, queueKey(nodeId, TaskBus.priorityOf(action))),
+                    Collections.singletonList(taskJson)));
+        }
+        jedisCluster.execute(batch);
+        
+        int redelivered = 0;
+        for (RedisBatch.Reply<Long> reply : moved) {
+            if (reply.get() != null && reply.get() > 0) {
+                redelivered++;
+            }
+        }
+        if (redelivered > 0) {
+            RedisBatch wakeUp = new RedisBatch();
+            signalAgent(nodeId, wakeUp);
+            notifyAgent(nodeId, null, wakeUp);
+            jedisCluster.execute(wakeUp);
+            System.out.println("TaskQueue: 节点 " + nodeId + " 的 " + redelivered + " 个任务超过可见性超时未确认，已重新投递");
+        }
+    }
+    
+    /**
+     * 为没有租约的处理中任务登记租约，并清理已确认任务残留的租约
+     * 先读租约再读处理中列表：Agent先移入任务再登记租约，租约快照中的任务此时若不在处理中列表里，只能是已被确认；
+     * 读取之后新登记的租约不在快照中，不会被误删
+     */
+    private void syncLeases(String nodeId, long now) {
+        String leaseKey = TaskKeys.lease(nodeId);
+        Set<String> leased = jedisCluster.zrange(leaseKey, 0, -1);
+        Set<String> inflight = new HashSet<>(jedisCluster.lrange(TaskKeys.processing(nodeId), 0, -1));
+        RedisBatch batch = new RedisBatch();
+        for (String taskJson : inflight) {
+            if (!leased.contains(taskJson)) {
+                batch.zaddIfAbsent(leaseKey, now, taskJson);
+            }
+        }
+        for (String taskJson : leased) {
+            if (!inflight.contains(taskJson)) {
+                batch.zrem(leaseKey, taskJson);
+            }
+        }
+        jedisCluster.execute(batch);
+    }
+    
+    /**
+     * 启动时迁移不带哈希标签的旧键 task:queue:{nodeId}[:{通道}]、task:processing:{nodeId}、task:lease:{nodeId} 和 task:signal:{nodeId}：
+     * 旧队列中的任务追加到新队列的消费端，随后把旧处理中列表的任务（旧Agent已随升级退出）放回原优先级队列，
+     * 旧租约和唤醒标记直接删除，迁移过任务的节点推入唤醒标记。
+     * 旧键与新键位于不同的槽，先写入新键再删除旧键，中途退出最多重复投递
+     */
+    @PostConstruct
+    public void migrateLegacyQueues() {
+        if (!migrateLegacy) {
+            return;
+        }
+        try {
+            Set<String> nodeIds = new LinkedHashSet<>();
+            List<String> legacyKeys = new ArrayList<>();
+            RedisBatch queued = new RedisBatch();
+            for (String key : jedisCluster.scan(TaskKeys.LEGACY_QUEUE_PREFIX + "*", SCAN_COUNT)) {
+                String nodeId = key.substring(TaskKeys.LEGACY_QUEUE_PREFIX.length());
+                int priority = LANES.length - 1;
+                for (int lane = 0; lane < LANES.length - 1; lane++) {
+                    if (nodeId.endsWith(":" + LANES[lane])) {
+                        nodeId = nodeId.substring(0, nodeId.length() - LANES[lane].length() - 1);
+                        priority = lane;
+                        break;
+                    }
+                }
+                // 从最新的一端依次追加到新队列的消费端，保持原有先后顺序
+                for (String taskJson : jedisCluster.lrange(key, 0, -1)) {
+                    queued.rpush(queueKey(nodeId, priority), taskJson);
+                }
+                nodeIds.add(nodeId);
+                legacyKeys.add(key);
+            }
+            jedisCluster.execute(queued);
+            
+            RedisBatch inflight = new RedisBatch();
+            for (String key : jedisCluster.scan(TaskKeys.LEGACY_PROCESSING_PREFIX + "*", SCAN_COUNT)) {
+                String nodeId = key.substring(TaskKeys.LEGACY_PROCESSING_PREFIX.length());
+                for (String taskJson : jedisCluster.lrange(key, 0, -1)) {
+                    String action = JSON.parseObject(taskJson).getString("action");
+                    inflight.rpush(queueKey(nodeId, TaskBus.priorityOf(action)), taskJson);
+                }
+                nodeIds.add(nodeId);
+                legacyKeys.add(key);
+            }
+            jedisCluster.execute(inflight);
+            
+            legacyKeys.addAll(jedisCluster.scan(TaskKeys.LEGACY_LEASE_PREFIX + "*", SCAN_COUNT));
+            legacyKeys.addAll(jedisCluster.scan(TaskKeys.LEGACY_SIGNAL_PREFIX + "*", SCAN_COUNT));
+            if (legacyKeys.isEmpty()) {
+                return;
+            }
+            RedisBatch cleanup = new RedisBatch();
+            for (String key : legacyKeys) {
+                cleanup.del(key);
+            }
+            for (String nodeId : nodeIds) {
+                signalAgent(nodeId, cleanup);
+                notifyAgent(nodeId, null, cleanup);
+            }
+            jedisCluster.execute(cleanup);
+            System.out.println("TaskQueue: 已迁移 " + nodeIds.size() + " 个节点的旧队列键");
+        } catch (Exception e) {
+            System.err.println("TaskQueue: 迁移旧队列键失败: " + e.getMessage());
+        }
+    }
+    
+    private void notifyAgent(String nodeId, String taskId, RedisBatch batch) {
+        if (notifyEnabled) {
+            batch.publish(TASK_NOTIFY_PREFIX + nodeId, taskId != null ? taskId : "");
+        }
+    }
+}
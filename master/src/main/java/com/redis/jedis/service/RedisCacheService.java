@@ -3,8 +3,14 @@ package com.redis.jedis.service;
 import com.alibaba.fastjson.JSON;
 import com.redis.jedis.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.redis.jedis.util.RedisBatch;
 import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.ValueCodec;
+import com.redis.jedis.util.ValueCodecs;
+
+import javax.annotation.PostConstruct;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -20,6 +26,12 @@ public class RedisCacheService {
     @Autowired
     private RedisClient redisClient;
     
+    @Value("${deploy.redis-value-codec:json}")
+    private String codecName;
+    
+    // 写入节点状态使用的编码，读取时按内容识别，与Agent写入的JSON兼容
+    private ValueCodec codec;
+    
     // 监控数据缓存时间（60天）
     private static final int MONITOR_CACHE_TTL = 5184000;
     
@@ -32,17 +44,23 @@ public class RedisCacheService {
     // 部署历史缓存时间（180天）
     private static final int DEPLOY_HISTORY_TTL = 15552000;
     
+    @PostConstruct
+    public void init() {
+        codec = ValueCodecs.forName(codecName);
+    }
+    
     /**
      * 存储节点状态，自动设置过期时间
      */
     public void setNodeStatus(String nodeId, NodeStatus status) {
         try {
             String key = "node:status:" + nodeId;
-            redisClient.setex(key, MONITOR_CACHE_TTL, JSON.toJSONString(status));
-            
-            // 更新节点列表
-            redisClient.sadd("node:list", nodeId);
-            redisClient.expire("node:list", MONITOR_CACHE_TTL);
+            RedisBatch batch = new RedisBatch()
+                    .setex(key, MONITOR_CACHE_TTL, codec.encode(status))
+                    // 更新节点列表
+                    .sadd("node:list", nodeId)
+                    .expire("node:list", MONITOR_CACHE_TTL);
+            redisClient.execute(batch);
             
         } catch (Exception e) {
             throw new RuntimeException("存储节点状态失败: " + e.getMessage());
@@ -55,12 +73,10 @@ public class RedisCacheService {
     public NodeStatus getNodeStatus(String nodeId) {
         try {
             String key = "node:status:" + nodeId;
-            String value = redisClient.get(key);
+            byte[] value = getAndRefresh(key);
             
             if (value != null) {
-                // 刷新过期时间
-                redisClient.expire(key, MONITOR_CACHE_TTL);
-                return JSON.parseObject(value, NodeStatus.class);
+                return ValueCodecs.decode(value, NodeStatus.class);
             }
             return null;
         } catch (Exception e) {
@@ -69,18 +85,13 @@ public class RedisCacheService {
     }
     
     /**
-     * 获取所有节点状态
+     * 获取所有节点状态，各节点的读取和过期时间刷新合并为一次批量命令
      */
     public List<NodeStatus> getAllNodeStatus() {
         try {
             List<NodeStatus> statusList = new ArrayList<>();
-            Set<String> nodeIds = redisClient.smembers("node:list");
-            
-            for (String nodeId : nodeIds) {
-                NodeStatus status = getNodeStatus(nodeId);
-                if (status != null) {
-                    statusList.add(status);
-                }
+            for (byte[] value : getAllAndRefresh("node:status:")) {
+                statusList.add(ValueCodecs.decode(value, NodeStatus.class));
             }
             
             return statusList;
@@ -107,12 +118,10 @@ public class RedisCacheService {
     public NodeDetail getNodeDetail(String nodeId) {
         try {
             String key = "node:detail:" + nodeId;
-            String value = redisClient.get(key);
+            byte[] value = getAndRefresh(key);
             
             if (value != null) {
-                // 刷新过期时间
-                redisClient.expire(key, MONITOR_CACHE_TTL);
-                return JSON.parseObject(value, NodeDetail.class);
+                return ValueCodecs.decode(value, NodeDetail.class);
             }
             return null;
         } catch (Exception e) {
@@ -138,12 +147,10 @@ public class RedisCacheService {
     public HealthStatus getHealthStatus(String nodeId) {
         try {
             String key = "health:status:" + nodeId;
-            String value = redisClient.get(key);
+            byte[] value = getAndRefresh(key);
             
             if (value != null) {
-                // 刷新过期时间
-                redisClient.expire(key, MONITOR_CACHE_TTL);
-                return JSON.parseObject(value, HealthStatus.class);
+                return ValueCodecs.decode(value, HealthStatus.class);
             }
             return null;
         } catch (Exception e) {
@@ -152,18 +159,13 @@ public class RedisCacheService {
     }
     
     /**
-     * 获取所有健康状态
+     * 获取所有健康状态，各节点的读取和过期时间刷新合并为一次批量命令
      */
     public List<HealthStatus> getAllHealthStatus() {
         try {
             List<HealthStatus> healthList = new ArrayList<>();
-            Set<String> nodeIds = redisClient.smembers("node:list");
-            
-            for (String nodeId : nodeIds) {
-                HealthStatus health = getHealthStatus(nodeId);
-                if (health != null) {
-                    healthList.add(health);
-                }
+            for (byte[] value : getAllAndRefresh("health:status:")) {
+                healthList.add(ValueCodecs.decode(value, HealthStatus.class));
             }
             
             return healthList;
@@ -178,15 +180,14 @@ public class RedisCacheService {
     public void setDeployInfo(String nodeId, String serviceName, DeployInfo deployInfo) {
         try {
             String key = "service:deploy:" + nodeId + ":" + serviceName;
-            redisClient.setex(key, MONITOR_CACHE_TTL, JSON.toJSONString(deployInfo));
+            String deployJson = JSON.toJSONString(deployInfo);
+            RedisBatch batch = new RedisBatch().setex(key, MONITOR_CACHE_TTL, deployJson);
             
             // 更新部署历史
             String historyKey = "deploy:history:" + nodeId + ":" + serviceName;
-            redisClient.lpush(historyKey, JSON.toJSONString(deployInfo));
-            redisClient.expire(historyKey, DEPLOY_HISTORY_TTL);
-            
             // 限制历史记录数量（保留最近50条）
-            redisClient.ltrim(historyKey, 0, 49);
+            batch.pushTrimExpire(historyKey, deployJson, 50, DEPLOY_HISTORY_TTL);
+            redisClient.execute(batch);
             
         } catch (Exception e) {
             throw new RuntimeException("存储部署信息失败: " + e.getMessage());
@@ -199,12 +200,10 @@ public class RedisCacheService {
     public DeployInfo getDeployInfo(String nodeId, String serviceName) {
         try {
             String key = "service:deploy:" + nodeId + ":" + serviceName;
-            String value = redisClient.get(key);
+            byte[] value = getAndRefresh(key);
             
             if (value != null) {
-                // 刷新过期时间
-                redisClient.expire(key, MONITOR_CACHE_TTL);
-                return JSON.parseObject(value, DeployInfo.class);
+                return ValueCodecs.decode(value, DeployInfo.class);
             }
             return null;
         } catch (Exception e) {
@@ -243,8 +242,7 @@ public class RedisCacheService {
     public void sendToQueue(String queueName, Object message) {
         try {
             String key = "queue:" + queueName;
-            redisClient.lpush(key, JSON.toJSONString(message));
-            redisClient.expire(key, QUEUE_CACHE_TTL);
+            redisClient.pushTrimExpire(key, JSON.toJSONString(message), 0, QUEUE_CACHE_TTL);
         } catch (Exception e) {
             throw new RuntimeException("发送消息到队列失败: " + e.getMessage());
         }
@@ -279,6 +277,34 @@ public class RedisCacheService {
         }
     }
     
+    /**
+     * 读取并刷新过期时间，由脚本一次往返完成；按原始字节读取，由 ValueCodecs 识别JSON或紧凑编码
+     */
+    private byte[] getAndRefresh(String key) {
+        return redisClient.getAndTouchBytes(key, MONITOR_CACHE_TTL);
+    }
+    
+    /**
+     * 读取所有节点的指定前缀数据并刷新过期时间，跳过不存在的节点
+     */
+    private List<byte[]> getAllAndRefresh(String prefix) {
+        Set<String> nodeIds = redisClient.smembers("node:list");
+        RedisBatch batch = new RedisBatch();
+        List<RedisBatch.Reply<byte[]>> replies = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            replies.add(batch.getAndTouchBytes(prefix + nodeId, MONITOR_CACHE_TTL));
+        }
+        redisClient.execute(batch);
+        
+        List<byte[]> values = new ArrayList<>();
+        for (RedisBatch.Reply<byte[]> reply : replies) {
+            if (reply.get() != null) {
+                values.add(reply.get());
+            }
+        }
+        return values;
+    }
+    
     /**
      * 清理过期数据
      */
@@ -4,10 +4,12 @@ import com.alibaba.fastjson.JSON;
 import com.redis.jedis.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import com.redis.jedis.util.RedisBatch;
 import com.redis.jedis.util.RedisClient;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,6 +25,9 @@ public class RollbackService {
     @Autowired
     private TaskManagementService taskManagementService;
     
+    @Autowired
+    private TaskBus taskBus;
+    
     @Autowired
     private FileDistributionService fileDistributionService;
     
@@ -83,6 +88,7 @@ public class RollbackService {
         
         DeployTask task = new DeployTask();
         task.setTaskId(taskId);
+        task.setIdempotencyKey(taskId);
         task.setNodeId("all");
         task.setServiceName(service.getName());
         task.setAction("ROLLBACK");
@@ -90,14 +96,11 @@ public class RollbackService {
         task.setDistributionMethod("shared-storage");
         task.setTargetNodes(service.getTargetNodes());
         
-        // 存储任务
-        taskManagementService.storeTask(task);
-        
-        // 发送回滚任务到所有目标节点
-        for (String nodeId : service.getTargetNodes()) {
-            String taskJson = JSON.toJSONString(task);
-            jedisCluster.lpush("task:queue:" + nodeId, taskJson);
-        }
+        // 存储任务并发送回滚任务到所有目标节点，一次批量写入
+        RedisBatch batch = new RedisBatch();
+        taskManagementService.storeTask(task, batch);
+        taskBus.publish(task, service.getTargetNodes(), batch);
+        jedisCluster.execute(batch);
         
         return taskId;
     }
@@ -146,8 +149,7 @@ public class RollbackService {
                 stopTask.setServiceName(service.getName());
                 stopTask.setAction("STOP");
                 
-                String taskJson = JSON.toJSONString(stopTask);
-                jedisCluster.lpush("task:queue:" + nodeId, taskJson);
+                taskBus.publish(stopTask, Collections.singletonList(nodeId));
                 
                 // 等待停止完成
                 waitForServiceStop(service.getName(), nodeId);
@@ -169,8 +171,7 @@ public class RollbackService {
                 startTask.setServiceName(service.getName());
                 startTask.setAction("START");
                 
-                String taskJson = JSON.toJSONString(startTask);
-                jedisCluster.lpush("task:queue:" + nodeId, taskJson);
+                taskBus.publish(startTask, Collections.singletonList(nodeId));
                 
                 // 等待启动完成
                 waitForServiceStart(service.getName(), nodeId);
@@ -275,8 +276,7 @@ public class RollbackService {
         
         String historyKey = ROLLBACK_HISTORY_PREFIX + serviceName;
         String historyJson = JSON.toJSONString(history);
-        jedisCluster.lpush(historyKey, historyJson);
-        jedisCluster.expire(historyKey, HISTORY_TTL);
+        jedisCluster.pushTrimExpire(historyKey, historyJson, 0, HISTORY_TTL);
     }
     
     /**
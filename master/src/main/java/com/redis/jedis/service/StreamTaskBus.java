@@ -0,0 +1,159 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.PendingTask;
+import com.redis.jedis.util.RedisBatch;
+import com.redis.jedis.util.RedisClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamPendingEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream任务总线
+ * 任务按优先级写入 task:stream:rollback、task:stream:control 或 task:stream（部署），
+ * 一次部署无论多少目标节点都只追加一个条目，targets 字段列出目标节点；
+ * 每个节点对应一个消费组 node:{nodeId}，Agent以 XREADGROUP 批量读取，跳过不属于自己的条目，执行结束后 XACK。
+ * 已读取未确认的条目留在消费组的待确认列表（PEL）中，Agent重启后先重读自己的待确认条目；
+ * Master定期检查待确认列表，报告超过可见性超时的任务。Stream按 MAXLEN ~ 近似裁剪，长度有上限。
+ * Stream条目无法撤回，回滚对尚未执行的部署任务的取消由Agent完成
+ */
+@Service
+@ConditionalOnProperty(name = "deploy.task-bus.type", havingValue = "stream")
+public class StreamTaskBus implements TaskBus {
+    
+    @Autowired
+    private RedisClient jedisCluster;
+    
+    @Value("${deploy.task-notify.enabled:true}")
+    private boolean notifyEnabled;
+    
+    @Value("${deploy.task-bus.stream.max-len:10000}")
+    private long maxLen;
+    
+    @Value("${deploy.task-bus.stream.pending-scan-count:100}")
+    private int pendingScanCount;
+    
+    @Value("${deploy.task-queue.visibility-timeout:300}")
+    private long visibilityTimeoutSeconds;
+    
+    private static final String TASK_STREAM_KEY = "task:stream";
+    private static final String GROUP_PREFIX = "node:";
+    private static final String TASK_NOTIFY_PREFIX = "task:notify:";
+    private static final String NODE_LIST_KEY = "node:list";
+    
+    @Override
+    public void publish(DeployTask task, List<String> nodeIds) {
+        RedisBatch batch = new RedisBatch();
+        publish(task, nodeIds, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    /**
+     * 追加一个任务条目，目标节点共用；条目追加和通知加入批量写入。
+     * 消费组在节点注册时创建（Agent启动时创建自己的消费组，Master按 group-check-interval 为已注册节点补建），
+     * 投递路径上不再访问Redis
+     */
+    @Override
+    public void publish(DeployTask task, List<String> nodeIds, RedisBatch batch) {
+        String streamKey = streamKey(TaskBus.priorityOf(task.getAction()));
+        Map<String, String> fields = new HashMap<>();
+        fields.put("taskId", task.getTaskId() != null ? task.getTaskId() : "");
+        fields.put("targets", String.join(",", nodeIds));
+        fields.put("payload", JSON.toJSONString(task));
+        batch.xadd(streamKey, fields, maxLen);
+        
+        if (notifyEnabled) {
+            for (String nodeId : nodeIds) {
+                batch.publish(TASK_NOTIFY_PREFIX + nodeId, task.getTaskId() != null ? task.getTaskId() : "");
+            }
+        }
+        System.out.println("TaskStream: 任务 " + task.getTaskId() + " 写入 " + streamKey
+                + "，目标节点: " + nodeIds.size() + " 个");
+    }
+    
+    /**
+     * 读取节点在各优先级Stream上消费组的待确认列表，按条目ID取回任务ID
+     * 条目已被 MAXLEN 裁剪时任务ID为空；节点尚未在某个Stream上收到过任务时跳过该Stream
+     */
+    @Override
+    public List<PendingTask> inspectPending(String nodeId) {
+        List<PendingTask> pendingTasks = new ArrayList<>();
+        for (int priority = 0; priority < LANES.length; priority++) {
+            String streamKey = streamKey(priority);
+            List<StreamPendingEntry> entries;
+            try {
+                entries = jedisCluster.xpending(streamKey, GROUP_PREFIX + nodeId, pendingScanCount);
+            } catch (Exception e) {
+                continue;
+            }
+            for (StreamPendingEntry entry : entries) {
+                String entryId = entry.getID().toString();
+                String taskId = null;
+                List<StreamEntry> range = jedisCluster.xrange(streamKey, entryId, entryId, 1);
+                if (!range.isEmpty()) {
+                    taskId = range.get(0).getFields().get("taskId");
+                }
+                pendingTasks.add(new PendingTask(taskId, nodeId, entryId, entry.getIdleTime(), entry.getDeliveredTimes()));
+            }
+        }
+        return pendingTasks;
+    }
+    
+    /**
+     * 优先级对应的Stream键，部署通道沿用 task:stream
+     */
+    private String streamKey(int priority) {
+        if (priority >= LANES.length - 1) {
+            return TASK_STREAM_KEY;
+        }
+        return TASK_STREAM_KEY + ":" + LANES[priority];
+    }
+    
+    /**
+     * 为已注册节点在各优先级Stream上补建消费组（从当前末尾开始，已存在时忽略），
+     * 覆盖Stream被删除后Agent尚未重建消费组的情况
+     */
+    @Scheduled(fixedDelayString = "${deploy.task-bus.stream.group-check-interval:60000}", initialDelay = 0)
+    public void ensureConsumerGroups() {
+        try {
+            for (String nodeId : jedisCluster.smembers(NODE_LIST_KEY)) {
+                for (int priority = 0; priority < LANES.length; priority++) {
+                    jedisCluster.xgroupCreate(streamKey(priority), GROUP_PREFIX + nodeId, true);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("TaskStream: 创建消费组失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 定期检查各节点的待确认任务
+     * Agent执行期间会刷新条目的空闲时间，超过可见性超时说明Agent已退出，其重启后会重新读取这些条目
+     */
+    @Scheduled(fixedDelayString = "${deploy.task-queue.reaper.interval:30000}", initialDelay = 30000)
+    public void inspectStuckTasks() {
+        try {
+            for (String nodeId : jedisCluster.smembers(NODE_LIST_KEY)) {
+                for (PendingTask pendingTask : inspectPending(nodeId)) {
+                    if (pendingTask.getIdleMillis() >= visibilityTimeoutSeconds * 1000) {
+                        System.err.println("TaskStream: 节点 " + nodeId + " 的任务 " + pendingTask.getTaskId()
+                                + " (条目 " + pendingTask.getDeliveryId() + ") 已 "
+                                + pendingTask.getIdleMillis() / 1000 + " 秒未确认，投递次数: " + pendingTask.getDeliveryCount());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("TaskStream: 检查待确认任务失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.redis.jedis.service;
+
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.PendingTask;
+import com.redis.jedis.util.RedisBatch;
+
+import java.util.List;
+
+/**
+ * 任务总线
+ * Master向Agent投递任务的统一入口，由 deploy.task-bus.type 选择实现：
+ * list 为每个节点一个列表队列（ListTaskBus），stream 为所有节点共用一个Redis Stream（StreamTaskBus），
+ * 需与Agent的 agent.task-bus.type 保持一致。
+ * 任务按操作类型分入优先级通道，Agent总是先取完高优先级通道：回滚 > 启停 > 部署
+ */
+public interface TaskBus {
+    
+    /**
+     * 优先级通道名称，下标即优先级，数值越小越优先
+     */
+    String[] LANES = {"rollback", "control", "deploy"};
+    
+    /**
+     * 按操作类型确定任务的优先级
+     */
+    static int priorityOf(String action) {
+        if ("ROLLBACK".equals(action)) {
+            return 0;
+        }
+        if ("START".equals(action) || "STOP".equals(action) || "RESTART".equals(action)) {
+            return 1;
+        }
+        return 2;
+    }
+    
+    /**
+     * 向目标节点投递任务
+     */
+    void publish(DeployTask task, List<String> nodeIds);
+    
+    /**
+     * 将投递命令加入批量写入，由调用方与任务状态初始化一起以管道发送
+     */
+    void publish(DeployTask task, List<String> nodeIds, RedisBatch batch);
+    
+    /**
+     * 查看节点已领取但尚未确认的任务
+     */
+    List<PendingTask> inspectPending(String nodeId);
+}
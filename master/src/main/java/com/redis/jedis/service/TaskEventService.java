@@ -0,0 +1,214 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.redis.jedis.dto.TaskStatus;
+import com.redis.jedis.util.RedisClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import redis.clients.jedis.JedisPubSub;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 任务事件服务
+ * Master（TaskManagementService）和Agent每次写入任务状态后在 task:events 频道发布变更，本服务订阅该频道，
+ * 以Server-Sent Events把节点状态变化和汇总后的任务状态推送给订阅了该任务的客户端，替代轮询任务状态接口；
+ * 任务结束（COMPLETED/FAILED）后推送最终状态并关闭连接
+ */
+@Service
+public class TaskEventService {
+
+    @Autowired
+    private RedisClient jedisCluster;
+
+    @Autowired
+    private TaskManagementService taskManagementService;
+
+    @Value("${deploy.task-events.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deploy.task-events.sse-timeout:1800000}")
+    private long sseTimeoutMillis;
+
+    @Value("${deploy.task-events.resubscribe-delay:5000}")
+    private long resubscribeDelayMillis;
+
+    private static final String TASK_EVENTS_CHANNEL = "task:events";
+    private static final String ALL_TASKS = "*";
+
+    // 任务ID（或 * 表示全部任务）-> 订阅的客户端
+    private final Map<String, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final JedisPubSub pubSub = new JedisPubSub() {
+        @Override
+        public void onMessage(String channel, String message) {
+            dispatch(message);
+        }
+    };
+    private volatile boolean running;
+    private Thread subscriberThread;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        subscriberThread = new Thread(this::subscribeLoop, "TaskEventSubscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (pubSub.isSubscribed()) {
+                pubSub.unsubscribe();
+            }
+        } catch (Exception e) {
+            System.err.println("TaskEvent: 取消订阅失败: " + e.getMessage());
+        }
+        for (List<SseEmitter> list : emitters.values()) {
+            for (SseEmitter emitter : list) {
+                emitter.complete();
+            }
+        }
+        emitters.clear();
+    }
+
+    /**
+     * 订阅循环：订阅是阻塞调用，连接断开后按间隔重新订阅
+     */
+    private void subscribeLoop() {
+        while (running) {
+            try {
+                System.out.println("TaskEvent: 订阅任务事件频道 " + TASK_EVENTS_CHANNEL);
+                jedisCluster.subscribe(pubSub, TASK_EVENTS_CHANNEL);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("TaskEvent: 任务事件订阅中断: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(resubscribeDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    /**
+     * 订阅单个任务的状态变化，先推送当前状态；taskId为空时订阅全部任务
+     */
+    public SseEmitter subscribe(String taskId) {
+        String key = taskId != null ? taskId : ALL_TASKS;
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        emitters.compute(key, (k, list) -> {
+            List<SseEmitter> updated = list != null ? list : new CopyOnWriteArrayList<>();
+            updated.add(emitter);
+            return updated;
+        });
+        emitter.onCompletion(() -> remove(key, emitter));
+        emitter.onTimeout(() -> remove(key, emitter));
+        emitter.onError(e -> remove(key, emitter));
+
+        if (taskId != null) {
+            TaskStatus status = taskManagementService.getTaskStatus(taskId);
+            if (status != null) {
+                send(key, emitter, "status", status);
+                if (isFinished(status)) {
+                    emitter.complete();
+                }
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * 处理频道消息：同一事件只汇总一次任务状态，再推送给该任务和全部任务的订阅者
+     */
+    private void dispatch(String message) {
+        try {
+            JSONObject event = JSON.parseObject(message);
+            String taskId = event.getString("taskId");
+            List<SseEmitter> taskEmitters = taskId != null ? emitters.get(taskId) : null;
+            List<SseEmitter> allEmitters = emitters.get(ALL_TASKS);
+            boolean hasTaskEmitters = taskEmitters != null && !taskEmitters.isEmpty();
+            boolean hasAllEmitters = allEmitters != null && !allEmitters.isEmpty();
+            if (!hasTaskEmitters && !hasAllEmitters) {
+                return;
+            }
+
+            TaskStatus status = taskManagementService.getTaskStatus(taskId);
+            boolean finished = status != null && isFinished(status);
+            if (hasTaskEmitters) {
+                for (SseEmitter emitter : taskEmitters) {
+                    if (event.getString("nodeId") != null) {
+                        send(taskId, emitter, "node", event);
+                    }
+                    if (status != null) {
+                        send(taskId, emitter, "status", status);
+                    }
+                    if (finished) {
+                        emitter.complete();
+                    }
+                }
+            }
+            if (hasAllEmitters) {
+                for (SseEmitter emitter : allEmitters) {
+                    send(ALL_TASKS, emitter, "status", status != null ? status : event);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("TaskEvent: 推送任务事件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 定期发送注释行，避免空闲连接被代理断开
+     */
+    @Scheduled(fixedDelayString = "${deploy.task-events.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Map.Entry<String, List<SseEmitter>> entry : emitters.entrySet()) {
+            for (SseEmitter emitter : entry.getValue()) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    remove(entry.getKey(), emitter);
+                }
+            }
+        }
+    }
+
+    private void send(String key, SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(JSON.toJSONString(data)));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开
+            remove(key, emitter);
+        }
+    }
+
+    private void remove(String key, SseEmitter emitter) {
+        emitters.computeIfPresent(key, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private boolean isFinished(TaskStatus status) {
+        return "COMPLETED".equals(status.getStatus()) || "FAILED".equals(status.getStatus());
+    }
+}
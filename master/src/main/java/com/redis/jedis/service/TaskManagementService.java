@@ -1,14 +1,33 @@
 package com.redis.jedis.service;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.TypeReference;
 import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.DistributionChoice;
 import com.redis.jedis.dto.TaskStatus;
+import com.redis.jedis.dto.TransferStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.redis.jedis.util.RedisBatch;
 import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.RedisScripts;
+import com.redis.jedis.util.TaskKeys;
+import com.redis.jedis.util.ValueCodec;
+import com.redis.jedis.util.ValueCodecs;
+import redis.clients.jedis.util.SafeEncoder;
+
+import javax.annotation.PostConstruct;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -21,19 +40,48 @@ public class TaskManagementService {
     @Autowired
     private RedisClient jedisCluster;
     
-    private static final String TASK_PREFIX = "task:deploy:";
-    private static final String TASK_STATUS_PREFIX = "task:status:";
+    private static final String TASK_INDEX_KEY = "task:index"; // 有序集合：任务ID按创建时间排序
     private static final int TASK_TTL = 3600; // 1小时
+    private static final int SCAN_COUNT = 500;
+    
+    // task:{taskId}:state 哈希字段：Master维护的任务字段，以及Agent按节点写入的 node:{nodeId}
+    private static final String FIELD_SERVICE_NAME = "serviceName";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_PROGRESS = "progress";
+    private static final String FIELD_START_TIME = "startTime";
+    private static final String FIELD_END_TIME = "endTime";
+    private static final String FIELD_ERROR_MESSAGE = "errorMessage";
+    private static final String FIELD_ERROR_CODE = "errorCode";
+    private static final String FIELD_ERROR_DETAILS = "errorDetails";
+    private static final String FIELD_TARGET_NODES = "targetNodes";
+    private static final String FIELD_DISTRIBUTION_PLAN = "distributionPlan";
+    private static final String NODE_FIELD_PREFIX = "node:";
+    private static final String TRANSFER_FIELD_PREFIX = "transfer:";
+    private static final String TASK_EVENTS_CHANNEL = "task:events";
+    
+    @Value("${deploy.task-keys.migrate-legacy:true}")
+    private boolean migrateLegacy;
+    
+    @Value("${deploy.redis-value-codec:json}")
+    private String codecName;
+    
+    private ValueCodec codec;
     
     /**
      * 存储任务
      */
     public void storeTask(DeployTask task) {
+        RedisBatch batch = new RedisBatch();
+        storeTask(task, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    /**
+     * 将任务和初始状态的写入加入批量写入，由调用方与任务投递一起发送
+     * 任务（按 deploy.redis-value-codec 编码）和状态哈希由一个脚本原子写入
+     */
+    public void storeTask(DeployTask task, RedisBatch batch) {
         try {
-            String taskKey = TASK_PREFIX + task.getTaskId();
-            String taskJson = JSON.toJSONString(task);
-            jedisCluster.setex(taskKey, TASK_TTL, taskJson);
-            
             // 创建初始任务状态
             TaskStatus status = new TaskStatus();
             status.setTaskId(task.getTaskId());
@@ -43,7 +91,21 @@ public class TaskManagementService {
             status.setProgress(0);
             status.setTargetNodes(task.getTargetNodes());
             
-            storeTaskStatus(status);
+            List<String> fieldArgs = new ArrayList<>();
+            appendFields(fieldArgs, statusFields(status));
+            List<byte[]> args = new ArrayList<>();
+            args.add(codec.encode(task));
+            args.add(SafeEncoder.encode(String.valueOf(TASK_TTL)));
+            for (String arg : fieldArgs) {
+                args.add(SafeEncoder.encode(arg));
+            }
+            batch.evalBinary(RedisScripts.TASK_STORE,
+                    Arrays.asList(TaskKeys.meta(task.getTaskId()), TaskKeys.state(task.getTaskId())), args);
+            publishEvent(task.getTaskId(), status.getStatus(), batch);
+            
+            // 登记到任务索引，并移除已超过任务有效期的索引项
+            batch.zadd(TASK_INDEX_KEY, status.getStartTime(), task.getTaskId())
+                    .zremrangeByScore(TASK_INDEX_KEY, 0, status.getStartTime() - TASK_TTL * 1000L);
             
         } catch (Exception e) {
             throw new RuntimeException("存储任务失败: " + e.getMessage());
@@ -51,16 +113,15 @@ public class TaskManagementService {
     }
     
     /**
-     * 获取任务
+     * 获取任务，新键不存在时读取尚未迁移的旧键；按内容识别JSON或紧凑编码
      */
     public DeployTask getTask(String taskId) {
         try {
-            String taskKey = TASK_PREFIX + taskId;
-            String taskJson = jedisCluster.get(taskKey);
-            if (taskJson != null) {
-                return JSON.parseObject(taskJson, DeployTask.class);
+            byte[] value = jedisCluster.getBytes(TaskKeys.meta(taskId));
+            if (value == null) {
+                value = jedisCluster.getBytes(TaskKeys.LEGACY_META_PREFIX + taskId);
             }
-            return null;
+            return ValueCodecs.decode(value, DeployTask.class);
         } catch (Exception e) {
             throw new RuntimeException("获取任务失败: " + e.getMessage());
         }
@@ -68,47 +129,269 @@ public class TaskManagementService {
     
     /**
      * 存储任务状态
+     * 状态保存为哈希 task:{taskId}:state，只写入非空字段，不影响各节点已上报的字段
      */
     public void storeTaskStatus(TaskStatus status) {
+        RedisBatch batch = new RedisBatch();
+        storeTaskStatus(status, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    private void storeTaskStatus(TaskStatus status, RedisBatch batch) {
         try {
-            String statusKey = TASK_STATUS_PREFIX + status.getTaskId();
-            String statusJson = JSON.toJSONString(status);
-            jedisCluster.setex(statusKey, TASK_TTL, statusJson);
+            updateFields(status.getTaskId(), statusFields(status), batch);
         } catch (Exception e) {
             throw new RuntimeException("存储任务状态失败: " + e.getMessage());
         }
     }
     
+    private Map<String, String> statusFields(TaskStatus status) {
+        Map<String, String> fields = new HashMap<>();
+        putIfNotNull(fields, FIELD_SERVICE_NAME, status.getServiceName());
+        putIfNotNull(fields, FIELD_STATUS, status.getStatus());
+        fields.put(FIELD_PROGRESS, String.valueOf(status.getProgress()));
+        fields.put(FIELD_START_TIME, String.valueOf(status.getStartTime()));
+        fields.put(FIELD_END_TIME, String.valueOf(status.getEndTime()));
+        putIfNotNull(fields, FIELD_ERROR_MESSAGE, status.getErrorMessage());
+        putIfNotNull(fields, FIELD_ERROR_CODE, status.getErrorCode());
+        putIfNotNull(fields, FIELD_ERROR_DETAILS, status.getErrorDetails());
+        if (status.getTargetNodes() != null) {
+            fields.put(FIELD_TARGET_NODES, JSON.toJSONString(status.getTargetNodes()));
+        }
+        if (status.getDistributionPlan() != null) {
+            fields.put(FIELD_DISTRIBUTION_PLAN, JSON.toJSONString(status.getDistributionPlan()));
+        }
+        return fields;
+    }
+    
     /**
      * 获取任务状态
+     * 一次 HGETALL 读取Master字段和各节点上报，进度和整体状态按节点结果计算；
+     * 开启旧键兼容时同一批次读取旧键（第1版状态哈希和更早的JSON状态），合并尚未迁移的任务和仍按第1版键上报的Agent
+     * （滚动升级期间）的字段；存在JSON状态时再按其目标节点读取基线Agent的节点状态
      */
     public TaskStatus getTaskStatus(String taskId) {
         try {
-            String statusKey = TASK_STATUS_PREFIX + taskId;
-            String statusJson = jedisCluster.get(statusKey);
-            if (statusJson != null) {
-                return JSON.parseObject(statusJson, TaskStatus.class);
+            if (!migrateLegacy) {
+                return buildTaskStatus(taskId, jedisCluster.hgetAll(TaskKeys.state(taskId)));
             }
-            return null;
+            RedisBatch batch = new RedisBatch();
+            RedisBatch.Reply<Map<String, String>> current = batch.hgetAll(TaskKeys.state(taskId));
+            RedisBatch.Reply<Map<String, String>> legacy = batch.hgetAll(TaskKeys.LEGACY_STATE_PREFIX + taskId);
+            RedisBatch.Reply<String> legacyJson = batch.get(TaskKeys.LEGACY_STATUS_PREFIX + taskId);
+            jedisCluster.execute(batch);
+            Map<String, String> fields = legacyFields(legacyJson.get(), readLegacyNodeStatus(taskId, legacyJson.get()),
+                    legacy.get());
+            if (current.get() != null) {
+                fields.putAll(current.get());
+            }
+            return buildTaskStatus(taskId, fields);
         } catch (Exception e) {
             throw new RuntimeException("获取任务状态失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 按JSON状态中的目标节点读取基线Agent的 task:status:{taskId}:{nodeId}，没有JSON状态时不读取
+     */
+    private Map<String, String> readLegacyNodeStatus(String taskId, String statusJson) {
+        Map<String, String> nodeJsons = new HashMap<>();
+        if (statusJson == null) {
+            return nodeJsons;
+        }
+        List<String> targetNodes = JSON.parseObject(statusJson, TaskStatus.class).getTargetNodes();
+        if (targetNodes == null || targetNodes.isEmpty()) {
+            return nodeJsons;
+        }
+        RedisBatch batch = new RedisBatch();
+        Map<String, RedisBatch.Reply<String>> replies = new LinkedHashMap<>();
+        for (String nodeId : targetNodes) {
+            replies.put(nodeId, batch.get(TaskKeys.legacyNodeStatus(taskId, nodeId)));
+        }
+        jedisCluster.execute(batch);
+        for (Map.Entry<String, RedisBatch.Reply<String>> reply : replies.entrySet()) {
+            if (reply.getValue().get() != null) {
+                nodeJsons.put(reply.getKey(), reply.getValue().get());
+            }
+        }
+        return nodeJsons;
+    }
+    
+    /**
+     * 由哈希字段组装任务状态，任务不存在时返回null
+     */
+    private TaskStatus buildTaskStatus(String taskId, Map<String, String> fields) {
+        if (fields == null || !fields.containsKey(FIELD_STATUS)) {
+            return null;
+        }
+        TaskStatus status = new TaskStatus();
+        status.setTaskId(taskId);
+        status.setServiceName(fields.get(FIELD_SERVICE_NAME));
+        status.setStatus(fields.get(FIELD_STATUS));
+        status.setProgress(parseInt(fields.get(FIELD_PROGRESS)));
+        status.setStartTime(parseLong(fields.get(FIELD_START_TIME)));
+        status.setEndTime(parseLong(fields.get(FIELD_END_TIME)));
+        status.setErrorMessage(fields.get(FIELD_ERROR_MESSAGE));
+        status.setErrorCode(fields.get(FIELD_ERROR_CODE));
+        status.setErrorDetails(fields.get(FIELD_ERROR_DETAILS));
+        if (fields.containsKey(FIELD_TARGET_NODES)) {
+            status.setTargetNodes(JSON.parseArray(fields.get(FIELD_TARGET_NODES), String.class));
+        }
+        if (fields.containsKey(FIELD_DISTRIBUTION_PLAN)) {
+            status.setDistributionPlan(JSON.parseObject(fields.get(FIELD_DISTRIBUTION_PLAN),
+                    new TypeReference<Map<String, DistributionChoice>>() {}));
+        }
+        
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            if (field.getKey().startsWith(TRANSFER_FIELD_PREFIX)) {
+                // 分发端的传输统计
+                putTransferStats(status, field.getKey().substring(TRANSFER_FIELD_PREFIX.length()),
+                        JSON.parseObject(field.getValue(), TransferStats.class));
+            } else if (field.getKey().startsWith(NODE_FIELD_PREFIX)) {
+                mergeNodeReport(status, field.getKey().substring(NODE_FIELD_PREFIX.length()),
+                        JSON.parseObject(field.getValue()));
+            }
+        }
+        aggregateNodeResults(status);
+        return status;
+    }
+    
+    /**
+     * 合并Agent上报的节点状态和传输统计
+     */
+    private void mergeNodeReport(TaskStatus status, String nodeId, JSONObject report) {
+        if (status.getNodeResults() == null) {
+            status.setNodeResults(new HashMap<>());
+        }
+        status.getNodeResults().put(nodeId, report.getString("status"));
+        String errorCode = report.getString("errorCode");
+        if (errorCode != null && status.getErrorCode() == null) {
+            // 如文件摘要校验失败（CHECKSUM_MISMATCH），节点在启动服务前即已终止任务
+            status.setErrorCode(errorCode);
+            status.setErrorMessage(nodeId + ": " + report.getString("errorMessage"));
+        }
+        long updateTime = report.getLongValue("updateTime");
+        if (updateTime > status.getEndTime() && isFinished(report.getString("status"))) {
+            status.setEndTime(updateTime);
+        }
+        JSONObject stats = report.getJSONObject("transferStats");
+        if (stats != null) {
+            putTransferStats(status, nodeId, stats.toJavaObject(TransferStats.class));
+        }
+    }
+    
+    /**
+     * 按各节点结果计算进度和整体状态
+     * 全部节点结束后为 COMPLETED（有节点失败时为 FAILED），有节点开始执行后为 RUNNING；Master已判定失败的任务保持失败
+     */
+    private void aggregateNodeResults(TaskStatus status) {
+        List<String> targetNodes = status.getTargetNodes();
+        if (targetNodes == null || targetNodes.isEmpty() || status.getNodeResults() == null) {
+            return;
+        }
+        int finished = 0;
+        boolean failed = false;
+        for (String nodeId : targetNodes) {
+            String nodeStatus = status.getNodeResults().get(nodeId);
+            if (isFinished(nodeStatus)) {
+                finished++;
+                failed |= "FAILED".equals(nodeStatus);
+            }
+        }
+        status.setProgress(Math.max(status.getProgress(), finished * 100 / targetNodes.size()));
+        if ("FAILED".equals(status.getStatus())) {
+            return;
+        }
+        if (finished == targetNodes.size()) {
+            status.setStatus(failed ? "FAILED" : "COMPLETED");
+        } else if ("PENDING".equals(status.getStatus())) {
+            status.setStatus("RUNNING");
+        }
+    }
+    
+    private boolean isFinished(String nodeStatus) {
+        return "SUCCESS".equals(nodeStatus) || "FAILED".equals(nodeStatus) || "CANCELLED".equals(nodeStatus);
+    }
+    
+    private void putTransferStats(TaskStatus status, String source, TransferStats stats) {
+        if (status.getTransferStats() == null) {
+            status.setTransferStats(new HashMap<>());
+        }
+        status.getTransferStats().put(source, stats);
+    }
+    
+    /**
+     * 记录分发端的传输统计
+     */
+    public void recordTransferStats(String taskId, String source, TransferStats stats) {
+        RedisBatch batch = new RedisBatch();
+        recordTransferStats(taskId, source, stats, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    public void recordTransferStats(String taskId, String source, TransferStats stats, RedisBatch batch) {
+        try {
+            updateFields(taskId, singleField(TRANSFER_FIELD_PREFIX + source, JSON.toJSONString(stats)), batch);
+        } catch (Exception e) {
+            throw new RuntimeException("记录传输统计失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 记录自适应选择器为各节点选定的分发方式及预测耗时
+     */
+    public void recordDistributionPlan(String taskId, Map<String, DistributionChoice> distributionPlan) {
+        RedisBatch batch = new RedisBatch();
+        recordDistributionPlan(taskId, distributionPlan, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    public void recordDistributionPlan(String taskId, Map<String, DistributionChoice> distributionPlan, RedisBatch batch) {
+        try {
+            updateFields(taskId, singleField(FIELD_DISTRIBUTION_PLAN, JSON.toJSONString(distributionPlan)), batch);
+        } catch (Exception e) {
+            throw new RuntimeException("记录分发计划失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 代节点记录执行结果（如任务在Agent取走前被取消），格式与Agent上报一致
+     */
+    public void recordNodeResult(String taskId, String nodeId, String status, String message) {
+        RedisBatch batch = new RedisBatch();
+        recordNodeResult(taskId, nodeId, status, message, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    public void recordNodeResult(String taskId, String nodeId, String status, String message, RedisBatch batch) {
+        try {
+            Map<String, Object> report = new HashMap<>();
+            report.put("taskId", taskId);
+            report.put("nodeId", nodeId);
+            report.put("status", status);
+            report.put("message", message);
+            report.put("updateTime", System.currentTimeMillis());
+            updateFields(taskId, singleField(NODE_FIELD_PREFIX + nodeId, JSON.toJSONString(report)), batch);
+        } catch (Exception e) {
+            throw new RuntimeException("记录节点执行结果失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 更新任务状态
+     * 由脚本按当前状态迁移：已结束的任务不再改变，进度只增不减，并发更新不会互相覆盖；返回是否已迁移
      */
-    public void updateTaskStatus(String taskId, String status, int progress) {
+    public boolean updateTaskStatus(String taskId, String status, int progress) {
         try {
-            TaskStatus taskStatus = getTaskStatus(taskId);
-            if (taskStatus != null) {
-                taskStatus.setStatus(status);
-                taskStatus.setProgress(progress);
-                if ("COMPLETED".equals(status) || "FAILED".equals(status)) {
-                    taskStatus.setEndTime(System.currentTimeMillis());
-                }
-                storeTaskStatus(taskStatus);
-            }
+            boolean finished = "COMPLETED".equals(status) || "FAILED".equals(status);
+            RedisBatch batch = new RedisBatch();
+            RedisBatch.Reply<Long> applied = batch.evalForReply(RedisScripts.TASK_TRANSITION,
+                    Collections.singletonList(TaskKeys.state(taskId)),
+                    Arrays.asList(String.valueOf(TASK_TTL), status, String.valueOf(progress),
+                            finished ? String.valueOf(System.currentTimeMillis()) : ""));
+            publishEvent(taskId, status, batch);
+            jedisCluster.execute(batch);
+            return applied.get() != null && applied.get() == 1L;
         } catch (Exception e) {
             throw new RuntimeException("更新任务状态失败: " + e.getMessage());
         }
@@ -119,32 +402,85 @@ public class TaskManagementService {
      */
     public void updateTaskError(String taskId, String errorMessage, String errorCode) {
         try {
-            TaskStatus taskStatus = getTaskStatus(taskId);
-            if (taskStatus != null) {
-                taskStatus.setStatus("FAILED");
-                taskStatus.setErrorMessage(errorMessage);
-                taskStatus.setErrorCode(errorCode);
-                taskStatus.setEndTime(System.currentTimeMillis());
-                storeTaskStatus(taskStatus);
-            }
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FIELD_STATUS, "FAILED");
+            putIfNotNull(fields, FIELD_ERROR_MESSAGE, errorMessage);
+            putIfNotNull(fields, FIELD_ERROR_CODE, errorCode);
+            fields.put(FIELD_END_TIME, String.valueOf(System.currentTimeMillis()));
+            updateFields(taskId, fields);
         } catch (Exception e) {
             throw new RuntimeException("更新任务错误信息失败: " + e.getMessage());
         }
     }
     
+    private void updateFields(String taskId, Map<String, String> fields) {
+        RedisBatch batch = new RedisBatch();
+        updateFields(taskId, fields, batch);
+        jedisCluster.execute(batch);
+    }
+    
+    /**
+     * HSET 只写入变化的字段，无需读取和重新序列化整个状态，与TTL由一个脚本原子写入；
+     * 连同 task:events 上的状态事件（由 TaskEventService 推送给订阅的客户端，与Agent上报的事件格式一致）一次发送
+     */
+    private void updateFields(String taskId, Map<String, String> fields, RedisBatch batch) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(TASK_TTL));
+        appendFields(args, fields);
+        batch.eval(RedisScripts.TASK_STATE_UPDATE, Collections.singletonList(TaskKeys.state(taskId)), args);
+        publishEvent(taskId, fields.get(FIELD_STATUS), batch);
+    }
+    
+    private void publishEvent(String taskId, String status, RedisBatch batch) {
+        JSONObject event = new JSONObject();
+        event.put("taskId", taskId);
+        event.put("status", status);
+        event.put("timestamp", System.currentTimeMillis());
+        batch.publish(TASK_EVENTS_CHANNEL, event.toJSONString());
+    }
+    
+    private void appendFields(List<String> args, Map<String, String> fields) {
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+        }
+    }
+    
+    private Map<String, String> singleField(String field, String value) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(field, value);
+        return fields;
+    }
+    
+    private void putIfNotNull(Map<String, String> fields, String field, String value) {
+        if (value != null) {
+            fields.put(field, value);
+        }
+    }
+    
+    private int parseInt(String value) {
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+    
+    private long parseLong(String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+    
     /**
      * 获取所有任务
+     * 按任务索引读取，不遍历键空间
      */
     public List<DeployTask> getAllTasks() {
         try {
             List<DeployTask> tasks = new ArrayList<>();
-            Set<String> keys = jedisCluster.keys(TASK_PREFIX + "*");
+            List<String> keys = new ArrayList<>();
+            for (String taskId : jedisCluster.zrevrange(TASK_INDEX_KEY, 0, -1)) {
+                keys.add(TaskKeys.meta(taskId));
+            }
             
-            for (String key : keys) {
-                String taskJson = jedisCluster.get(key);
-                if (taskJson != null) {
-                    DeployTask task = JSON.parseObject(taskJson, DeployTask.class);
-                    tasks.add(task);
+            for (byte[] value : jedisCluster.mgetBytes(keys)) {
+                if (value != null) {
+                    tasks.add(ValueCodecs.decode(value, DeployTask.class));
                 }
             }
             
@@ -155,25 +491,196 @@ public class TaskManagementService {
     }
     
     /**
-     * 获取所有任务状态
+     * 获取所有任务状态，按创建时间倒序
      */
     public List<TaskStatus> getAllTaskStatus() {
         try {
-            List<TaskStatus> statusList = new ArrayList<>();
-            Set<String> keys = jedisCluster.keys(TASK_STATUS_PREFIX + "*");
-            
+            return loadTaskStatus(jedisCluster.zrevrange(TASK_INDEX_KEY, 0, -1));
+        } catch (Exception e) {
+            throw new RuntimeException("获取所有任务状态失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 分页获取最近的任务状态，按创建时间倒序，只读取当前页的任务
+     */
+    public List<TaskStatus> getRecentTaskStatus(int page, int size) {
+        try {
+            long start = (long) Math.max(page, 0) * size;
+            return loadTaskStatus(jedisCluster.zrevrange(TASK_INDEX_KEY, start, start + size - 1));
+        } catch (Exception e) {
+            throw new RuntimeException("获取最近任务状态失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 批量读取任务状态，跳过已过期的任务
+     */
+    private List<TaskStatus> loadTaskStatus(Set<String> taskIds) {
+        RedisBatch batch = new RedisBatch();
+        Map<String, RedisBatch.Reply<Map<String, String>>> replies = new LinkedHashMap<>();
+        for (String taskId : taskIds) {
+            replies.put(taskId, batch.hgetAll(TaskKeys.state(taskId)));
+        }
+        jedisCluster.execute(batch);
+        
+        List<TaskStatus> statusList = new ArrayList<>();
+        for (Map.Entry<String, RedisBatch.Reply<Map<String, String>>> entry : replies.entrySet()) {
+            TaskStatus status = buildTaskStatus(entry.getKey(), entry.getValue().get());
+            if (status != null) {
+                statusList.add(status);
+            }
+        }
+        return statusList;
+    }
+    
+    /**
+     * 启动时将第1版键迁移到按任务哈希标签命名的第2版键，并为索引建立之前创建的任务登记索引
+     * 使用SCAN分批遍历，不阻塞Redis
+     */
+    @PostConstruct
+    public void migrateAndIndexTasks() {
+        codec = ValueCodecs.forName(codecName);
+        try {
+            if (migrateLegacy) {
+                migrateLegacyTasks();
+            }
+            if (jedisCluster.zcard(TASK_INDEX_KEY) > 0) {
+                return;
+            }
+            Set<String> keys = jedisCluster.scan(TaskKeys.STATE_PATTERN, SCAN_COUNT);
+            if (keys.isEmpty()) {
+                return;
+            }
+            RedisBatch batch = new RedisBatch();
+            Map<String, RedisBatch.Reply<String>> startTimes = new LinkedHashMap<>();
             for (String key : keys) {
-                String statusJson = jedisCluster.get(key);
-                if (statusJson != null) {
-                    TaskStatus status = JSON.parseObject(statusJson, TaskStatus.class);
-                    statusList.add(status);
-                }
+                startTimes.put(TaskKeys.taskIdOfState(key), batch.hget(key, FIELD_START_TIME));
             }
+            jedisCluster.execute(batch);
             
-            return statusList;
+            RedisBatch indexBatch = new RedisBatch();
+            for (Map.Entry<String, RedisBatch.Reply<String>> entry : startTimes.entrySet()) {
+                indexBatch.zadd(TASK_INDEX_KEY, parseLong(entry.getValue().get()), entry.getKey());
+            }
+            jedisCluster.execute(indexBatch);
+            System.out.println("TaskManagement: 已为 " + keys.size() + " 个现有任务建立索引");
         } catch (Exception e) {
-            throw new RuntimeException("获取所有任务状态失败: " + e.getMessage());
+            System.err.println("TaskManagement: 迁移或索引现有任务失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 迁移第1版的 task:deploy:{taskId}、task:state:{taskId} 和更早的JSON状态 task:status:{taskId}
+     * （及基线Agent的节点状态 task:status:{taskId}:{nodeId}）：以存储脚本把旧键字段合并到新键
+     * （节点状态写入 node:{nodeId} 字段，task:state 的字段覆盖同名字段）后删除旧键，并登记到任务索引。
+     * 没有任务级状态的旧键是已过期任务的残留，直接删除。
+     * 由于旧键位于不同的槽，读取旧键和写入新键分两次批量命令完成，迁移期间读取会回退到旧键
+     */
+    private void migrateLegacyTasks() {
+        Set<String> taskIds = new LinkedHashSet<>();
+        Map<String, Map<String, String>> nodeKeys = new HashMap<>(); // 任务ID -> 节点ID -> 节点状态键
+        for (String key : jedisCluster.scan(TaskKeys.LEGACY_STATUS_PREFIX + "*", SCAN_COUNT)) {
+            String[] node = TaskKeys.splitLegacyNodeStatus(key);
+            if (node != null) {
+                nodeKeys.computeIfAbsent(node[0], k -> new HashMap<>()).put(node[1], key);
+                taskIds.add(node[0]);
+            } else {
+                taskIds.add(key.substring(TaskKeys.LEGACY_STATUS_PREFIX.length()));
+            }
+        }
+        for (String key : jedisCluster.scan(TaskKeys.LEGACY_STATE_PREFIX + "*", SCAN_COUNT)) {
+            taskIds.add(key.substring(TaskKeys.LEGACY_STATE_PREFIX.length()));
+        }
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        RedisBatch readBatch = new RedisBatch();
+        Map<String, RedisBatch.Reply<String>> statusJsons = new HashMap<>();
+        Map<String, RedisBatch.Reply<Map<String, String>>> states = new HashMap<>();
+        Map<String, RedisBatch.Reply<String>> metas = new HashMap<>();
+        Map<String, Map<String, RedisBatch.Reply<String>>> nodeJsons = new HashMap<>();
+        for (String taskId : taskIds) {
+            statusJsons.put(taskId, readBatch.get(TaskKeys.LEGACY_STATUS_PREFIX + taskId));
+            states.put(taskId, readBatch.hgetAll(TaskKeys.LEGACY_STATE_PREFIX + taskId));
+            metas.put(taskId, readBatch.get(TaskKeys.LEGACY_META_PREFIX + taskId));
+            for (Map.Entry<String, String> node : nodeKeys.getOrDefault(taskId, Collections.emptyMap()).entrySet()) {
+                nodeJsons.computeIfAbsent(taskId, k -> new HashMap<>()).put(node.getKey(), readBatch.get(node.getValue()));
+            }
+        }
+        jedisCluster.execute(readBatch);
+        
+        RedisBatch writeBatch = new RedisBatch();
+        int migrated = 0;
+        for (String taskId : taskIds) {
+            Map<String, String> nodes = new HashMap<>();
+            for (Map.Entry<String, RedisBatch.Reply<String>> node : nodeJsons.getOrDefault(taskId, Collections.emptyMap()).entrySet()) {
+                if (node.getValue().get() != null) {
+                    nodes.put(node.getKey(), node.getValue().get());
+                }
+            }
+            Map<String, String> fields = legacyFields(statusJsons.get(taskId).get(), nodes, states.get(taskId).get());
+            if (fields.containsKey(FIELD_STATUS)) {
+                String taskJson = metas.get(taskId).get();
+                List<String> args = new ArrayList<>();
+                args.add(taskJson != null ? taskJson : "");
+                args.add(String.valueOf(TASK_TTL));
+                appendFields(args, fields);
+                writeBatch.eval(RedisScripts.TASK_STORE, Arrays.asList(TaskKeys.meta(taskId), TaskKeys.state(taskId)), args)
+                        .zadd(TASK_INDEX_KEY, parseLong(fields.get(FIELD_START_TIME)), taskId);
+                migrated++;
+            }
+            writeBatch.del(TaskKeys.LEGACY_STATUS_PREFIX + taskId)
+                    .del(TaskKeys.LEGACY_STATE_PREFIX + taskId)
+                    .del(TaskKeys.LEGACY_META_PREFIX + taskId);
+            for (String nodeKey : nodeKeys.getOrDefault(taskId, Collections.emptyMap()).values()) {
+                writeBatch.del(nodeKey);
+            }
+        }
+        jedisCluster.execute(writeBatch);
+        System.out.println("TaskManagement: 已将 " + migrated + " 个任务迁移到第" + TaskKeys.VERSION + "版键，清理旧键涉及 "
+                + taskIds.size() + " 个任务");
+    }
+    
+    /**
+     * 合并旧键中的状态字段：JSON状态转换为哈希字段（节点结果转为 node:{nodeId}，传输统计转为 transfer:{来源}），
+     * 基线Agent的节点状态覆盖JSON状态中的节点结果，第1版状态哈希的字段覆盖同名字段
+     */
+    private Map<String, String> legacyFields(String statusJson, Map<String, String> nodeJsons, Map<String, String> stateFields) {
+        Map<String, String> fields = new HashMap<>();
+        if (statusJson != null) {
+            TaskStatus status = JSON.parseObject(statusJson, TaskStatus.class);
+            fields.putAll(statusFields(status));
+            if (status.getNodeResults() != null) {
+                for (Map.Entry<String, String> result : status.getNodeResults().entrySet()) {
+                    JSONObject report = new JSONObject();
+                    report.put("taskId", status.getTaskId());
+                    report.put("nodeId", result.getKey());
+                    report.put("status", result.getValue());
+                    fields.put(NODE_FIELD_PREFIX + result.getKey(), report.toJSONString());
+                }
+            }
+            if (status.getTransferStats() != null) {
+                for (Map.Entry<String, TransferStats> stats : status.getTransferStats().entrySet()) {
+                    fields.put(TRANSFER_FIELD_PREFIX + stats.getKey(), JSON.toJSONString(stats.getValue()));
+                }
+            }
+        }
+        for (Map.Entry<String, String> node : nodeJsons.entrySet()) {
+            JSONObject legacy = JSON.parseObject(node.getValue());
+            JSONObject report = new JSONObject();
+            report.put("taskId", legacy.getString("taskId"));
+            report.put("nodeId", node.getKey());
+            report.put("status", legacy.getString("status"));
+            report.put("message", legacy.getString("message"));
+            report.put("errorMessage", legacy.getString("errorMessage"));
+            report.put("updateTime", legacy.getLongValue("updateTime"));
+            fields.put(NODE_FIELD_PREFIX + node.getKey(), report.toJSONString());
+        }
+        if (stateFields != null) {
+            fields.putAll(stateFields);
         }
+        return fields;
     }
     
     /**
@@ -181,10 +688,14 @@ public class TaskManagementService {
      */
     public void deleteTask(String taskId) {
         try {
-            String taskKey = TASK_PREFIX + taskId;
-            String statusKey = TASK_STATUS_PREFIX + taskId;
-            jedisCluster.del(taskKey);
-            jedisCluster.del(statusKey);
+            jedisCluster.execute(new RedisBatch()
+                    .eval(RedisScripts.TASK_DELETE, Arrays.asList(TaskKeys.meta(taskId), TaskKeys.state(taskId)),
+                            Collections.<String>emptyList())
+                    .zrem(TASK_INDEX_KEY, taskId)
+                    // 尚未迁移的旧键
+                    .del(TaskKeys.LEGACY_META_PREFIX + taskId)
+                    .del(TaskKeys.LEGACY_STATE_PREFIX + taskId)
+                    .del(TaskKeys.LEGACY_STATUS_PREFIX + taskId));
         } catch (Exception e) {
             throw new RuntimeException("删除任务失败: " + e.getMessage());
         }
@@ -192,10 +703,12 @@ public class TaskManagementService {
     
     /**
      * 清理过期任务
+     * 任务数据由Redis按过期时间清理，这里移除任务索引中已过期的项
      */
     public void cleanupExpiredTasks() {
         try {
-            // Redis会自动清理过期的key，这里可以添加额外的清理逻辑
+            jedisCluster.execute(new RedisBatch().zremrangeByScore(TASK_INDEX_KEY, 0,
+                    System.currentTimeMillis() - TASK_TTL * 1000L));
             System.out.println("清理过期任务完成");
         } catch (Exception e) {
             System.err.println("清理过期任务失败: " + e.getMessage());
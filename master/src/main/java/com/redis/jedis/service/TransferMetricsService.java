@@ -0,0 +1,130 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DistributionChoice;
+import com.redis.jedis.dto.LinkMetrics;
+import com.redis.jedis.util.RedisClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 传输指标服务
+ * 按节点和分发方式记录历史传输的吞吐量与延迟（transfer:metrics:{nodeId}:{method}），
+ * 预测一次分发的耗时；尚无实测数据的方式按配置的默认吞吐量和延迟估计
+ */
+@Service
+public class TransferMetricsService {
+    
+    @Autowired
+    private RedisClient jedisCluster;
+    
+    @Value("${deploy.file-transfer.adaptive.decay:0.7}")
+    private double decay;
+    
+    @Value("${deploy.file-transfer.adaptive.prior-throughput:redis:40,shared-storage:100,http:60}")
+    private String priorThroughput; // MB/s
+    
+    @Value("${deploy.file-transfer.adaptive.prior-latency:redis:50,shared-storage:20,http:200}")
+    private String priorLatency; // 毫秒
+    
+    /**
+     * Master推送Redis分块的指标记录在该节点名下
+     */
+    public static final String MASTER_NODE = "master";
+    
+    private static final String METRICS_PREFIX = "transfer:metrics:";
+    private static final int METRICS_TTL = 2592000; // 30天
+    
+    private final Map<String, Double> priorThroughputs = new HashMap<>();
+    private final Map<String, Double> priorLatencies = new HashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        parsePriors(priorThroughput, priorThroughputs);
+        parsePriors(priorLatency, priorLatencies);
+    }
+    
+    /**
+     * 获取节点某种分发方式的历史指标，没有记录时返回null
+     */
+    public LinkMetrics getMetrics(String nodeId, String method) {
+        String json = jedisCluster.get(METRICS_PREFIX + nodeId + ":" + method);
+        return json != null ? JSON.parseObject(json, LinkMetrics.class) : null;
+    }
+    
+    /**
+     * 批量获取多个节点各分发方式的历史指标，一次MGET读取
+     *
+     * @return 节点ID:分发方式 -> 指标，没有记录的组合不在其中
+     */
+    public Map<String, LinkMetrics> getMetrics(List<String> nodeIds, List<String> methods) {
+        List<String> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (String nodeId : nodeIds) {
+            for (String method : methods) {
+                ids.add(nodeId + ":" + method);
+                keys.add(METRICS_PREFIX + nodeId + ":" + method);
+            }
+        }
+        Map<String, LinkMetrics> metrics = new HashMap<>();
+        List<String> values = jedisCluster.mget(keys);
+        for (int i = 0; i < ids.size(); i++) {
+            if (values.get(i) != null) {
+                metrics.put(ids.get(i), JSON.parseObject(values.get(i), LinkMetrics.class));
+            }
+        }
+        return metrics;
+    }
+    
+    /**
+     * 记录一次传输样本
+     */
+    public void record(String nodeId, String method, long size, long millis) {
+        try {
+            LinkMetrics metrics = getMetrics(nodeId, method);
+            if (metrics == null) {
+                metrics = new LinkMetrics();
+            }
+            metrics.addSample(size, millis, decay);
+            jedisCluster.setex(METRICS_PREFIX + nodeId + ":" + method, METRICS_TTL, JSON.toJSONString(metrics));
+        } catch (Exception e) {
+            System.err.println("TransferMetrics: 记录传输指标失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 预测节点用指定方式传输 size 字节的耗时
+     */
+    public DistributionChoice predict(String nodeId, String method, long size) {
+        return predict(getMetrics(nodeId, method), method, size);
+    }
+    
+    /**
+     * 按已读取的历史指标预测耗时，metrics 为空时使用默认值估计
+     */
+    public DistributionChoice predict(LinkMetrics metrics, String method, long size) {
+        long predicted = metrics != null ? metrics.predictMillis(size) : -1;
+        if (predicted >= 0) {
+            return new DistributionChoice(method, predicted, true);
+        }
+        double throughput = priorThroughputs.getOrDefault(method, 50.0);
+        double latency = priorLatencies.getOrDefault(method, 100.0);
+        return new DistributionChoice(method, Math.round(latency + size / 1048576.0 / throughput * 1000), false);
+    }
+    
+    private void parsePriors(String config, Map<String, Double> target) {
+        for (String entry : config.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator > 0) {
+                target.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+            }
+        }
+    }
+}
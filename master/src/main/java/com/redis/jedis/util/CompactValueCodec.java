@@ -0,0 +1,258 @@
+package com.redis.jedis.util;
+
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.dto.NodeStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑二进制编码
+ * 按字段顺序写入，不含字段名：整数为变长编码（ZigZag），字符串为长度+UTF-8，集合为元素数+元素，null以长度0表示。
+ * 首字节为 MAGIC（0xC1 不是合法的UTF-8首字节，JSON文本不会以它开头），第二个字节为结构版本；
+ * 增加字段时追加到末尾并提高版本号，读取时按版本决定读到哪个字段。
+ * 目前支持 NodeStatus、DeployTask，其他类型回退为JSON编码
+ */
+public class CompactValueCodec implements ValueCodec {
+
+    static final byte MAGIC = (byte) 0xC1;
+
+    private static final byte NODE_STATUS_VERSION = 1;
+    private static final byte DEPLOY_TASK_VERSION = 1;
+
+    private final ValueCodec fallback = new JsonValueCodec();
+
+    @Override
+    public String name() {
+        return "compact";
+    }
+
+    static boolean isCompact(byte[] data) {
+        return data.length > 1 && data[0] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        byte version;
+        if (value instanceof NodeStatus) {
+            version = NODE_STATUS_VERSION;
+        } else if (value instanceof DeployTask) {
+            version = DEPLOY_TASK_VERSION;
+        } else {
+            return fallback.encode(value);
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC);
+            out.writeByte(version);
+            if (value instanceof NodeStatus) {
+                writeNodeStatus(out, (NodeStatus) value);
+            } else {
+                writeDeployTask(out, (DeployTask) value);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("编码失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) {
+        if (!isCompact(data)) {
+            return fallback.decode(data, type);
+        }
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2));
+            int version = data[1];
+            if (type == NodeStatus.class && version <= NODE_STATUS_VERSION) {
+                return type.cast(readNodeStatus(in));
+            }
+            if (type == DeployTask.class && version <= DEPLOY_TASK_VERSION) {
+                return type.cast(readDeployTask(in));
+            }
+            throw new IllegalArgumentException("不支持的紧凑编码: " + type.getSimpleName() + " 版本 " + version);
+        } catch (IOException e) {
+            throw new IllegalStateException("解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeNodeStatus(DataOutputStream out, NodeStatus status) throws IOException {
+        writeString(out, status.getNodeId());
+        writeString(out, status.getNodeName());
+        writeString(out, status.getServiceStatus());
+        out.writeDouble(status.getCpuUsage());
+        out.writeDouble(status.getMemoryUsage());
+        writeString(out, status.getHealthStatus());
+        writeLong(out, status.getLastHeartbeat());
+        writeLong(out, status.getLastDeployTime());
+        writeString(out, status.getLastDeployVersion());
+        writeLong(out, status.getUptime());
+        writeString(out, status.getJarPath());
+        writeLong(out, status.getJarFileSize());
+        writeLong(out, status.getJarFileTime());
+    }
+
+    private static NodeStatus readNodeStatus(DataInputStream in) throws IOException {
+        NodeStatus status = new NodeStatus();
+        status.setNodeId(readString(in));
+        status.setNodeName(readString(in));
+        status.setServiceStatus(readString(in));
+        status.setCpuUsage(in.readDouble());
+        status.setMemoryUsage(in.readDouble());
+        status.setHealthStatus(readString(in));
+        status.setLastHeartbeat(readLong(in));
+        status.setLastDeployTime(readLong(in));
+        status.setLastDeployVersion(readString(in));
+        status.setUptime(readLong(in));
+        status.setJarPath(readString(in));
+        status.setJarFileSize(readLong(in));
+        status.setJarFileTime(readLong(in));
+        return status;
+    }
+
+    private static void writeDeployTask(DataOutputStream out, DeployTask task) throws IOException {
+        writeString(out, task.getTaskId());
+        writeString(out, task.getIdempotencyKey());
+        writeString(out, task.getNodeId());
+        writeString(out, task.getServiceName());
+        writeString(out, task.getAction());
+        writeString(out, task.getDistributionMethod());
+        writeString(out, task.getFilePath());
+        writeLong(out, task.getFileSize());
+        writeString(out, task.getFileChecksum());
+        writeStringList(out, task.getTargetNodes());
+        writeLong(out, task.getCreateTime());
+        writeString(out, task.getOperator());
+        writeStringMap(out, task.getFanoutSources());
+        writeStringMap(out, task.getDeltaArtifacts());
+        writeStringMap(out, task.getNodeMethods());
+        writeStringMap(out, task.getMethodSources());
+        writeString(out, task.getHealthCheckUrl());
+    }
+
+    private static DeployTask readDeployTask(DataInputStream in) throws IOException {
+        DeployTask task = new DeployTask();
+        task.setTaskId(readString(in));
+        task.setIdempotencyKey(readString(in));
+        task.setNodeId(readString(in));
+        task.setServiceName(readString(in));
+        task.setAction(readString(in));
+        task.setDistributionMethod(readString(in));
+        task.setFilePath(readString(in));
+        task.setFileSize(readLong(in));
+        task.setFileChecksum(readString(in));
+        task.setTargetNodes(readStringList(in));
+        task.setCreateTime(readLong(in));
+        task.setOperator(readString(in));
+        task.setFanoutSources(readStringMap(in));
+        task.setDeltaArtifacts(readStringMap(in));
+        task.setNodeMethods(readStringMap(in));
+        task.setMethodSources(readStringMap(in));
+        task.setHealthCheckUrl(readString(in));
+        return task;
+    }
+
+    // 长度与元素数写入时加1，0表示null
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStringList(DataOutputStream out, List<String> values) throws IOException {
+        writeVarint(out, values == null ? 0 : values.size() + 1L);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static List<String> readStringList(DataInputStream in) throws IOException {
+        int size = (int) readVarint(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> values) throws IOException {
+        writeVarint(out, values == null ? 0 : values.size() + 1L);
+        if (values != null) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readStringMap(DataInputStream in) throws IOException {
+        int size = (int) readVarint(in) - 1;
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            values.put(readString(in), readString(in));
+        }
+        return values;
+    }
+
+    private static void writeLong(DataOutputStream out, long value) throws IOException {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readLong(DataInputStream in) throws IOException {
+        long zigzag = readVarint(in);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static void writeVarint(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarint(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+}
@@ -0,0 +1,106 @@
+package com.redis.jedis.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 传输压缩编解码器
+ * 名称同时用作HTTP Content-Encoding 和 Redis分块元数据中的 codec 字段，需与Agent端保持一致
+ */
+public enum CompressionCodec {
+
+    NONE("identity") {
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) {
+            return in;
+        }
+    },
+
+    GZIP("gzip") {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    LZ4("lz4") {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_4MB);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new LZ4FrameInputStream(in);
+        }
+    },
+
+    ZSTD("zstd") {
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new ZstdOutputStream(out, ZSTD_LEVEL);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new ZstdInputStream(in);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final int ZSTD_LEVEL = 3;
+
+    private final String encoding;
+
+    CompressionCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * 包装输出流，写入的数据经压缩后输出；关闭返回的流才会写出尾部数据
+     */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * 包装输入流，读取时解压
+     */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * 按名称或Content-Encoding查找编解码器，未识别时返回null
+     */
+    public static CompressionCodec fromName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return NONE;
+        }
+        String value = name.trim();
+        for (CompressionCodec codec : values()) {
+            if (codec.name().equalsIgnoreCase(value) || codec.encoding.equalsIgnoreCase(value)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.redis.jedis.util;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * JSON编码（UTF-8），与以字符串写入的值相同，Agent和其他工具可以直接读取
+ */
+public class JsonValueCodec implements ValueCodec {
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return JSON.toJSONBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) {
+        return JSON.parseObject(data, type);
+    }
+}
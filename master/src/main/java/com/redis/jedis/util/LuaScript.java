@@ -0,0 +1,53 @@
+package com.redis.jedis.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua脚本
+ * SHA1在本地计算，与 SCRIPT LOAD 返回值一致，调用时以 EVALSHA 只发送摘要；
+ * 服务端脚本缓存丢失（重启、故障转移、SCRIPT FLUSH）时由 RedisClient 以 EVAL 重发，EVAL 同时重新缓存脚本
+ */
+public final class LuaScript {
+
+    private final String name;
+    private final String source;
+    private final String sha1;
+
+    public LuaScript(String name, String source) {
+        this.name = name;
+        this.source = source;
+        this.sha1 = sha1Hex(source);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    private static String sha1Hex(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-1", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + sha1 + ")";
+    }
+}
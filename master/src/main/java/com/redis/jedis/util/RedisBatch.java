@@ -0,0 +1,300 @@
+package com.redis.jedis.util;
+
+import redis.clients.jedis.MultiKeyPipelineBase;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 批量命令
+ * 由 RedisClient.execute 以管道方式发送：单机模式一次往返，集群模式按槽分组，每个槽一次往返；
+ * 同一个槽内的命令按添加顺序执行。读命令返回 Reply，执行后通过 Reply.get() 取得结果。
+ * 需要原子执行时使用 RedisClient.executeAtomic，以 MULTI/EXEC 发送，集群模式下要求所有键位于同一个槽
+ */
+public class RedisBatch {
+
+    private final List<Operation> operations = new ArrayList<>();
+    private final List<Runnable> callbacks = new ArrayList<>();
+
+    public RedisBatch set(String key, String value) {
+        return add(key, p -> p.set(key, value));
+    }
+
+    public RedisBatch setex(String key, int seconds, String value) {
+        return add(key, p -> p.setex(key, (long) seconds, value));
+    }
+
+    public RedisBatch setex(String key, int seconds, byte[] value) {
+        return add(key, p -> p.setex(SafeEncoder.encode(key), (long) seconds, value));
+    }
+
+    public RedisBatch expire(String key, int seconds) {
+        return add(key, p -> p.expire(key, (long) seconds));
+    }
+
+    public RedisBatch del(String key) {
+        return add(key, p -> p.del(key));
+    }
+
+    public RedisBatch sadd(String key, String member) {
+        return add(key, p -> p.sadd(key, member));
+    }
+
+    public RedisBatch hset(String key, Map<String, String> fields) {
+        return add(key, p -> p.hset(key, fields));
+    }
+
+    public RedisBatch lpush(String key, String value) {
+        return add(key, p -> p.lpush(key, value));
+    }
+
+    public RedisBatch ltrim(String key, long start, long end) {
+        return add(key, p -> p.ltrim(key, start, end));
+    }
+
+    public RedisBatch rpush(String key, String value) {
+        return add(key, p -> p.rpush(key, value));
+    }
+
+    public RedisBatch zadd(String key, double score, String member) {
+        return add(key, p -> p.zadd(key, score, member));
+    }
+
+    public RedisBatch zaddIfAbsent(String key, double score, String member) {
+        return add(key, p -> p.zadd(key, score, member, ZAddParams.zAddParams().nx()));
+    }
+
+    public RedisBatch zrem(String key, String member) {
+        return add(key, p -> p.zrem(key, member));
+    }
+
+    public RedisBatch zremrangeByScore(String key, double min, double max) {
+        return add(key, p -> p.zremrangeByScore(key, min, max));
+    }
+
+    public RedisBatch xadd(String key, Map<String, String> fields, long maxLen) {
+        return add(key, p -> p.xadd(key, StreamEntryID.NEW_ENTRY, fields, maxLen, true));
+    }
+
+    /**
+     * 执行注册的Lua脚本，以 EVALSHA 发送，管道中先以 SCRIPT LOAD 确保脚本已缓存；
+     * 集群模式下按第一个键所在的槽发送，脚本涉及的键需使用相同的哈希标签
+     */
+    public RedisBatch eval(LuaScript script, List<String> keys, List<String> args) {
+        return addScript(keys.isEmpty() ? null : keys.get(0), script, keys, args, null);
+    }
+
+    /**
+     * 执行注册的Lua脚本，参数为二进制（如编码后的值），Lua字符串本身是二进制安全的
+     */
+    public RedisBatch evalBinary(LuaScript script, List<String> keys, List<byte[]> args) {
+        List<byte[]> binaryKeys = new ArrayList<>();
+        for (String key : keys) {
+            binaryKeys.add(SafeEncoder.encode(key));
+        }
+        byte[] sha1 = SafeEncoder.encode(script.getSha1());
+        byte[] source = SafeEncoder.encode(script.getSource());
+        operations.add(new Operation(keys.isEmpty() ? null : keys.get(0),
+                p -> p.evalsha(sha1, binaryKeys, args), p -> p.eval(source, binaryKeys, args), script));
+        return this;
+    }
+
+    /**
+     * 从列表头部写入，保留最近的 keep 条（不大于0时不裁剪）并设置过期时间
+     */
+    public RedisBatch pushTrimExpire(String key, String value, int keep, int seconds) {
+        return eval(RedisScripts.PUSH_TRIM_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(value, String.valueOf(keep), String.valueOf(seconds)));
+    }
+
+    /**
+     * 发布消息，集群模式下与其他命令在同一连接上发送
+     */
+    public RedisBatch publish(String channel, String message) {
+        return add(null, p -> p.publish(channel, message));
+    }
+
+    public Reply<String> get(String key) {
+        Reply<String> reply = new Reply<>();
+        add(key, p -> reply.bind(p.get(key)));
+        return reply;
+    }
+
+    public Reply<byte[]> getBytes(String key) {
+        Reply<byte[]> reply = new Reply<>();
+        add(key, p -> reply.bind(p.get(SafeEncoder.encode(key))));
+        return reply;
+    }
+
+    public Reply<Boolean> sismember(String key, String member) {
+        Reply<Boolean> reply = new Reply<>();
+        add(key, p -> reply.bind(p.sismember(key, member)));
+        return reply;
+    }
+
+    public Reply<String> hget(String key, String field) {
+        Reply<String> reply = new Reply<>();
+        add(key, p -> reply.bind(p.hget(key, field)));
+        return reply;
+    }
+
+    public Reply<Map<String, String>> hgetAll(String key) {
+        Reply<Map<String, String>> reply = new Reply<>();
+        add(key, p -> reply.bind(p.hgetAll(key)));
+        return reply;
+    }
+
+    public Reply<List<String>> lrange(String key, long start, long end) {
+        Reply<List<String>> reply = new Reply<>();
+        add(key, p -> reply.bind(p.lrange(key, start, end)));
+        return reply;
+    }
+
+    /**
+     * 读取并刷新过期时间，键不存在时结果为null
+     */
+    public Reply<String> getAndTouch(String key, int seconds) {
+        Reply<String> reply = new Reply<>();
+        addScript(key, RedisScripts.GET_AND_TOUCH, Collections.singletonList(key),
+                Collections.singletonList(String.valueOf(seconds)), reply);
+        return reply;
+    }
+
+    /**
+     * 读取二进制值并刷新过期时间，键不存在时结果为null
+     */
+    @SuppressWarnings("unchecked")
+    public Reply<byte[]> getAndTouchBytes(String key, int seconds) {
+        Reply<byte[]> reply = new Reply<>();
+        List<byte[]> keys = Collections.singletonList(SafeEncoder.encode(key));
+        List<byte[]> args = Collections.singletonList(SafeEncoder.encode(String.valueOf(seconds)));
+        byte[] sha1 = SafeEncoder.encode(RedisScripts.GET_AND_TOUCH.getSha1());
+        byte[] source = SafeEncoder.encode(RedisScripts.GET_AND_TOUCH.getSource());
+        operations.add(new Operation(key,
+                p -> ((Reply<Object>) (Reply<?>) reply).bind(p.evalsha(sha1, keys, args)),
+                p -> ((Reply<Object>) (Reply<?>) reply).bind(p.eval(source, keys, args)),
+                RedisScripts.GET_AND_TOUCH));
+        return reply;
+    }
+
+    /**
+     * 执行有返回值的Lua脚本，结果类型由脚本决定（整数为Long，字符串为String，数组为List）
+     */
+    public <T> Reply<T> evalForReply(LuaScript script, List<String> keys, List<String> args) {
+        Reply<T> reply = new Reply<>();
+        addScript(keys.isEmpty() ? null : keys.get(0), script, keys, args, reply);
+        return reply;
+    }
+
+    /**
+     * 批量命令执行成功后回调，可在其中读取 Reply；执行失败时不调用
+     */
+    public RedisBatch afterExecute(Runnable callback) {
+        callbacks.add(callback);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    List<Operation> getOperations() {
+        return operations;
+    }
+
+    void executed() {
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    /**
+     * 批量中用到的脚本，管道发送时先在同一管道中 SCRIPT LOAD：不增加往返，服务端脚本缓存丢失
+     * （重启、故障转移、SCRIPT FLUSH）时后续 EVALSHA 也不会失败，命令始终按添加顺序执行
+     */
+    static Set<LuaScript> scripts(List<Operation> operations) {
+        Set<LuaScript> scripts = new LinkedHashSet<>();
+        for (Operation operation : operations) {
+            if (operation.script != null) {
+                scripts.add(operation.script);
+            }
+        }
+        return scripts;
+    }
+
+    private RedisBatch add(String key, Consumer<MultiKeyPipelineBase> command) {
+        operations.add(new Operation(key, command, null, null));
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisBatch addScript(String key, LuaScript script, List<String> keys, List<String> args, Reply<?> reply) {
+        Consumer<MultiKeyPipelineBase> evalsha = p -> {
+            Response<Object> response = p.evalsha(script.getSha1(), keys, args);
+            if (reply != null) {
+                ((Reply<Object>) reply).bind(response);
+            }
+        };
+        Consumer<MultiKeyPipelineBase> eval = p -> {
+            Response<Object> response = p.eval(script.getSource(), keys, args);
+            if (reply != null) {
+                ((Reply<Object>) reply).bind(response);
+            }
+        };
+        operations.add(new Operation(key, evalsha, eval, script));
+        return this;
+    }
+
+    /**
+     * 读命令的结果，批量命令执行后可用；集群模式下槽迁移重试时绑定到重新发送的命令
+     */
+    public static class Reply<T> {
+        private Response<T> response;
+
+        void bind(Response<T> response) {
+            this.response = response;
+        }
+
+        public T get() {
+            if (response == null) {
+                throw new IllegalStateException("批量命令尚未执行");
+            }
+            return response.get();
+        }
+    }
+
+    static class Operation {
+        final String key; // 为空表示与槽无关（如发布消息）
+        final Consumer<MultiKeyPipelineBase> command;
+        // 脚本命令以 EVAL 发送的形式，在 MULTI/EXEC 中使用（事务中的 NOSCRIPT 无法单独重试）
+        final Consumer<MultiKeyPipelineBase> evalCommand;
+        // 脚本命令对应的脚本，管道发送前先 SCRIPT LOAD
+        final LuaScript script;
+
+        Operation(String key, Consumer<MultiKeyPipelineBase> command, Consumer<MultiKeyPipelineBase> evalCommand,
+                LuaScript script) {
+            this.key = key;
+            this.command = command;
+            this.evalCommand = evalCommand;
+            this.script = script;
+        }
+
+        Consumer<MultiKeyPipelineBase> atomicCommand() {
+            return evalCommand != null ? evalCommand : command;
+        }
+    }
+}
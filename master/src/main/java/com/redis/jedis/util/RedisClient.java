@@ -1,22 +1,81 @@
 package com.redis.jedis.util;
 
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamPendingEntry;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface RedisClient {
     String get(String key);
+    byte[] getBytes(String key);
+    List<String> mget(List<String> keys);
+    List<byte[]> mgetBytes(List<String> keys);
+    void mset(Map<String, String> values);
     void set(String key, String value);
     void setex(String key, int seconds, String value);
+    void setex(String key, int seconds, byte[] value);
     void expire(String key, int seconds);
     void sadd(String key, String member);
     Set<String> smembers(String key);
+    boolean sismember(String key, String member);
+    void hset(String key, Map<String, String> fields);
+    Map<String, String> hgetAll(String key);
     void lpush(String key, String value);
+    void rpush(String key, String value);
+    long lrem(String key, long count, String value);
     void ltrim(String key, int start, int end);
     List<String> lrange(String key, int start, int end);
     String rpop(String key);
+    boolean zaddIfAbsent(String key, double score, String member);
+    Double zscore(String key, String member);
+    Set<String> zrange(String key, long start, long end);
+    Set<String> zrangeByScore(String key, String min, String max);
+    Set<String> zrevrange(String key, long start, long end);
+    long zcard(String key);
+    void zrem(String key, String member);
+    String xadd(String key, Map<String, String> fields, long maxLen);
+    void xgroupCreate(String key, String group, boolean fromLatest);
+    List<StreamPendingEntry> xpending(String key, String group, int count);
+    List<StreamEntry> xrange(String key, String start, String end, int count);
+    Object eval(LuaScript script, List<String> keys, List<String> args);
+    void loadScripts(List<LuaScript> scripts);
     void publish(String channel, String message);
-    Set<String> keys(String pattern);
+    void subscribe(JedisPubSub listener, String channel);
+    void execute(RedisBatch batch);
+    void executeAtomic(RedisBatch batch);
+    Set<String> scan(String pattern, int count);
     void del(String key);
+
+    /**
+     * 读取并刷新过期时间，一次往返；键不存在时返回null
+     */
+    default String getAndTouch(String key, int seconds) {
+        return (String) eval(RedisScripts.GET_AND_TOUCH, Collections.singletonList(key),
+                Collections.singletonList(String.valueOf(seconds)));
+    }
+
+    /**
+     * 读取二进制值并刷新过期时间，一次往返；键不存在时返回null
+     */
+    default byte[] getAndTouchBytes(String key, int seconds) {
+        RedisBatch batch = new RedisBatch();
+        RedisBatch.Reply<byte[]> reply = batch.getAndTouchBytes(key, seconds);
+        execute(batch);
+        return reply.get();
+    }
+
+    /**
+     * 从列表头部写入，保留最近的 keep 条（不大于0时不裁剪）并设置过期时间，一次往返
+     */
+    default void pushTrimExpire(String key, String value, int keep, int seconds) {
+        eval(RedisScripts.PUSH_TRIM_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(value, String.valueOf(keep), String.valueOf(seconds)));
+    }
 }
 
 
@@ -1,8 +1,29 @@
 package com.redis.jedis.util;
 
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.StreamPendingEntry;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class RedisClusterClient implements RedisClient {
@@ -17,6 +38,59 @@ public class RedisClusterClient implements RedisClient {
         return delegate.get(key);
     }
 
+    @Override
+    public byte[] getBytes(String key) {
+        return delegate.get(SafeEncoder.encode(key));
+    }
+
+    /**
+     * 键可能分布在多个槽，按槽分组以管道读取，结果顺序与 keys 一致
+     */
+    @Override
+    public List<byte[]> mgetBytes(List<String> keys) {
+        RedisBatch batch = new RedisBatch();
+        List<RedisBatch.Reply<byte[]>> replies = new ArrayList<>();
+        for (String key : keys) {
+            replies.add(batch.getBytes(key));
+        }
+        execute(batch);
+        List<byte[]> values = new ArrayList<>();
+        for (RedisBatch.Reply<byte[]> reply : replies) {
+            values.add(reply.get());
+        }
+        return values;
+    }
+
+    /**
+     * 键可能分布在多个槽，按槽分组以管道读取，结果顺序与 keys 一致
+     */
+    @Override
+    public List<String> mget(List<String> keys) {
+        RedisBatch batch = new RedisBatch();
+        List<RedisBatch.Reply<String>> replies = new ArrayList<>();
+        for (String key : keys) {
+            replies.add(batch.get(key));
+        }
+        execute(batch);
+        List<String> values = new ArrayList<>();
+        for (RedisBatch.Reply<String> reply : replies) {
+            values.add(reply.get());
+        }
+        return values;
+    }
+
+    /**
+     * 按槽分组以管道写入；不同槽之间不保证原子性
+     */
+    @Override
+    public void mset(Map<String, String> values) {
+        RedisBatch batch = new RedisBatch();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            batch.set(entry.getKey(), entry.getValue());
+        }
+        execute(batch);
+    }
+
     @Override
     public void set(String key, String value) {
         delegate.set(key, value);
@@ -24,12 +98,17 @@ public class RedisClusterClient implements RedisClient {
 
     @Override
     public void setex(String key, int seconds, String value) {
-        delegate.setex(key, seconds, value);
+        delegate.setex(key, (long) seconds, value);
+    }
+
+    @Override
+    public void setex(String key, int seconds, byte[] value) {
+        delegate.setex(SafeEncoder.encode(key), (long) seconds, value);
     }
 
     @Override
     public void expire(String key, int seconds) {
-        delegate.expire(key, seconds);
+        delegate.expire(key, (long) seconds);
     }
 
     @Override
@@ -42,11 +121,36 @@ public class RedisClusterClient implements RedisClient {
         return delegate.smembers(key);
     }
 
+    @Override
+    public boolean sismember(String key, String member) {
+        return delegate.sismember(key, member);
+    }
+
+    @Override
+    public void hset(String key, Map<String, String> fields) {
+        delegate.hset(key, fields);
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return delegate.hgetAll(key);
+    }
+
     @Override
     public void lpush(String key, String value) {
         delegate.lpush(key, value);
     }
 
+    @Override
+    public void rpush(String key, String value) {
+        delegate.rpush(key, value);
+    }
+
+    @Override
+    public long lrem(String key, long count, String value) {
+        return delegate.lrem(key, count, value);
+    }
+
     @Override
     public void ltrim(String key, int start, int end) {
         delegate.ltrim(key, start, end);
@@ -62,14 +166,255 @@ public class RedisClusterClient implements RedisClient {
         return delegate.rpop(key);
     }
 
+    @Override
+    public boolean zaddIfAbsent(String key, double score, String member) {
+        return delegate.zadd(key, score, member, ZAddParams.zAddParams().nx()) > 0;
+    }
+
+    @Override
+    public Double zscore(String key, String member) {
+        return delegate.zscore(key, member);
+    }
+
+    @Override
+    public Set<String> zrange(String key, long start, long end) {
+        return delegate.zrange(key, start, end);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max) {
+        return delegate.zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrevrange(String key, long start, long end) {
+        return delegate.zrevrange(key, start, end);
+    }
+
+    @Override
+    public long zcard(String key) {
+        return delegate.zcard(key);
+    }
+
+    @Override
+    public void zrem(String key, String member) {
+        delegate.zrem(key, member);
+    }
+
+    @Override
+    public String xadd(String key, Map<String, String> fields, long maxLen) {
+        return delegate.xadd(key, StreamEntryID.NEW_ENTRY, fields, maxLen, true).toString();
+    }
+
+    @Override
+    public void xgroupCreate(String key, String group, boolean fromLatest) {
+        try {
+            delegate.xgroupCreate(key, group, fromLatest ? StreamEntryID.LAST_ENTRY : new StreamEntryID(), true);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public List<StreamPendingEntry> xpending(String key, String group, int count) {
+        return delegate.xpending(key, group, null, null, count, null);
+    }
+
+    @Override
+    public List<StreamEntry> xrange(String key, String start, String end, int count) {
+        return delegate.xrange(key, new StreamEntryID(start), new StreamEntryID(end), count);
+    }
+
+    /**
+     * 以 EVALSHA 调用，脚本未缓存时以 EVAL 重发；脚本的所有键必须位于同一个槽
+     */
+    @Override
+    public Object eval(LuaScript script, List<String> keys, List<String> args) {
+        try {
+            return delegate.evalsha(script.getSha1(), keys, args);
+        } catch (JedisNoScriptException e) {
+            return delegate.eval(script.getSource(), keys, args);
+        }
+    }
+
+    /**
+     * 在每个主节点上加载脚本；新加入或故障转移后的节点在首次 NOSCRIPT 时由 EVAL 重新缓存
+     */
+    @Override
+    public void loadScripts(List<LuaScript> scripts) {
+        for (JedisPool pool : delegate.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                if (!jedis.info("replication").contains("role:master")) {
+                    continue;
+                }
+                for (LuaScript script : scripts) {
+                    jedis.scriptLoad(script.getSource());
+                }
+            }
+        }
+    }
+
     @Override
     public void publish(String channel, String message) {
         delegate.publish(channel, message);
     }
 
     @Override
-    public Set<String> keys(String pattern) {
-        return delegate.keys(pattern);
+    public void subscribe(JedisPubSub listener, String channel) {
+        delegate.subscribe(listener, channel);
+    }
+
+    /**
+     * 按槽分组，每组在该槽所在节点的连接上以管道发送；
+     * 只重发被重定向的命令，已执行成功的命令不会重复执行（LPUSH、PUBLISH等不是幂等的）：
+     * MOVED 时刷新槽缓存后发往新节点，ASK（槽迁移中）时在目标节点上以 ASKING 加原命令发送
+     */
+    @Override
+    public void execute(RedisBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<RedisBatch.Operation>> groups = new LinkedHashMap<>();
+        Integer firstSlot = null;
+        for (RedisBatch.Operation operation : batch.getOperations()) {
+            Integer slot = operation.key != null ? JedisClusterCRC16.getSlot(operation.key) : firstSlot;
+            if (slot == null) {
+                slot = 0;
+            }
+            if (firstSlot == null) {
+                firstSlot = slot;
+            }
+            groups.computeIfAbsent(slot, k -> new ArrayList<>()).add(operation);
+        }
+        for (Map.Entry<Integer, List<RedisBatch.Operation>> group : groups.entrySet()) {
+            executeSlot(group.getKey(), group.getValue());
+        }
+        batch.executed();
+    }
+
+    /**
+     * 以 MULTI/EXEC 在单个槽所在节点上执行；键分布在多个槽时拒绝执行，相关键应使用相同的哈希标签
+     * 入队时被重定向会使 EXEC 整体放弃（EXECABORT），此时事务中的命令均未执行，刷新槽缓存后整体重试一次
+     */
+    @Override
+    public void executeAtomic(RedisBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Integer slot = null;
+        String sampleKey = null;
+        for (RedisBatch.Operation operation : batch.getOperations()) {
+            if (operation.key == null) {
+                continue;
+            }
+            int keySlot = JedisClusterCRC16.getSlot(operation.key);
+            if (slot != null && slot != keySlot) {
+                throw new JedisDataException("原子批量命令的键位于多个槽，无法在集群中原子执行: " + operation.key);
+            }
+            slot = keySlot;
+            sampleKey = operation.key;
+        }
+        int targetSlot = slot != null ? slot : 0;
+        try {
+            executeTransaction(targetSlot, batch.getOperations());
+        } catch (JedisDataException e) {
+            if (sampleKey == null || e.getMessage() == null || !e.getMessage().startsWith("EXECABORT")) {
+                throw e;
+            }
+            refreshSlotCache(sampleKey);
+            executeTransaction(targetSlot, batch.getOperations());
+        }
+        batch.executed();
+    }
+
+    private void executeTransaction(int slot, List<RedisBatch.Operation> operations) {
+        try (Jedis jedis = delegate.getConnectionFromSlot(slot)) {
+            RedisPipelines.throwIfError(RedisPipelines.transaction(jedis, operations));
+        }
+    }
+
+    private void executeSlot(int slot, List<RedisBatch.Operation> operations) {
+        List<Object> results;
+        try (Jedis jedis = delegate.getConnectionFromSlot(slot)) {
+            results = RedisPipelines.pipelined(jedis, operations, false);
+        }
+        List<RedisBatch.Operation> moved = new ArrayList<>();
+        Map<HostAndPort, List<RedisBatch.Operation>> asked = new LinkedHashMap<>();
+        List<Object> errors = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            Object result = results.get(i);
+            if (result instanceof JedisAskDataException) {
+                asked.computeIfAbsent(((JedisAskDataException) result).getTargetNode(), k -> new ArrayList<>())
+                        .add(operations.get(i));
+            } else if (result instanceof JedisMovedDataException) {
+                moved.add(operations.get(i));
+            } else {
+                errors.add(result);
+            }
+        }
+        RedisPipelines.throwIfError(errors);
+
+        for (Map.Entry<HostAndPort, List<RedisBatch.Operation>> entry : asked.entrySet()) {
+            try (Jedis jedis = connectionTo(entry.getKey())) {
+                throwIfRedirected(RedisPipelines.pipelined(jedis, entry.getValue(), true), slot);
+            }
+        }
+        if (!moved.isEmpty()) {
+            // 通过普通命令触发槽缓存刷新，再将被重定向的命令发往新节点
+            refreshSlotCache(moved.get(0).key);
+            try (Jedis jedis = delegate.getConnectionFromSlot(slot)) {
+                throwIfRedirected(RedisPipelines.pipelined(jedis, moved, false), slot);
+            }
+        }
+    }
+
+    private void refreshSlotCache(String key) {
+        delegate.exists(key);
+    }
+
+    private Jedis connectionTo(HostAndPort node) {
+        JedisPool pool = delegate.getClusterNodes().get(node.getHost() + ":" + node.getPort());
+        if (pool == null) {
+            throw new JedisDataException("ASK重定向的目标节点不在集群节点列表中: " + node);
+        }
+        return pool.getResource();
+    }
+
+    /**
+     * 重发的命令再次被重定向时不再重试，以免在迁移过程中反复发送
+     */
+    private static void throwIfRedirected(List<Object> results, int slot) {
+        for (Object result : results) {
+            if (result instanceof JedisRedirectionException) {
+                throw new JedisDataException("槽 " + slot + " 迁移中，批量命令执行失败: " + ((JedisRedirectionException) result).getMessage());
+            }
+        }
+        RedisPipelines.throwIfError(results);
+    }
+
+    /**
+     * 在每个主节点上以游标分批遍历匹配的键；从节点的数据与主节点相同，跳过
+     */
+    @Override
+    public Set<String> scan(String pattern, int count) {
+        Set<String> keys = new LinkedHashSet<>();
+        ScanParams params = new ScanParams().match(pattern).count(count);
+        for (JedisPool pool : delegate.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                if (!jedis.info("replication").contains("role:master")) {
+                    continue;
+                }
+                String cursor = ScanParams.SCAN_POINTER_START;
+                do {
+                    ScanResult<String> result = jedis.scan(cursor, params);
+                    keys.addAll(result.getResult());
+                    cursor = result.getCursor();
+                } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+            }
+        }
+        return keys;
     }
 
     @Override
@@ -0,0 +1,81 @@
+package com.redis.jedis.util;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 批量命令的发送，单机和集群客户端共用
+ */
+final class RedisPipelines {
+
+    private RedisPipelines() {
+    }
+
+    /**
+     * 以管道发送，返回与 operations 一一对应的结果（错误以异常对象返回，不抛出）；
+     * 批量中用到的脚本先在同一管道中 SCRIPT LOAD（见 RedisBatch.scripts）。
+     * asking 为true时每条命令前发送 ASKING，用于槽迁移中被 ASK 重定向的命令
+     */
+    static List<Object> pipelined(Jedis jedis, List<RedisBatch.Operation> operations, boolean asking) {
+        Set<LuaScript> scripts = RedisBatch.scripts(operations);
+        Pipeline pipeline = jedis.pipelined();
+        for (LuaScript script : scripts) {
+            pipeline.sendCommand(Protocol.Command.SCRIPT, "LOAD", script.getSource());
+        }
+        for (RedisBatch.Operation operation : operations) {
+            if (asking) {
+                pipeline.sendCommand(Protocol.Command.ASKING, new String[0]);
+            }
+            operation.command.accept(pipeline);
+        }
+        List<Object> replies = pipeline.syncAndReturnAll();
+        for (int i = 0; i < scripts.size(); i++) {
+            if (replies.get(i) instanceof JedisDataException) {
+                throw (JedisDataException) replies.get(i);
+            }
+        }
+        List<Object> results = new ArrayList<>(operations.size());
+        int step = asking ? 2 : 1;
+        for (int i = scripts.size() + step - 1; i < replies.size(); i += step) {
+            results.add(replies.get(i));
+        }
+        return results;
+    }
+
+    /**
+     * 以 MULTI/EXEC 发送，脚本命令以 EVAL 发送；入队出错时 EXEC 抛出 EXECABORT，事务中的命令均未执行
+     */
+    static List<Object> transaction(Jedis jedis, List<RedisBatch.Operation> operations) {
+        Transaction transaction = jedis.multi();
+        for (RedisBatch.Operation operation : operations) {
+            operation.atomicCommand().accept(transaction);
+        }
+        List<Object> results = transaction.exec();
+        return results != null ? results : new ArrayList<>();
+    }
+
+    /**
+     * 抛出结果中的第一个错误；EXEC 的结果中嵌套的列表一并检查
+     */
+    static void throwIfError(List<Object> results) {
+        for (Object result : results) {
+            if (result instanceof JedisDataException) {
+                throw (JedisDataException) result;
+            }
+            if (result instanceof List) {
+                for (Object nested : (List<?>) result) {
+                    if (nested instanceof JedisDataException) {
+                        throw (JedisDataException) nested;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.redis.jedis.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lua脚本注册表
+ * 多步读写（读取后刷新TTL、写入后裁剪、按当前状态迁移等）合并为一个脚本，一次往返且不会与其他客户端交错执行。
+ * 所有脚本在 RedisClient 创建时预加载到各主节点，之后以 EVALSHA 调用；
+ * 脚本只访问 KEYS 中的键，集群模式下多个键需使用相同的哈希标签
+ */
+public final class RedisScripts {
+
+    /**
+     * 读取并刷新过期时间，键不存在时返回nil
+     * KEYS: key  ARGV: TTL(秒)
+     */
+    public static final LuaScript GET_AND_TOUCH = new LuaScript("get-and-touch",
+            "local value = redis.call('GET', KEYS[1]) " +
+            "if value then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+            "return value");
+
+    /**
+     * 从列表头部写入，保留最近的若干条并设置过期时间；保留条数不大于0时不裁剪，返回裁剪前的长度
+     * KEYS: key  ARGV: 值, 保留条数, TTL(秒)
+     */
+    public static final LuaScript PUSH_TRIM_EXPIRE = new LuaScript("push-trim-expire",
+            "local length = redis.call('LPUSH', KEYS[1], ARGV[1]) " +
+            "local keep = tonumber(ARGV[2]) " +
+            "if keep > 0 and length > keep then redis.call('LTRIM', KEYS[1], 0, keep - 1) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "return length");
+
+    /**
+     * 写入任务JSON和状态字段
+     * KEYS: meta, state  ARGV: 任务JSON（为空则不写入）, TTL(秒), 状态字段/值...
+     */
+    public static final LuaScript TASK_STORE = new LuaScript("task-store",
+            "if ARGV[1] ~= '' then redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) end " +
+            "if #ARGV > 2 then redis.call('HSET', KEYS[2], unpack(ARGV, 3)) end " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "return 1");
+
+    /**
+     * 写入状态哈希的字段并刷新过期时间（与Agent上报节点状态的脚本一致）
+     * KEYS: state  ARGV: TTL(秒), 字段/值...
+     */
+    public static final LuaScript TASK_STATE_UPDATE = new LuaScript("task-state-update",
+            "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1");
+
+    /**
+     * 任务状态迁移：已结束（COMPLETED/FAILED）的任务不再改变状态，进度只增不减；
+     * 状态为结束状态且结束时间非空时写入结束时间。返回1表示已迁移，0表示任务已结束或不存在
+     * KEYS: state  ARGV: TTL(秒), 状态, 进度, 结束时间（可为空）
+     */
+    public static final LuaScript TASK_TRANSITION = new LuaScript("task-transition",
+            "local current = redis.call('HGET', KEYS[1], 'status') " +
+            "if not current or current == 'COMPLETED' or current == 'FAILED' then return 0 end " +
+            "local progress = tonumber(redis.call('HGET', KEYS[1], 'progress') or '0') or 0 " +
+            "local target = tonumber(ARGV[3]) or 0 " +
+            "if target < progress then target = progress end " +
+            "redis.call('HSET', KEYS[1], 'status', ARGV[2], 'progress', tostring(target)) " +
+            "if ARGV[4] ~= '' then redis.call('HSET', KEYS[1], 'endTime', ARGV[4]) end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1");
+
+    /**
+     * 删除任务的全部键
+     * KEYS: meta, state
+     */
+    public static final LuaScript TASK_DELETE = new LuaScript("task-delete",
+            "return redis.call('DEL', KEYS[1], KEYS[2])");
+
+    /**
+     * 从部署队列中移除同一服务尚未被取走的部署任务，返回被移除任务的ID
+     * KEYS: 部署队列  ARGV: 服务名
+     */
+    public static final LuaScript TASK_QUEUE_CANCEL_DEPLOYS = new LuaScript("task-queue-cancel-deploys",
+            "local cancelled = {} " +
+            "for _, item in ipairs(redis.call('LRANGE', KEYS[1], 0, -1)) do " +
+            "  local ok, task = pcall(cjson.decode, item) " +
+            "  if ok and type(task) == 'table' and task.action == 'DEPLOY' and task.serviceName == ARGV[1] then " +
+            "    if redis.call('LREM', KEYS[1], 1, item) > 0 then table.insert(cancelled, tostring(task.taskId)) end " +
+            "  end " +
+            "end " +
+            "return cancelled");
+
+    /**
+     * 把处理中的任务移回队列右端（优先被重新处理）并删除其租约；任务已不在处理中列表（已被确认）时只删除租约。
+     * 返回1表示已重新投递。与Agent的 LMOVE 相同，集群模式下要求这些键位于同一个槽（同一节点的键以 {nodeId} 为哈希标签）
+     * KEYS: 处理中列表, 租约, 队列  ARGV: 任务JSON
+     */
+    public static final LuaScript TASK_QUEUE_REDELIVER = new LuaScript("task-queue-redeliver",
+            "local moved = redis.call('LREM', KEYS[1], 1, ARGV[1]) " +
+            "if moved > 0 then redis.call('RPUSH', KEYS[3], ARGV[1]) end " +
+            "redis.call('ZREM', KEYS[2], ARGV[1]) " +
+            "return moved");
+
+    public static final List<LuaScript> ALL = Collections.unmodifiableList(Arrays.asList(
+            GET_AND_TOUCH, PUSH_TRIM_EXPIRE, TASK_STORE, TASK_STATE_UPDATE, TASK_TRANSITION, TASK_DELETE,
+            TASK_QUEUE_CANCEL_DEPLOYS, TASK_QUEUE_REDELIVER));
+
+    private RedisScripts() {
+    }
+}
@@ -3,8 +3,21 @@ package com.redis.jedis.util;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.StreamEntry;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.StreamPendingEntry;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.params.ZAddParams;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class RedisStandaloneClient implements RedisClient {
@@ -32,14 +45,53 @@ public class RedisStandaloneClient implements RedisClient {
     @Override
     public String get(String key) { return withJedis(j -> j.get(key)); }
 
+    @Override
+    public byte[] getBytes(String key) { return withJedis(j -> j.get(SafeEncoder.encode(key))); }
+
+    @Override
+    public List<byte[]> mgetBytes(List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        byte[][] binaryKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            binaryKeys[i] = SafeEncoder.encode(keys.get(i));
+        }
+        return withJedis(j -> j.mget(binaryKeys));
+    }
+
+    @Override
+    public List<String> mget(List<String> keys) {
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withJedis(j -> j.mget(keys.toArray(new String[0])));
+    }
+
+    @Override
+    public void mset(Map<String, String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<String> keysValues = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            keysValues.add(entry.getKey());
+            keysValues.add(entry.getValue());
+        }
+        withJedis(j -> j.mset(keysValues.toArray(new String[0])));
+    }
+
     @Override
     public void set(String key, String value) { withJedis(j -> { j.set(key, value); return null; }); }
 
     @Override
-    public void setex(String key, int seconds, String value) { withJedis(j -> { j.setex(key, seconds, value); return null; }); }
+    public void setex(String key, int seconds, String value) { withJedis(j -> { j.setex(key, (long) seconds, value); return null; }); }
+
+    @Override
+    public void setex(String key, int seconds, byte[] value) { withJedis(j -> { j.setex(SafeEncoder.encode(key), (long) seconds, value); return null; }); }
 
     @Override
-    public void expire(String key, int seconds) { withJedis(j -> { j.expire(key, seconds); return null; }); }
+    public void expire(String key, int seconds) { withJedis(j -> { j.expire(key, (long) seconds); return null; }); }
 
     @Override
     public void sadd(String key, String member) { withJedis(j -> { j.sadd(key, member); return null; }); }
@@ -47,9 +99,24 @@ public class RedisStandaloneClient implements RedisClient {
     @Override
     public Set<String> smembers(String key) { return withJedis(j -> j.smembers(key)); }
 
+    @Override
+    public boolean sismember(String key, String member) { return withJedis(j -> j.sismember(key, member)); }
+
+    @Override
+    public void hset(String key, Map<String, String> fields) { withJedis(j -> { j.hset(key, fields); return null; }); }
+
+    @Override
+    public Map<String, String> hgetAll(String key) { return withJedis(j -> j.hgetAll(key)); }
+
     @Override
     public void lpush(String key, String value) { withJedis(j -> { j.lpush(key, value); return null; }); }
 
+    @Override
+    public void rpush(String key, String value) { withJedis(j -> { j.rpush(key, value); return null; }); }
+
+    @Override
+    public long lrem(String key, long count, String value) { return withJedis(j -> j.lrem(key, count, value)); }
+
     @Override
     public void ltrim(String key, int start, int end) { withJedis(j -> { j.ltrim(key, start, end); return null; }); }
 
@@ -59,13 +126,130 @@ public class RedisStandaloneClient implements RedisClient {
     @Override
     public String rpop(String key) { return withJedis(j -> j.rpop(key)); }
 
+    @Override
+    public boolean zaddIfAbsent(String key, double score, String member) {
+        return withJedis(j -> j.zadd(key, score, member, ZAddParams.zAddParams().nx()) > 0);
+    }
+
+    @Override
+    public Double zscore(String key, String member) { return withJedis(j -> j.zscore(key, member)); }
+
+    @Override
+    public Set<String> zrange(String key, long start, long end) { return withJedis(j -> j.zrange(key, start, end)); }
+
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max) { return withJedis(j -> j.zrangeByScore(key, min, max)); }
+
+    @Override
+    public Set<String> zrevrange(String key, long start, long end) { return withJedis(j -> j.zrevrange(key, start, end)); }
+
+    @Override
+    public long zcard(String key) { return withJedis(j -> j.zcard(key)); }
+
+    @Override
+    public void zrem(String key, String member) { withJedis(j -> { j.zrem(key, member); return null; }); }
+
+    @Override
+    public String xadd(String key, Map<String, String> fields, long maxLen) {
+        return withJedis(j -> j.xadd(key, StreamEntryID.NEW_ENTRY, fields, maxLen, true).toString());
+    }
+
+    @Override
+    public void xgroupCreate(String key, String group, boolean fromLatest) {
+        withJedis(j -> {
+            try {
+                j.xgroupCreate(key, group, fromLatest ? StreamEntryID.LAST_ENTRY : new StreamEntryID(), true);
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                    throw e;
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<StreamPendingEntry> xpending(String key, String group, int count) {
+        return withJedis(j -> j.xpending(key, group, null, null, count, null));
+    }
+
+    @Override
+    public List<StreamEntry> xrange(String key, String start, String end, int count) {
+        return withJedis(j -> j.xrange(key, new StreamEntryID(start), new StreamEntryID(end), count));
+    }
+
+    /**
+     * 以 EVALSHA 调用，脚本未缓存时以 EVAL 重发
+     */
+    @Override
+    public Object eval(LuaScript script, List<String> keys, List<String> args) {
+        return withJedis(j -> {
+            try {
+                return j.evalsha(script.getSha1(), keys, args);
+            } catch (JedisNoScriptException e) {
+                return j.eval(script.getSource(), keys, args);
+            }
+        });
+    }
+
+    @Override
+    public void loadScripts(List<LuaScript> scripts) {
+        withJedis(j -> {
+            for (LuaScript script : scripts) {
+                j.scriptLoad(script.getSource());
+            }
+            return null;
+        });
+    }
+
     @Override
     public void publish(String channel, String message) { withJedis(j -> { j.publish(channel, message); return null; }); }
 
+    @Override
+    public void subscribe(JedisPubSub listener, String channel) { withJedis(j -> { j.subscribe(listener, channel); return null; }); }
+
+    @Override
+    public void execute(RedisBatch batch) {
+        execute(batch, false);
+    }
+
+    @Override
+    public void executeAtomic(RedisBatch batch) {
+        execute(batch, true);
+    }
+
+    private void execute(RedisBatch batch, boolean atomic) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        withJedis(j -> {
+            RedisPipelines.throwIfError(atomic
+                    ? RedisPipelines.transaction(j, batch.getOperations())
+                    : RedisPipelines.pipelined(j, batch.getOperations(), false));
+            return null;
+        });
+        batch.executed();
+    }
+
     private interface RedisCallback<T> { T doInRedis(Jedis jedis); }
 
+    /**
+     * 以游标分批遍历匹配的键，每次只扫描 count 个槽位，不会像 KEYS 一样长时间阻塞Redis
+     */
     @Override
-    public Set<String> keys(String pattern) { return withJedis(j -> j.keys(pattern)); }
+    public Set<String> scan(String pattern, int count) {
+        return withJedis(j -> {
+            Set<String> keys = new LinkedHashSet<>();
+            ScanParams params = new ScanParams().match(pattern).count(count);
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result = j.scan(cursor, params);
+                keys.addAll(result.getResult());
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+            return keys;
+        });
+    }
 
     @Override
     public void del(String key) { withJedis(j -> { j.del(key); return null; }); }
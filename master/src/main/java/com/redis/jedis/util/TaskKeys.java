@@ -0,0 +1,82 @@
+package com.redis.jedis.util;
+
+/**
+ * 任务键命名（第2版）
+ * 同一任务的键以 {taskId} 作为哈希标签，在集群中位于同一个槽，可以在一个Lua脚本或 MULTI/EXEC 中原子读写：
+ * task:{taskId}:meta 保存任务JSON，task:{taskId}:state 为状态哈希（Master字段和各节点的 node:{nodeId} 字段）。
+ * 第1版的 task:deploy:{taskId}、task:state:{taskId} 以及更早以JSON保存状态的 task:status:{taskId}
+ * （基线Agent按节点写入 task:status:{taskId}:{nodeId}）
+ * 分布在不同的槽，由 TaskManagementService 启动时迁移；迁移完成前读取新键不存在的任务时回退到旧键。
+ * 列表任务总线的节点键以 {nodeId} 作为哈希标签：task:{nodeId}:queue（部署通道）、task:{nodeId}:queue:{通道}、
+ * task:{nodeId}:processing、task:{nodeId}:lease 和 task:{nodeId}:signal 位于同一个槽，Agent的 LMOVE 和回收脚本可在集群中执行；
+ * 旧的 task:queue:{nodeId} 等键由 ListTaskBus 启动时迁移
+ */
+public final class TaskKeys {
+
+    public static final int VERSION = 2;
+
+    public static final String LEGACY_META_PREFIX = "task:deploy:";
+    public static final String LEGACY_STATE_PREFIX = "task:state:";
+    public static final String LEGACY_STATUS_PREFIX = "task:status:";
+    public static final String LEGACY_QUEUE_PREFIX = "task:queue:";
+    public static final String LEGACY_PROCESSING_PREFIX = "task:processing:";
+    public static final String LEGACY_LEASE_PREFIX = "task:lease:";
+    public static final String LEGACY_SIGNAL_PREFIX = "task:signal:";
+
+    // SCAN匹配全部第2版状态键（glob中的花括号按字面匹配）
+    public static final String STATE_PATTERN = "task:{*}:state";
+
+    private static final String PREFIX = "task:{";
+    private static final String META_SUFFIX = "}:meta";
+    private static final String STATE_SUFFIX = "}:state";
+
+    private TaskKeys() {
+    }
+
+    /**
+     * 基线Agent按节点上报的 task:status:{taskId}:{nodeId}，返回节点键，任务级的 task:status:{taskId} 返回null
+     */
+    public static String[] splitLegacyNodeStatus(String key) {
+        String rest = key.substring(LEGACY_STATUS_PREFIX.length());
+        int separator = rest.indexOf(':');
+        return separator > 0 ? new String[]{rest.substring(0, separator), rest.substring(separator + 1)} : null;
+    }
+
+    public static String legacyNodeStatus(String taskId, String nodeId) {
+        return LEGACY_STATUS_PREFIX + taskId + ":" + nodeId;
+    }
+
+    public static String meta(String taskId) {
+        return PREFIX + taskId + META_SUFFIX;
+    }
+
+    public static String state(String taskId) {
+        return PREFIX + taskId + STATE_SUFFIX;
+    }
+
+    /**
+     * 节点队列键，lane 为null时是部署通道
+     */
+    public static String queue(String nodeId, String lane) {
+        return PREFIX + nodeId + (lane != null ? "}:queue:" + lane : "}:queue");
+    }
+
+    public static String processing(String nodeId) {
+        return PREFIX + nodeId + "}:processing";
+    }
+
+    public static String lease(String nodeId) {
+        return PREFIX + nodeId + "}:lease";
+    }
+
+    public static String signal(String nodeId) {
+        return PREFIX + nodeId + "}:signal";
+    }
+
+    /**
+     * 从第2版状态键中取出任务ID
+     */
+    public static String taskIdOfState(String stateKey) {
+        return stateKey.substring(PREFIX.length(), stateKey.length() - STATE_SUFFIX.length());
+    }
+}
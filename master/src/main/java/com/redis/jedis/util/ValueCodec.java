@@ -0,0 +1,17 @@
+package com.redis.jedis.util;
+
+/**
+ * Redis值编解码器
+ * 写入时使用配置的编解码器；读取时应使用 ValueCodecs.decode 按首字节识别编码，切换编码后已写入的值仍可读取
+ */
+public interface ValueCodec {
+
+    /**
+     * 名称，对应配置 deploy.redis-value-codec
+     */
+    String name();
+
+    byte[] encode(Object value);
+
+    <T> T decode(byte[] data, Class<T> type);
+}
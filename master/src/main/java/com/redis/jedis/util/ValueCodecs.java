@@ -0,0 +1,33 @@
+package com.redis.jedis.util;
+
+/**
+ * 编解码器选择和按内容识别的解码
+ */
+public final class ValueCodecs {
+
+    public static final ValueCodec JSON = new JsonValueCodec();
+    public static final ValueCodec COMPACT = new CompactValueCodec();
+
+    private ValueCodecs() {
+    }
+
+    public static ValueCodec forName(String name) {
+        if (COMPACT.name().equalsIgnoreCase(name)) {
+            return COMPACT;
+        }
+        if (JSON.name().equalsIgnoreCase(name)) {
+            return JSON;
+        }
+        throw new IllegalArgumentException("未知的Redis值编码: " + name);
+    }
+
+    /**
+     * 按首字节识别编码后解码，兼容以字符串写入的JSON值；data为null时返回null
+     */
+    public static <T> T decode(byte[] data, Class<T> type) {
+        if (data == null) {
+            return null;
+        }
+        return (CompactValueCodec.isCompact(data) ? COMPACT : JSON).decode(data, type);
+    }
+}
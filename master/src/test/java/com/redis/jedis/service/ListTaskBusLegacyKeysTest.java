@@ -0,0 +1,112 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.redis.jedis.dto.DeployTask;
+import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.RedisStandaloneClient;
+import com.redis.jedis.util.TaskKeys;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 旧版不带哈希标签的队列键 task:queue:{nodeId}[:{通道}]、task:processing:{nodeId} 迁移到 task:{nodeId}:* 键
+ */
+class ListTaskBusLegacyKeysTest {
+
+    private static RedisServer redisServer;
+    private static RedisClient redisClient;
+
+    private ListTaskBus taskBus;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        redisClient = new RedisStandaloneClient("127.0.0.1", port, null, 4, 4, 0, 2000);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (String key : redisClient.scan("*", 100)) {
+            redisClient.del(key);
+        }
+        taskBus = new ListTaskBus();
+        ReflectionTestUtils.setField(taskBus, "jedisCluster", redisClient);
+        ReflectionTestUtils.setField(taskBus, "migrateLegacy", true);
+    }
+
+    @Test
+    void migratesQueuesInConsumeOrder() {
+        String inflight = taskJson("deploy_1", "DEPLOY");
+        String older = taskJson("deploy_2", "DEPLOY");
+        String newer = taskJson("deploy_3", "DEPLOY");
+        String rollback = taskJson("rollback_1", "ROLLBACK");
+        redisClient.lpush("task:processing:node-1", inflight);
+        redisClient.zaddIfAbsent("task:lease:node-1", 1, inflight);
+        redisClient.lpush("task:queue:node-1", older);
+        redisClient.lpush("task:queue:node-1", newer);
+        redisClient.lpush("task:queue:node-1:rollback", rollback);
+        redisClient.lpush("task:signal:node-1", "1");
+
+        taskBus.migrateLegacyQueues();
+
+        // 队列从右端消费：旧处理中的任务最先，其后按原先后顺序
+        assertEquals(Arrays.asList(inflight, older, newer), drain(TaskKeys.queue("node-1", null)));
+        assertEquals(Collections.singletonList(rollback), drain(TaskKeys.queue("node-1", "rollback")));
+        assertEquals(Collections.singletonList("1"), redisClient.lrange(TaskKeys.signal("node-1"), 0, -1));
+        assertEquals(Collections.emptySet(), redisClient.scan("task:queue:*", 100));
+        assertEquals(Collections.emptySet(), redisClient.scan("task:processing:*", 100));
+        assertEquals(0, redisClient.zcard("task:lease:node-1"));
+        assertEquals(0, redisClient.lrange("task:signal:node-1", 0, -1).size());
+    }
+
+    @Test
+    void publishesToHashTaggedQueue() {
+        DeployTask task = new DeployTask("deploy_4", "all", "order-service", "DEPLOY");
+
+        taskBus.publish(task, Collections.singletonList("node-1"));
+
+        List<String> queued = drain(TaskKeys.queue("node-1", null));
+        assertEquals(Collections.singletonList("deploy_4"),
+                queued.stream().map(json -> JSON.parseObject(json).getString("taskId")).collect(Collectors.toList()));
+        assertEquals("task:{node-1}:queue", TaskKeys.queue("node-1", null));
+    }
+
+    private List<String> drain(String key) {
+        List<String> tasks = new ArrayList<>();
+        String taskJson;
+        while ((taskJson = redisClient.rpop(key)) != null) {
+            tasks.add(taskJson);
+        }
+        return tasks;
+    }
+
+    private String taskJson(String taskId, String action) {
+        return JSON.toJSONString(new DeployTask(taskId, "node-1", "order-service", action));
+    }
+}
@@ -0,0 +1,139 @@
+package com.redis.jedis.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.redis.jedis.dto.TaskStatus;
+import com.redis.jedis.util.RedisClient;
+import com.redis.jedis.util.RedisStandaloneClient;
+import com.redis.jedis.util.TaskKeys;
+import com.redis.jedis.util.ValueCodecs;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 基线版本写入的任务键：Master的 task:status:{taskId}（JSON）和Agent的 task:status:{taskId}:{nodeId}
+ */
+class TaskManagementServiceLegacyKeysTest {
+
+    private static RedisServer redisServer;
+    private static RedisClient redisClient;
+
+    private TaskManagementService taskManagementService;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        redisClient = new RedisStandaloneClient("127.0.0.1", port, null, 4, 4, 0, 2000);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        for (String key : redisClient.scan("*", 100)) {
+            redisClient.del(key);
+        }
+        taskManagementService = new TaskManagementService();
+        ReflectionTestUtils.setField(taskManagementService, "jedisCluster", redisClient);
+        ReflectionTestUtils.setField(taskManagementService, "migrateLegacy", true);
+        ReflectionTestUtils.setField(taskManagementService, "codecName", "json");
+        ReflectionTestUtils.setField(taskManagementService, "codec", ValueCodecs.JSON);
+    }
+
+    @Test
+    void readsBaselineNodeStatusBeforeMigration() {
+        seedBaselineTask("deploy_order_1", "SUCCESS", null);
+
+        TaskStatus status = taskManagementService.getTaskStatus("deploy_order_1");
+
+        assertNotNull(status);
+        assertEquals("SUCCESS", status.getNodeResults().get("node-1"));
+        assertNull(status.getNodeResults().get("node-2"));
+        assertEquals(50, status.getProgress());
+        assertEquals("RUNNING", status.getStatus());
+    }
+
+    @Test
+    void migratesBaselineNodeStatusIntoParentTask() {
+        seedBaselineTask("deploy_order_1", "SUCCESS", "FAILED");
+
+        taskManagementService.migrateAndIndexTasks();
+
+        TaskStatus status = taskManagementService.getTaskStatus("deploy_order_1");
+        assertNotNull(status);
+        Map<String, String> expected = new HashMap<>();
+        expected.put("node-1", "SUCCESS");
+        expected.put("node-2", "FAILED");
+        assertEquals(expected, status.getNodeResults());
+        assertEquals(100, status.getProgress());
+        assertEquals("FAILED", status.getStatus());
+
+        // 节点状态键不会被当作任务迁移，旧键全部删除
+        assertEquals(1, redisClient.zcard("task:index"));
+        assertEquals(1, taskManagementService.getAllTaskStatus().size());
+        assertNull(redisClient.get(TaskKeys.legacyNodeStatus("deploy_order_1", "node-1")));
+        assertNull(redisClient.get(TaskKeys.LEGACY_STATUS_PREFIX + "deploy_order_1"));
+        assertEquals(0, redisClient.scan("task:{deploy_order_1:*", 100).size());
+    }
+
+    @Test
+    void dropsNodeStatusOfExpiredTask() {
+        redisClient.set(TaskKeys.legacyNodeStatus("deploy_gone_1", "node-1"), nodeStatusJson("deploy_gone_1", "node-1", "SUCCESS"));
+
+        taskManagementService.migrateAndIndexTasks();
+
+        assertEquals(0, redisClient.zcard("task:index"));
+        assertNull(redisClient.get(TaskKeys.legacyNodeStatus("deploy_gone_1", "node-1")));
+        assertNull(taskManagementService.getTaskStatus("deploy_gone_1"));
+    }
+
+    private void seedBaselineTask(String taskId, String node1Status, String node2Status) {
+        TaskStatus status = new TaskStatus();
+        status.setTaskId(taskId);
+        status.setServiceName("order-service");
+        status.setStatus("PENDING");
+        status.setStartTime(System.currentTimeMillis());
+        status.setTargetNodes(Arrays.asList("node-1", "node-2"));
+        redisClient.setex(TaskKeys.LEGACY_STATUS_PREFIX + taskId, 3600, JSON.toJSONString(status));
+        redisClient.setex(TaskKeys.LEGACY_META_PREFIX + taskId, 3600, "{\"taskId\":\"" + taskId + "\",\"action\":\"DEPLOY\"}");
+        redisClient.set(TaskKeys.legacyNodeStatus(taskId, "node-1"), nodeStatusJson(taskId, "node-1", node1Status));
+        if (node2Status != null) {
+            redisClient.set(TaskKeys.legacyNodeStatus(taskId, "node-2"), nodeStatusJson(taskId, "node-2", node2Status));
+        }
+    }
+
+    private String nodeStatusJson(String taskId, String nodeId, String status) {
+        JSONObject report = new JSONObject();
+        report.put("taskId", taskId);
+        report.put("nodeId", nodeId);
+        report.put("status", status);
+        report.put("message", "部署" + status);
+        report.put("errorMessage", "FAILED".equals(status) ? "健康检查失败" : null);
+        report.put("updateTime", System.currentTimeMillis());
+        return report.toJSONString();
+    }
+}